@@ -0,0 +1,215 @@
+package systems.project.configuratons;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.AsyncConfigurer;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import systems.project.monitoring.ExecutorMetrics;
+import systems.project.monitoring.SqlStatementCounter;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Executors behind the {@code @Async} service facades and async MVC handling.
+ * Interactive CRUD, file imports and response streaming get separate pools so
+ * a burst of imports cannot starve ordinary requests. Saturated pools reject
+ * new work (mapped to HTTP 429) instead of queueing without bound.
+ */
+@Configuration
+@EnableAsync
+public class AsyncConfiguration implements AsyncConfigurer, WebMvcConfigurer {
+
+    public static final String INTERACTIVE_EXECUTOR = "interactiveExecutor";
+    public static final String IMPORT_EXECUTOR = "importExecutor";
+    public static final String STREAMING_EXECUTOR = "streamingExecutor";
+    public static final String IMPORT_VALIDATION_POOL = "importValidationPool";
+    public static final String IMPORT_WRITER_EXECUTOR = "importWriterExecutor";
+    public static final String STORAGE_UPLOAD_EXECUTOR = "storageUploadExecutor";
+    public static final String EVENT_FAN_OUT_EXECUTOR = "eventFanOutExecutor";
+
+    private static final int VIRTUAL_THREADS_MIN_FEATURE = 21;
+
+    private final AsyncProperties properties;
+    private final SqlStatementCounter statementCounter;
+    private final Logger logger;
+
+    public AsyncConfiguration(AsyncProperties properties,
+                              SqlStatementCounter statementCounter,
+                              Logger logger) {
+        this.properties = properties;
+        this.statementCounter = statementCounter;
+        this.logger = logger;
+    }
+
+    @Bean
+    public ExecutorMetrics interactiveExecutorMetrics() {
+        return new ExecutorMetrics("interactive", statementCounter);
+    }
+
+    @Bean
+    public ExecutorMetrics importExecutorMetrics() {
+        return new ExecutorMetrics("imports", statementCounter);
+    }
+
+    @Bean
+    public ExecutorMetrics streamingExecutorMetrics() {
+        return new ExecutorMetrics("streaming", statementCounter);
+    }
+
+    @Bean
+    public ExecutorMetrics importWriterExecutorMetrics() {
+        return new ExecutorMetrics("import-writers", statementCounter);
+    }
+
+    @Bean
+    public ExecutorMetrics storageUploadExecutorMetrics() {
+        return new ExecutorMetrics("storage-uploads", statementCounter);
+    }
+
+    @Bean
+    public ExecutorMetrics eventFanOutExecutorMetrics() {
+        return new ExecutorMetrics("event-fan-out", statementCounter);
+    }
+
+    @Bean(name = {INTERACTIVE_EXECUTOR, "taskExecutor"})
+    public AsyncTaskExecutor interactiveExecutor() {
+        return build("crud-", properties.getInteractive(), interactiveExecutorMetrics());
+    }
+
+    @Bean(IMPORT_EXECUTOR)
+    public AsyncTaskExecutor importExecutor() {
+        return build("import-", properties.getImports(), importExecutorMetrics());
+    }
+
+    @Bean(IMPORT_WRITER_EXECUTOR)
+    public AsyncTaskExecutor importWriterExecutor() {
+        return build("import-writer-", properties.getImportWriters(), importWriterExecutorMetrics());
+    }
+
+    @Bean(STREAMING_EXECUTOR)
+    public AsyncTaskExecutor streamingExecutor() {
+        return build("stream-", properties.getStreaming(), streamingExecutorMetrics());
+    }
+
+    /**
+     * Consumers of streaming uploads to object storage. The parser on the other
+     * end of the upload queue blocks until its consumer runs, so a consumer must
+     * never wait in a queue behind long exports: every upload gets its own
+     * thread, and uploads beyond the limit are rejected outright.
+     */
+    @Bean(STORAGE_UPLOAD_EXECUTOR)
+    public AsyncTaskExecutor storageUploadExecutor() {
+        boolean virtual = properties.isVirtualThreads() && virtualThreadsSupported();
+        return perTaskExecutor("storage-upload-", properties.getStorageUploads(),
+                storageUploadExecutorMetrics(), virtual);
+    }
+
+    /**
+     * Delivery of SSE events to subscribers. A single platform thread with a
+     * FIFO queue keeps events in the order they were published, which a
+     * multi-threaded pool or thread-per-task executor would not; virtual
+     * threads are never used here for the same reason.
+     */
+    @Bean(EVENT_FAN_OUT_EXECUTOR)
+    public AsyncTaskExecutor eventFanOutExecutor() {
+        return platformExecutor("sse-fan-out-", new AsyncProperties.Pool(1, 1, properties.getEventFanOutQueue()),
+                eventFanOutExecutorMetrics());
+    }
+
+    /**
+     * CPU-bound validation of large imports. Work-stealing suits the recursive
+     * split of a record list; the pool never touches JDBC, so it is sized by
+     * cores rather than by the connection pool.
+     */
+    @Bean(name = IMPORT_VALIDATION_POOL, destroyMethod = "shutdown")
+    public ForkJoinPool importValidationPool(ImportProperties imports) {
+        int parallelism = imports.getValidationParallelism() > 0
+                ? imports.getValidationParallelism()
+                : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threads = new AtomicInteger();
+        return new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("import-validate-" + threads.incrementAndGet());
+            return thread;
+        }, null, false);
+    }
+
+    @Override
+    public Executor getAsyncExecutor() {
+        return interactiveExecutor();
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(streamingExecutor());
+        configurer.setDefaultTimeout(properties.getRequestTimeout());
+    }
+
+    public static boolean virtualThreadsSupported() {
+        return Runtime.version().feature() >= VIRTUAL_THREADS_MIN_FEATURE;
+    }
+
+    private AsyncTaskExecutor build(String prefix, AsyncProperties.Pool pool, ExecutorMetrics metrics) {
+        if (properties.isVirtualThreads()) {
+            if (virtualThreadsSupported()) {
+                return virtualExecutor(prefix, pool, metrics);
+            }
+            logger.warning("Virtual threads requested but JDK " + Runtime.version().feature()
+                    + " does not support them; using platform pool for " + metrics.getName());
+        }
+        return platformExecutor(prefix, pool, metrics);
+    }
+
+    private AsyncTaskExecutor virtualExecutor(String prefix, AsyncProperties.Pool pool, ExecutorMetrics metrics) {
+        return perTaskExecutor(prefix, pool.admissionLimit(), metrics, true);
+    }
+
+    private AsyncTaskExecutor perTaskExecutor(String prefix, int limit, ExecutorMetrics metrics, boolean virtual) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(prefix) {
+            @Override
+            public void execute(Runnable task) {
+                try {
+                    super.execute(task);
+                } catch (TaskRejectedException e) {
+                    metrics.onRejected();
+                    throw e;
+                }
+            }
+        };
+        executor.setVirtualThreads(virtual);
+        executor.setConcurrencyLimit(limit);
+        executor.setRejectTasksWhenLimitReached(true);
+        executor.setTaskDecorator(metrics);
+        metrics.describe(virtual, limit, () -> 0, () -> 0);
+        return executor;
+    }
+
+    private AsyncTaskExecutor platformExecutor(String prefix, AsyncProperties.Pool pool, ExecutorMetrics metrics) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(prefix);
+        executor.setCorePoolSize(pool.getCoreSize());
+        executor.setMaxPoolSize(Math.max(pool.getCoreSize(), pool.getMaxSize()));
+        executor.setQueueCapacity(pool.getQueueCapacity());
+        executor.setTaskDecorator(metrics);
+        executor.setRejectedExecutionHandler((task, threadPool) -> {
+            metrics.onRejected();
+            throw new RejectedExecutionException("Пул " + metrics.getName() + " перегружен");
+        });
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        metrics.describe(false, pool.admissionLimit(), executor::getQueueSize, executor::getPoolSize);
+        return executor;
+    }
+}
@@ -0,0 +1,68 @@
+package systems.project.configuratons;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "app.async")
+public class AsyncProperties {
+
+    /**
+     * Run async work on virtual threads. Only honoured on JDK 21+, otherwise
+     * the bounded platform pools below are used.
+     */
+    private boolean virtualThreads = false;
+
+    /**
+     * Timeout for async MVC requests (CompletableFuture, StreamingResponseBody), ms.
+     */
+    private long requestTimeout = 300_000;
+
+    private Pool interactive = new Pool(8, 32, 200);
+
+    private Pool imports = new Pool(1, 2, 10);
+
+    private Pool streaming = new Pool(2, 16, 32);
+
+    /**
+     * Partition writers of parallel imports. How many of them hold a database
+     * connection at once is capped separately by app.imports.max-pool-share.
+     */
+    private Pool importWriters = new Pool(4, 8, 16);
+
+    /**
+     * Streaming uploads to object storage running at once. Each one gets its
+     * own thread and none is queued; imports beyond the limit are rejected.
+     */
+    private int storageUploads = 16;
+
+    /**
+     * SSE events waiting for the single fan-out thread; events published
+     * while the queue is full are dropped.
+     */
+    private int eventFanOutQueue = 1000;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Pool {
+        private int coreSize;
+        private int maxSize;
+        private int queueCapacity;
+
+        /**
+         * Concurrency budget for a virtual-thread executor: the same number of
+         * tasks a platform pool would accept (running + queued).
+         */
+        public int admissionLimit() {
+            return maxSize + queueCapacity;
+        }
+    }
+}
@@ -1,14 +1,19 @@
 package systems.project.configuratons;
 
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.retry.annotation.EnableRetry;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import systems.project.monitoring.SqlStatementCounter;
 
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 @Configuration
 @EnableRetry
+@EnableScheduling
 public class Config {
 
 
@@ -19,4 +24,9 @@ public class Config {
         return log;
     }
 
+    @Bean
+    public HibernatePropertiesCustomizer statementInspectorCustomizer(SqlStatementCounter counter) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, counter);
+    }
+
 }
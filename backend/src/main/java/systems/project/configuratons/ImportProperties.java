@@ -0,0 +1,43 @@
+package systems.project.configuratons;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "app.imports")
+public class ImportProperties {
+
+    /** Записей в одной транзакции поэтапного импорта, если клиент не указал свой размер. */
+    private int chunkSize = 1000;
+    private int maxChunkSize = 10000;
+    /** С этого числа записей вызов импорта проверяется параллельно; меньшие списки — в вызывающем потоке. */
+    private int parallelValidationThreshold = 1000;
+    /** Потоков в пуле валидации; 0 — по числу процессоров. */
+    private int validationParallelism = 0;
+    /** Партиций параллельной записи, если клиент не указал своё число. */
+    private int parallelWriters = 4;
+    /** Доля пула соединений, которую одновременно могут занять все параллельные записи импорта. */
+    private double maxPoolShare = 0.5;
+    /**
+     * Самый большой файл, который импорт целиком держит в памяти (однотранзакционный,
+     * bulk и параллельный). Поэтапный импорт и фоновая очередь читают загрузку потоком
+     * и этим размером не ограничены.
+     */
+    private DataSize maxBufferedSize = DataSize.ofMegabytes(16);
+    /**
+     * Имя экземпляра сервера, записываемое в журнал импорта. Должно быть своим у
+     * каждого экземпляра и не меняться при перезапуске: при старте прерванными
+     * помечаются только импорты с этим именем.
+     */
+    private String instanceId = "local";
+    /**
+     * Самый большой файл прямой загрузки в хранилище. Ссылка на PUT размер не
+     * ограничивает, поэтому он проверяется при подтверждении загрузки.
+     */
+    private DataSize maxUploadSize = DataSize.ofGigabytes(4);
+}
@@ -0,0 +1,33 @@
+package systems.project.configuratons;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "app.imports.retention")
+public class ImportRetentionProperties {
+
+    private boolean enabled = true;
+    /** Завершённые записи журнала старше этого срока удаляются вместе с файлами; 0 — без ограничения по возрасту. */
+    private Duration maxAge = Duration.ofDays(90);
+    /** Сколько самых новых завершённых записей хранить независимо от возраста; 0 — без ограничения по числу. */
+    private int keepLast = 10_000;
+    /** Записей журнала, удаляемых одним запросом, и объектов в одном пакетном удалении из хранилища. */
+    private int batchSize = 500;
+    /**
+     * Временные объекты ({@code .tmp}) и неподтверждённые сессии прямой загрузки
+     * старше этого срока считаются брошенными.
+     */
+    private Duration tempTtl = Duration.ofHours(24);
+    /**
+     * Сколько после повторного использования файла запись не удаляется: за это
+     * время импорт, взявший файл, успевает сохранить свою запись на тот же ключ.
+     */
+    private Duration reuseGrace = Duration.ofHours(1);
+}
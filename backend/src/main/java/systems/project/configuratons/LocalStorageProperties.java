@@ -0,0 +1,27 @@
+package systems.project.configuratons;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "app.storage.local")
+public class LocalStorageProperties {
+
+    /** Корень хранилища: ключ объекта — путь относительно него. */
+    private Path root = Path.of("data", "storage");
+    private String folder = "imports";
+    /** Сжимать gzip файлы импорта, присланные без сжатия; присланные в gzip хранятся как есть. */
+    private boolean compress = true;
+    /** Незафиксированные файлы старше этого срока считаются брошенными и удаляются. */
+    private Duration stagingTtl = Duration.ofHours(1);
+    /** Сколько байт файла отображается в память за раз при чтении для парсинга. */
+    private DataSize mapWindow = DataSize.ofMegabytes(64);
+}
@@ -4,12 +4,14 @@ import io.minio.BucketExistsArgs;
 import io.minio.MakeBucketArgs;
 import io.minio.MinioClient;
 import jakarta.annotation.PostConstruct;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import java.util.logging.Logger;
 
 @Configuration
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "minio", matchIfMissing = true)
 public class MinioConfiguration {
 
     private final StorageProperties properties;
@@ -4,6 +4,10 @@ import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import systems.project.models.storage.ObjectPromotion;
+
+import java.time.Duration;
 
 @Getter
 @Setter
@@ -18,11 +22,22 @@ public class StorageProperties {
     private String region;
     private boolean secure;
     private String folder = "imports";
-
-    public String resolveFolder() {
-        if (folder == null || folder.isBlank()) {
-            return "imports";
-        }
-        return folder.replaceAll("^/+", "").replaceAll("/+", "/");
-    }
+    /**
+     * Размер части multipart-загрузки файлов заранее неизвестной длины. MinIO
+     * держит одну часть в памяти, поэтому это и есть потолок памяти на загрузку;
+     * меньше 5 МБ S3 не принимает.
+     */
+    private DataSize partSize = DataSize.ofMegabytes(16);
+    /** Сжимать gzip файлы импорта, присланные без сжатия; присланные в gzip хранятся как есть. */
+    private boolean compress = true;
+    /**
+     * Как временный объект становится постоянным; TAG фиксирует файл любого размера
+     * за постоянное время, но брошенные объекты находит только по тегам из листинга
+     * MinIO — для другого S3 нужен COPY.
+     */
+    private ObjectPromotion promotion = ObjectPromotion.TAG;
+    /** Объекты с тегом pending старше этого срока считаются брошенными и удаляются. */
+    private Duration pendingTtl = Duration.ofHours(1);
+    /** Срок действия прямых ссылок на загрузку и скачивание файлов импорта. */
+    private Duration presignTtl = Duration.ofMinutes(15);
 }
@@ -0,0 +1,30 @@
+package systems.project.controllers;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import systems.project.models.api.ExecutorStats;
+import systems.project.monitoring.ExecutorMetrics;
+
+import java.util.List;
+
+@RestController
+@CrossOrigin(origins = "*")
+@RequestMapping("/async/executors")
+public class AsyncExecutorController {
+
+    private final List<ExecutorMetrics> metrics;
+
+    public AsyncExecutorController(List<ExecutorMetrics> metrics) {
+        this.metrics = metrics;
+    }
+
+    @GetMapping
+    public ResponseEntity<List<ExecutorStats>> stats() {
+        return ResponseEntity.ok(metrics.stream()
+                .map(ExecutorMetrics::snapshot)
+                .toList());
+    }
+}
@@ -1,23 +1,46 @@
 package systems.project.controllers;
 
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import systems.project.exceptions.InvalidDataException;
 import systems.project.exceptions.ResourceNotFoundException;
+import systems.project.models.ImportStatus;
 import systems.project.models.api.ImportLogEntry;
 import systems.project.models.api.AbstractResponse;
+import systems.project.models.api.ImportResult;
+import systems.project.models.envelopes.ImportLogPageEnvelope;
+import systems.project.models.envelopes.ImportTicketIdsEnvelope;
+import systems.project.models.storage.ObjectStat;
 import systems.project.models.storage.StoredObject;
+import systems.project.services.core.TicketEventService;
+import systems.project.services.core.TicketService;
+import systems.project.services.imports.ImportJobService;
 import systems.project.services.imports.ImportLogService;
-import systems.project.services.storage.MinioStorageService;
+import systems.project.services.imports.ImportProgressService;
+import systems.project.services.storage.ByteRanges;
+import systems.project.services.storage.ContentEncodings;
+import systems.project.services.storage.StorageService;
 
-import java.io.InputStream;
-import java.util.List;
+import java.net.URI;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @CrossOrigin(origins = "*")
@@ -25,22 +48,67 @@ import java.util.List;
 public class ImportLogController {
 
     private final ImportLogService logService;
-    private final MinioStorageService storageService;
+    private final StorageService storageService;
+    private final TicketService ticketService;
+    private final TicketEventService events;
+    private final ImportProgressService progressService;
+    private final ImportJobService importJobs;
 
     public ImportLogController(ImportLogService logService,
-                               MinioStorageService storageService) {
+                               StorageService storageService,
+                               TicketService ticketService,
+                               TicketEventService events,
+                               ImportProgressService progressService,
+                               ImportJobService importJobs) {
         this.logService = logService;
         this.storageService = storageService;
+        this.ticketService = ticketService;
+        this.events = events;
+        this.progressService = progressService;
+        this.importJobs = importJobs;
     }
 
+    /**
+     * Поток событий {@code import-progress}: по одному после каждого закоммиченного чанка.
+     */
+    @GetMapping(value = "/progress", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter progress() {
+        return progressService.subscribe();
+    }
+
+    /**
+     * Страница журнала от новых записей к старым, без id билетов — они
+     * отдаются постранично через {@link #ticketIds(Long, String, Integer)}.
+     */
     @GetMapping
-    public ResponseEntity<AbstractResponse<List<ImportLogEntry>>> list() {
-        List<ImportLogEntry> entries = logService.list();
-        return ResponseEntity.ok(AbstractResponse.<List<ImportLogEntry>>builder()
+    public ResponseEntity<AbstractResponse<ImportLogPageEnvelope>> list(
+            @RequestParam(value = "status", required = false) ImportStatus status,
+            @RequestParam(value = "from", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(value = "to", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "limit", required = false) Integer limit) throws InvalidDataException {
+        ImportLogPageEnvelope page = logService.page(status, from, to, after, limit);
+        return ResponseEntity.ok(AbstractResponse.<ImportLogPageEnvelope>builder()
                 .status("ok")
                 .title("Журнал импорта")
-                .message("Всего записей: " + entries.size())
-                .data(entries)
+                .message("Записей на странице: " + page.getEntries().size())
+                .data(page)
+                .build());
+    }
+
+    @GetMapping("/{id}/tickets")
+    public ResponseEntity<AbstractResponse<ImportTicketIdsEnvelope>> ticketIds(
+            @PathVariable Long id,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "limit", required = false) Integer limit) throws InvalidDataException {
+        ImportTicketIdsEnvelope page = logService.ticketIds(id, after, limit);
+        return ResponseEntity.ok(AbstractResponse.<ImportTicketIdsEnvelope>builder()
+                .status("ok")
+                .title("Билеты импорта")
+                .message(String.format("Билетов: %d (log #%d)", page.getTotal(), id))
+                .data(page)
                 .build());
     }
 
@@ -55,29 +123,149 @@ public class ImportLogController {
                 .build());
     }
 
+    @PostMapping("/{id}/resume")
+    public CompletableFuture<ResponseEntity<AbstractResponse<ImportResult>>> resume(@PathVariable Long id) {
+        return ticketService.resumeImport(id)
+                .thenApply(result -> {
+                    events.publishChange("bulk-import", null);
+                    return ResponseEntity.ok(AbstractResponse.<ImportResult>builder()
+                            .status("ok")
+                            .title("Успех")
+                            .message(String.format("Импорт продолжен и завершён (log #%d)", id))
+                            .data(result)
+                            .build());
+                })
+                .exceptionally(ex -> {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    HttpStatus status = cause instanceof ResourceNotFoundException
+                            ? HttpStatus.NOT_FOUND
+                            : HttpStatus.BAD_REQUEST;
+                    String message = cause.getMessage() != null ? cause.getMessage() : "Ошибка импорта";
+                    return ResponseEntity.status(status).body(AbstractResponse.<ImportResult>builder()
+                            .status("error")
+                            .title("Ошибка продолжения импорта")
+                            .message(message)
+                            .data(null)
+                            .build());
+                });
+    }
+
+    /**
+     * Повторяет импорт из сохранённого файла без повторной загрузки: новая запись
+     * журнала ссылается на исходную ({@code rerunOf}) и выполняется в фоне.
+     */
+    @PostMapping("/{id}/rerun")
+    public CompletableFuture<ResponseEntity<AbstractResponse<ImportLogEntry>>> rerun(
+            @PathVariable Long id,
+            @RequestParam(value = "onlyFailed", defaultValue = "false") boolean onlyFailed,
+            @RequestParam(value = "chunkSize", required = false) Integer chunkSize) {
+        return importJobs.rerun(id, chunkSize, onlyFailed)
+                .thenApply(entry -> ResponseEntity.status(HttpStatus.ACCEPTED)
+                        .header(HttpHeaders.LOCATION, "/import/logs/" + entry.getId())
+                        .body(AbstractResponse.<ImportLogEntry>builder()
+                                .status("ok")
+                                .title("Импорт поставлен в очередь")
+                                .message(String.format("Повтор импорта #%d принят (log #%d)", id, entry.getId()))
+                                .data(entry)
+                                .build()))
+                .exceptionally(ex -> {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    HttpStatus status = cause instanceof ResourceNotFoundException ? HttpStatus.NOT_FOUND
+                            : cause instanceof RejectedExecutionException ? HttpStatus.TOO_MANY_REQUESTS
+                            : HttpStatus.BAD_REQUEST;
+                    String message = cause.getMessage() != null ? cause.getMessage() : "Ошибка импорта";
+                    return ResponseEntity.status(status).body(AbstractResponse.<ImportLogEntry>builder()
+                            .status("error")
+                            .title("Ошибка повтора импорта")
+                            .message(message)
+                            .data(null)
+                            .build());
+                });
+    }
+
+    /**
+     * Сжатый объект отдаётся как есть с Content-Encoding, если клиент его
+     * принимает, иначе распаковывается на лету. Объект в том виде, в каком он
+     * лежит в хранилище, можно докачивать по Range (одному диапазону; If-Range —
+     * по ETag или Last-Modified), распакованный отдаётся только целиком.
+     * С {@code redirect=true} клиент вместо тела получает 302 на короткоживущую
+     * ссылку в хранилище, если оно такие выдаёт, и качает файл оттуда — но только
+     * когда объект можно отдать как есть: распаковать файл по ссылке хранилище не умеет.
+     */
     @GetMapping(value = "/{id}/file", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
-    public ResponseEntity<StreamingResponseBody> download(@PathVariable Long id) {
+    public ResponseEntity<StreamingResponseBody> download(
+            @PathVariable Long id,
+            @RequestParam(value = "redirect", defaultValue = "false") boolean redirect,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange,
+            WebRequest request) {
         ImportLogEntry entry = logService.get(id);
-        if (entry.getStorageKey() == null) {
+        if (entry.getStorageKey() == null || entry.getStatus() == ImportStatus.UPLOADING) {
             throw new ResourceNotFoundException("Файл для записи импорта недоступен");
         }
-        StreamingResponseBody body = outputStream -> {
-            try (StoredObject resource = storageService.load(entry.getStorageKey());
-                 InputStream stream = resource.stream()) {
-                stream.transferTo(outputStream);
-            }
-        };
-
+        String key = entry.getStorageKey();
+        String encoding = entry.getContentEncoding();
         String filename = entry.getFilename() == null ? "import.json" : entry.getFilename();
         String contentType = entry.getContentType() == null
                 ? MediaType.APPLICATION_OCTET_STREAM_VALUE
                 : entry.getContentType();
+        boolean passthrough = ContentEncodings.accepts(acceptEncoding, encoding);
+        boolean asStored = encoding == null || passthrough;
+        if (redirect && asStored) {
+            Optional<URI> direct = storageService.presignDownload(key, filename, contentType, encoding);
+            if (direct.isPresent()) {
+                return ResponseEntity.status(HttpStatus.FOUND)
+                        .location(direct.get())
+                        .cacheControl(CacheControl.noStore())
+                        .build();
+            }
+        }
+        ObjectStat stat = storageService.stat(key);
+        // распакованное представление — другие байты, поэтому и ETag другой
+        String etag = "\"" + stat.getEtag() + (asStored ? "" : "-identity") + "\"";
+        if (request.checkNotModified(etag, stat.getLastModified().toEpochMilli())) {
+            return null;
+        }
+
+        long size = stat.getSize();
+        ByteRanges.Slice slice = asStored ? ByteRanges.requested(range, ifRange, etag, stat) : null;
+        if (slice != null && slice.start() >= size) {
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header(HttpHeaders.CONTENT_RANGE, "bytes */" + size)
+                    .build();
+        }
+        StreamingResponseBody body = outputStream -> {
+            try (StoredObject resource = slice == null
+                    ? storageService.load(key)
+                    : storageService.load(key, slice.start(), slice.length())) {
+                if (asStored) {
+                    // объект отдаётся как лежит; локальный файл пишется из канала блоками через буфер
+                    resource.transferTo(outputStream);
+                } else {
+                    ContentEncodings.decode(resource.stream(), encoding).transferTo(outputStream);
+                }
+            }
+        };
 
-        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
-                .contentType(MediaType.parseMediaType(contentType));
-        if (entry.getSize() != null) {
-            builder.header(HttpHeaders.CONTENT_LENGTH, entry.getSize().toString());
+        ResponseEntity.BodyBuilder builder = slice == null
+                ? ResponseEntity.ok()
+                : ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                        .header(HttpHeaders.CONTENT_RANGE, slice.contentRange(size));
+        builder.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .contentType(MediaType.parseMediaType(contentType))
+                .eTag(etag)
+                .lastModified(stat.getLastModified())
+                .header(HttpHeaders.ACCEPT_RANGES, asStored ? "bytes" : "none");
+        if (encoding != null) {
+            builder.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (passthrough) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, encoding);
+        }
+        Long length = slice != null ? Long.valueOf(slice.length()) : asStored ? size : entry.getOriginalSize();
+        if (length != null) {
+            builder.header(HttpHeaders.CONTENT_LENGTH, length.toString());
         }
         return builder.body(body);
     }
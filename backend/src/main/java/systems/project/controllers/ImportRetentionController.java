@@ -0,0 +1,57 @@
+package systems.project.controllers;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import systems.project.models.api.AbstractResponse;
+import systems.project.models.api.RetentionReport;
+import systems.project.services.imports.ImportRetentionService;
+
+@RestController
+@CrossOrigin(origins = "*")
+@RequestMapping("/import/retention")
+public class ImportRetentionController {
+
+    private final ImportRetentionService retentionService;
+
+    public ImportRetentionController(ImportRetentionService retentionService) {
+        this.retentionService = retentionService;
+    }
+
+    @GetMapping
+    public ResponseEntity<AbstractResponse<RetentionReport>> lastReport() {
+        RetentionReport report = retentionService.getLastReport();
+        return ResponseEntity.ok(AbstractResponse.<RetentionReport>builder()
+                .status("ok")
+                .title("Очистка журнала импорта")
+                .message(report == null ? "Очистка ещё не запускалась" : "Итог последней очистки")
+                .data(report)
+                .build());
+    }
+
+    /**
+     * Запускает очистку сейчас, не дожидаясь расписания; 409, если проход уже идёт.
+     */
+    @PostMapping("/run")
+    public ResponseEntity<AbstractResponse<RetentionReport>> run() {
+        return retentionService.run()
+                .map(report -> ResponseEntity.ok(AbstractResponse.<RetentionReport>builder()
+                        .status("ok")
+                        .title("Очистка журнала импорта")
+                        .message(String.format("Удалено записей: %d, файлов: %d", report.getDeletedLogs(),
+                                report.getRemovedObjects()))
+                        .data(report)
+                        .build()))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body(AbstractResponse.<RetentionReport>builder()
+                                .status("error")
+                                .title("Очистка журнала импорта")
+                                .message("Очистка уже выполняется")
+                                .data(null)
+                                .build()));
+    }
+}
@@ -1,13 +1,17 @@
 package systems.project.controllers;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import systems.project.exceptions.InvalidDataException;
 import systems.project.exceptions.ResourceNotFoundException;
 import systems.project.exceptions.StorageException;
 import systems.project.models.api.AbstractResponse;
 
+import java.util.concurrent.RejectedExecutionException;
+
 @RestControllerAdvice
 public class RestExceptionHandler {
 
@@ -22,6 +26,29 @@ public class RestExceptionHandler {
                         .build());
     }
 
+    @ExceptionHandler(InvalidDataException.class)
+    public ResponseEntity<AbstractResponse<Void>> handleInvalidData(InvalidDataException ex) {
+        return ResponseEntity.badRequest()
+                .body(AbstractResponse.<Void>builder()
+                        .status("error")
+                        .title("Ошибка")
+                        .message(ex.getMessage())
+                        .data(null)
+                        .build());
+    }
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<AbstractResponse<Void>> handleRejected(RejectedExecutionException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(AbstractResponse.<Void>builder()
+                        .status("error")
+                        .title("Сервер перегружен")
+                        .message("Слишком много запросов, повторите позже")
+                        .data(null)
+                        .build());
+    }
+
     @ExceptionHandler(StorageException.class)
     public ResponseEntity<AbstractResponse<Void>> handleStorage(StorageException ex) {
         return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
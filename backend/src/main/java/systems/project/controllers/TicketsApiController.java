@@ -2,27 +2,45 @@ package systems.project.controllers;
 
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import systems.project.controllers.api.TicketsApi;
+import systems.project.exceptions.InvalidDataException;
+import systems.project.exceptions.ResourceNotFoundException;
+import systems.project.exceptions.StorageException;
+import systems.project.models.ImportStatus;
 import systems.project.models.Ticket;
 import systems.project.models.api.AbstractResponse;
 import systems.project.models.api.CloneRequest;
+import systems.project.models.api.ImportLogEntry;
 import systems.project.models.api.ImportResult;
 import systems.project.models.api.SellRequestDTO;
+import systems.project.models.api.UploadSession;
 import systems.project.models.envelopes.TicketsEnvelope;
+import systems.project.models.envelopes.TicketsPageEnvelope;
+import systems.project.models.views.TicketView;
 import systems.project.services.core.TicketEventService;
 import systems.project.services.core.TicketService;
+import systems.project.services.exports.TicketExportFormat;
+import systems.project.services.exports.TicketExportService;
+import systems.project.services.imports.ImportJobService;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @CrossOrigin(origins = {"*"})
@@ -31,10 +49,17 @@ public class TicketsApiController implements TicketsApi {
 
     private final TicketService ticketService;
     private final TicketEventService events;
+    private final TicketExportService exportService;
+    private final ImportJobService importJobs;
 
-    public TicketsApiController(TicketService ticketService, TicketEventService events) {
+    public TicketsApiController(TicketService ticketService,
+                                TicketEventService events,
+                                TicketExportService exportService,
+                                ImportJobService importJobs) {
         this.ticketService = ticketService;
         this.events = events;
+        this.exportService = exportService;
+        this.importJobs = importJobs;
     }
 
     @Override
@@ -200,12 +225,12 @@ public class TicketsApiController implements TicketsApi {
     }
 
     @Override
-    public CompletableFuture<ResponseEntity<AbstractResponse<Ticket>>> getTicketById(Integer id) {
+    public CompletableFuture<ResponseEntity<AbstractResponse<TicketView>>> getTicketById(Integer id) {
         return ticketService.getTicket(id)
                 .thenApply(t -> {
                     if (t != null) {
                         return ResponseEntity.ok(
-                                AbstractResponse.<Ticket>builder()
+                                AbstractResponse.<TicketView>builder()
                                         .status("ok")
                                         .title("Успех")
                                         .message("Билет найден")
@@ -214,7 +239,7 @@ public class TicketsApiController implements TicketsApi {
                         );
                     }
                     return ResponseEntity.badRequest().body(
-                            AbstractResponse.<Ticket>builder()
+                            AbstractResponse.<TicketView>builder()
                                     .status("error")
                                     .title("Не найдено")
                                     .message("Билет не найден")
@@ -223,7 +248,7 @@ public class TicketsApiController implements TicketsApi {
                     );
                 })
                 .exceptionally(ex -> ResponseEntity.badRequest().body(
-                        AbstractResponse.<Ticket>builder()
+                        AbstractResponse.<TicketView>builder()
                                 .status("error")
                                 .title("Ошибка")
                                 .message(ex.getMessage())
@@ -236,7 +261,7 @@ public class TicketsApiController implements TicketsApi {
     public CompletableFuture<ResponseEntity<AbstractResponse<TicketsEnvelope>>> getTickets() {
         return ticketService.getTickets()
                 .thenApply(map -> {
-                    List<Ticket> tickets = map == null ? null : map.get("tickets");
+                    List<TicketView> tickets = map == null ? null : map.get("tickets");
                     TicketsEnvelope env = new TicketsEnvelope();
                     env.setTicketList(tickets);
 
@@ -259,6 +284,31 @@ public class TicketsApiController implements TicketsApi {
                 ));
     }
 
+    @Override
+    public CompletableFuture<ResponseEntity<AbstractResponse<TicketsPageEnvelope>>> getTicketsPage(String after,
+                                                                                                   Integer limit) {
+        return ticketService.getTicketsPage(after, limit)
+                .thenApply(page -> ResponseEntity.ok(
+                        AbstractResponse.<TicketsPageEnvelope>builder()
+                                .status("ok")
+                                .title("Успех")
+                                .message("Страница билетов")
+                                .data(page)
+                                .build()
+                ))
+                .exceptionally(ex -> {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    return ResponseEntity.badRequest().body(
+                            AbstractResponse.<TicketsPageEnvelope>builder()
+                                    .status("error")
+                                    .title("Ошибка")
+                                    .message(cause.getMessage())
+                                    .data(null)
+                                    .build()
+                    );
+                });
+    }
+
     @Override
     public CompletableFuture<ResponseEntity
             <AbstractResponse<ImportResult>>>
@@ -295,9 +345,123 @@ public class TicketsApiController implements TicketsApi {
             consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
             produces = MediaType.APPLICATION_JSON_VALUE)
     public CompletableFuture<ResponseEntity<AbstractResponse<ImportResult>>> importTicketsFromFile(
-            @RequestPart("file") MultipartFile file) {
-        return ticketService.importFromFile(file)
+            @RequestPart("file") MultipartFile file,
+            @RequestParam(value = "idempotent", defaultValue = "false") boolean idempotent) {
+        return ticketService.importFromFile(file, idempotent)
+                .thenApply(result -> {
+                    if (Boolean.TRUE.equals(result.getReplayed())) {
+                        return ResponseEntity.ok(replayed(result));
+                    }
+                    events.publishChange("bulk-import", null);
+                    String message = String.format("Импорт завершён (log #%d)", result.getLogId());
+                    return ResponseEntity.ok(
+                            AbstractResponse.<ImportResult>builder()
+                                    .status("ok")
+                                    .title("Успех")
+                                    .message(message)
+                                    .data(result)
+                                    .build()
+                    );
+                })
+                .exceptionally(ex -> {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    String message = cause.getMessage() != null ? cause.getMessage() : "Ошибка импорта";
+                    return ResponseEntity.badRequest().body(
+                            AbstractResponse.<ImportResult>builder()
+                                    .status("error")
+                                    .title("Ошибка импорта файла")
+                                    .message(message)
+                                    .data(null)
+                                    .build()
+                    );
+                });
+    }
+
+    @PostMapping(value = "/tickets/import/file/chunked",
+            consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<ResponseEntity<AbstractResponse<ImportResult>>> importTicketsFromFileChunked(
+            @RequestPart("file") MultipartFile file,
+            @RequestParam(value = "chunkSize", required = false) Integer chunkSize) {
+        return ticketService.importFromFileChunked(file, chunkSize)
+                .thenApply(result -> {
+                    events.publishChange("bulk-import", null);
+                    String message = String.format("Импорт завершён (log #%d)", result.getLogId());
+                    return ResponseEntity.ok(
+                            AbstractResponse.<ImportResult>builder()
+                                    .status("ok")
+                                    .title("Успех")
+                                    .message(message)
+                                    .data(result)
+                                    .build()
+                    );
+                })
+                .exceptionally(ex -> {
+                    // закоммиченные чанки уже в БД — подписчикам нужно перечитать список
+                    events.publishChange("bulk-import", null);
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    String message = cause.getMessage() != null ? cause.getMessage() : "Ошибка импорта";
+                    return ResponseEntity.badRequest().body(
+                            AbstractResponse.<ImportResult>builder()
+                                    .status("error")
+                                    .title("Ошибка импорта файла")
+                                    .message(message)
+                                    .data(null)
+                                    .build()
+                    );
+                });
+    }
+
+    @PostMapping(value = "/tickets/import/file/parallel",
+            consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<ResponseEntity<AbstractResponse<ImportResult>>> importTicketsFromFileParallel(
+            @RequestPart("file") MultipartFile file,
+            @RequestParam(value = "writers", required = false) Integer writers,
+            @RequestParam(value = "idempotent", defaultValue = "false") boolean idempotent) {
+        return ticketService.importFromFileParallel(file, writers, idempotent)
+                .thenApply(result -> {
+                    if (Boolean.TRUE.equals(result.getReplayed())) {
+                        return ResponseEntity.ok(replayed(result));
+                    }
+                    events.publishChange("bulk-import", null);
+                    String message = String.format("Импорт завершён (log #%d)", result.getLogId());
+                    return ResponseEntity.ok(
+                            AbstractResponse.<ImportResult>builder()
+                                    .status("ok")
+                                    .title("Успех")
+                                    .message(message)
+                                    .data(result)
+                                    .build()
+                    );
+                })
+                .exceptionally(ex -> {
+                    // если компенсация не удалась, часть партиций осталась в БД — подписчикам нужно перечитать список
+                    events.publishChange("bulk-import", null);
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    String message = cause.getMessage() != null ? cause.getMessage() : "Ошибка импорта";
+                    return ResponseEntity.badRequest().body(
+                            AbstractResponse.<ImportResult>builder()
+                                    .status("error")
+                                    .title("Ошибка импорта файла")
+                                    .message(message)
+                                    .data(null)
+                                    .build()
+                    );
+                });
+    }
+
+    @PostMapping(value = "/tickets/import/file/bulk",
+            consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<ResponseEntity<AbstractResponse<ImportResult>>> importTicketsFromFileBulk(
+            @RequestPart("file") MultipartFile file,
+            @RequestParam(value = "idempotent", defaultValue = "false") boolean idempotent) {
+        return ticketService.importFromFileBulk(file, idempotent)
                 .thenApply(result -> {
+                    if (Boolean.TRUE.equals(result.getReplayed())) {
+                        return ResponseEntity.ok(replayed(result));
+                    }
                     events.publishChange("bulk-import", null);
                     String message = String.format("Импорт завершён (log #%d)", result.getLogId());
                     return ResponseEntity.ok(
@@ -323,13 +487,125 @@ public class TicketsApiController implements TicketsApi {
                 });
     }
 
+    @PostMapping(value = "/tickets/import/jobs",
+            consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<ResponseEntity<AbstractResponse<ImportLogEntry>>> submitImportJob(
+            @RequestPart("file") MultipartFile file,
+            @RequestParam(value = "chunkSize", required = false) Integer chunkSize,
+            @RequestParam(value = "idempotent", defaultValue = "false") boolean idempotent) {
+        return importJobs.submit(file, chunkSize, idempotent)
+                .thenApply(entry -> entry.getStatus() == ImportStatus.SUCCESS
+                        ? ResponseEntity.ok(AbstractResponse.<ImportLogEntry>builder()
+                                .status("ok")
+                                .title("Успех")
+                                .message(String.format("Файл уже импортирован (log #%d)", entry.getId()))
+                                .data(entry)
+                                .build())
+                        : ResponseEntity.status(HttpStatus.ACCEPTED)
+                                .header(HttpHeaders.LOCATION, "/import/logs/" + entry.getId())
+                                .body(AbstractResponse.<ImportLogEntry>builder()
+                                        .status("ok")
+                                        .title("Импорт поставлен в очередь")
+                                        .message(String.format("Импорт принят (log #%d)", entry.getId()))
+                                        .data(entry)
+                                        .build()))
+                .exceptionally(ex -> {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    String message = cause.getMessage() != null ? cause.getMessage() : "Ошибка импорта";
+                    if (cause instanceof RejectedExecutionException) {
+                        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                                .header(HttpHeaders.RETRY_AFTER, "5")
+                                .body(AbstractResponse.<ImportLogEntry>builder()
+                                        .status("error")
+                                        .title("Сервер перегружен")
+                                        .message(message)
+                                        .data(null)
+                                        .build());
+                    }
+                    return ResponseEntity.badRequest().body(
+                            AbstractResponse.<ImportLogEntry>builder()
+                                    .status("error")
+                                    .title("Ошибка импорта файла")
+                                    .message(message)
+                                    .data(null)
+                                    .build()
+                    );
+                });
+    }
+
+    /**
+     * Сессия прямой загрузки: файл отправляется PUT по выданной ссылке прямо в
+     * хранилище, минуя сервер, а импорт запускает {@link #completeImportUpload(Long)}.
+     */
+    @PostMapping(value = "/tickets/import/uploads", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<AbstractResponse<UploadSession>> openImportUpload(
+            @RequestParam("filename") String filename,
+            @RequestParam(value = "contentType", required = false) String contentType,
+            @RequestParam(value = "chunkSize", required = false) Integer chunkSize) throws InvalidDataException {
+        UploadSession session = importJobs.openUpload(filename, contentType, chunkSize);
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .header(HttpHeaders.LOCATION, "/import/logs/" + session.getLogId())
+                .body(AbstractResponse.<UploadSession>builder()
+                        .status("ok")
+                        .title("Загрузка открыта")
+                        .message(String.format("Загрузите файл по ссылке до %s (log #%d)",
+                                session.getExpiresAt(), session.getLogId()))
+                        .data(session)
+                        .build());
+    }
+
+    @PostMapping(value = "/tickets/import/uploads/{id}/complete", produces = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<ResponseEntity<AbstractResponse<ImportLogEntry>>> completeImportUpload(
+            @PathVariable Long id) {
+        return importJobs.completeUpload(id)
+                .thenApply(entry -> ResponseEntity.status(HttpStatus.ACCEPTED)
+                        .header(HttpHeaders.LOCATION, "/import/logs/" + entry.getId())
+                        .body(AbstractResponse.<ImportLogEntry>builder()
+                                .status("ok")
+                                .title("Импорт поставлен в очередь")
+                                .message(String.format("Импорт принят (log #%d)", entry.getId()))
+                                .data(entry)
+                                .build()))
+                .exceptionally(ex -> {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    String message = cause.getMessage() != null ? cause.getMessage() : "Ошибка импорта";
+                    HttpStatus status = cause instanceof ResourceNotFoundException ? HttpStatus.NOT_FOUND
+                            : cause instanceof StorageException ? HttpStatus.SERVICE_UNAVAILABLE
+                            : cause instanceof RejectedExecutionException ? HttpStatus.TOO_MANY_REQUESTS
+                            : HttpStatus.BAD_REQUEST;
+                    return ResponseEntity.status(status)
+                            .body(AbstractResponse.<ImportLogEntry>builder()
+                                    .status("error")
+                                    .title("Ошибка импорта файла")
+                                    .message(message)
+                                    .data(null)
+                                    .build());
+                });
+    }
+
+    @GetMapping("/tickets/export")
+    public ResponseEntity<StreamingResponseBody> exportTickets(
+            @RequestParam(value = "format", required = false) String format) throws InvalidDataException {
+        TicketExportFormat exportFormat = TicketExportFormat.parse(format);
+        StreamingResponseBody body = outputStream -> {
+            long written = exportService.export(exportFormat, outputStream);
+            log.info("Экспортировано билетов: {}", written);
+        };
+        String filename = "tickets." + exportFormat.getExtension();
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .body(body);
+    }
+
     @Override
-    public CompletableFuture<ResponseEntity<AbstractResponse<Ticket>>> minEventTicket() {
+    public CompletableFuture<ResponseEntity<AbstractResponse<TicketView>>> minEventTicket() {
         return ticketService.getWithMinEvent()
                 .thenApply(t -> {
                     if (t != null) {
                         return ResponseEntity.ok(
-                                AbstractResponse.<Ticket>builder()
+                                AbstractResponse.<TicketView>builder()
                                         .status("ok")
                                         .title("Успех")
                                         .message("Минимальный по событию билет")
@@ -338,7 +614,7 @@ public class TicketsApiController implements TicketsApi {
                         );
                     }
                     return ResponseEntity.badRequest().body(
-                            AbstractResponse.<Ticket>builder()
+                            AbstractResponse.<TicketView>builder()
                                     .status("error")
                                     .title("Не найдено")
                                     .message("Не найден билет с событием")
@@ -347,7 +623,7 @@ public class TicketsApiController implements TicketsApi {
                     );
                 })
                 .exceptionally(ex -> ResponseEntity.badRequest().body(
-                        AbstractResponse.<Ticket>builder()
+                        AbstractResponse.<TicketView>builder()
                                 .status("error")
                                 .title("Ошибка")
                                 .message(ex.getMessage())
@@ -429,4 +705,14 @@ public class TicketsApiController implements TicketsApi {
                                 .build()
                 ));
     }
+
+    /** Повторная загрузка уже импортированного файла: билеты не менялись, событий нет. */
+    private static AbstractResponse<ImportResult> replayed(ImportResult result) {
+        return AbstractResponse.<ImportResult>builder()
+                .status("ok")
+                .title("Успех")
+                .message(String.format("Файл уже импортирован (log #%d)", result.getLogId()))
+                .data(result)
+                .build();
+    }
 }
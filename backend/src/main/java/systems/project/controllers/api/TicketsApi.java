@@ -31,6 +31,8 @@ import systems.project.models.api.CloneRequest;
 import systems.project.models.api.ImportResult;
 import systems.project.models.api.SellRequestDTO;
 import systems.project.models.envelopes.TicketsEnvelope;
+import systems.project.models.envelopes.TicketsPageEnvelope;
+import systems.project.models.views.TicketView;
 
 import java.util.List;
 import java.util.Optional;
@@ -240,7 +242,7 @@ public interface TicketsApi {
         produces = { "application/json" }
     )
     
-    CompletableFuture<ResponseEntity<AbstractResponse<Ticket>>> getTicketById(
+    CompletableFuture<ResponseEntity<AbstractResponse<TicketView>>> getTicketById(
         @Parameter(name = "id", description = "", required = true, in = ParameterIn.PATH) @PathVariable("id") Integer id
     );
 
@@ -272,6 +274,45 @@ public interface TicketsApi {
     CompletableFuture<ResponseEntity<AbstractResponse<TicketsEnvelope>>> getTickets();
 
 
+    /**
+     * GET /tickets/page : Постраничный список билетов (keyset по id)
+     *
+     * @param after  непрозрачный курсор из nextCursor предыдущей страницы (optional)
+     * @param limit  размер страницы, по умолчанию 50, не более 500 (optional)
+     * @return Страница билетов (status code 200)
+     *         or Некорректный курсор/limit (status code 400)
+     */
+    @Operation(
+        operationId = "getTicketsPage",
+        summary = "Постраничный список билетов (keyset по id)",
+        tags = { "Tickets" },
+        responses = {
+            @ApiResponse(responseCode = "200", description = "Страница билетов", content = {
+                @Content(mediaType = "application/json", schema = @Schema(implementation = AbstractResponse.class))
+            }),
+            @ApiResponse(responseCode = "400", description = "Некорректный курсор/limit", content = {
+                @Content(mediaType = "application/json", schema = @Schema(implementation = AbstractResponse.class))
+            })
+        }
+    )
+    @RequestMapping(
+        method = RequestMethod.GET,
+        value = "/tickets/page",
+        produces = { "application/json" }
+    )
+
+    CompletableFuture<ResponseEntity<AbstractResponse<TicketsPageEnvelope>>> getTicketsPage(
+        @Parameter(name = "after",
+                description = "",
+                in = ParameterIn.QUERY)
+        @RequestParam(value = "after", required = false) String after,
+        @Parameter(name = "limit",
+                description = "",
+                in = ParameterIn.QUERY)
+        @RequestParam(value = "limit", required = false) Integer limit
+    );
+
+
     /**
      * POST /tickets/import : Импортировать список билетов
      *
@@ -331,7 +372,7 @@ public interface TicketsApi {
         produces = { "application/json" }
     )
     
-    CompletableFuture<ResponseEntity<AbstractResponse<Ticket>>> minEventTicket();
+    CompletableFuture<ResponseEntity<AbstractResponse<TicketView>>> minEventTicket();
 
 
     /**
@@ -0,0 +1,11 @@
+package systems.project.exceptions;
+
+public class ImportFormatException extends RuntimeException {
+    public ImportFormatException(String message) {
+        super(message);
+    }
+
+    public ImportFormatException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -24,7 +24,7 @@ public class Coordinates {
     @SequenceGenerator(
             name = "coordinates_seq_gen",
             sequenceName = "coordinates_seq",
-            allocationSize = 1
+            allocationSize = 50
     )
     @GeneratedValue(strategy = GenerationType.SEQUENCE,
             generator = "coordinates_seq_gen")
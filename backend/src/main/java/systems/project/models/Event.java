@@ -31,7 +31,7 @@ public class Event {
     @SequenceGenerator(
             name = "event_seq_gen",
             sequenceName = "event_seq",
-            allocationSize = 1
+            allocationSize = 50
     )
     @GeneratedValue(strategy = GenerationType.SEQUENCE,
             generator = "event_seq_gen")
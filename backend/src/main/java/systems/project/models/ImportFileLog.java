@@ -1,15 +1,13 @@
 package systems.project.models;
 
-import jakarta.persistence.CollectionTable;
 import jakarta.persistence.Column;
-import jakarta.persistence.ElementCollection;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
-import jakarta.persistence.JoinColumn;
+import jakarta.persistence.Index;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
@@ -18,9 +16,10 @@ import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
 
 @Getter
@@ -29,7 +28,8 @@ import java.util.List;
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "import_file_log")
+@Table(name = "import_file_log",
+        indexes = @Index(name = "import_file_log_content_hash_idx", columnList = "content_hash"))
 public class ImportFileLog {
 
     @Id
@@ -46,8 +46,19 @@ public class ImportFileLog {
 
     private String contentType;
 
+    /** Размер объекта в хранилище. */
     private Long size;
 
+    /** Кодировка объекта в хранилище (gzip); null — объект не сжат. */
+    private String contentEncoding;
+
+    /** Размер файла без сжатия; null, если клиент прислал его уже сжатым. */
+    private Long originalSize;
+
+    /** SHA-256 файла в том виде, в каком его прислал клиент; по нему повторная загрузка находит прежний объект. */
+    @Column(length = 64)
+    private String contentHash;
+
     @Enumerated(EnumType.STRING)
     @Builder.Default
     private ImportStatus status = ImportStatus.PENDING;
@@ -59,19 +70,93 @@ public class ImportFileLog {
 
     private Integer imported;
 
+    /** Размер чанка поэтапного импорта; null — импорт выполнялся одной транзакцией. */
+    private Integer chunkSize;
+
+    /** Сколько записей файла уже закоммичено чанками; с этой позиции продолжает resume. */
+    private Integer committedPosition;
+
+    /** Число партиций параллельной записи; null — импорт писался одной транзакцией или чанками. */
+    private Integer partitions;
+
+    /**
+     * Сколько партиций закоммитилось до решения об успехе или компенсации. Растёт
+     * с коммитом каждой партиции вместе с ticketIds, так что виден и после остановки сервера.
+     */
+    private Integer committedPartitions;
+
+    /**
+     * Итог компенсации упавшего параллельного импорта: true — закоммиченные партиции
+     * удалены, false — откатить не удалось и ticketIds содержит оставшиеся билеты;
+     * null при закоммиченных партициях — импорт прерван перезапуском, билеты тоже остались.
+     */
+    private Boolean compensated;
+
+    /**
+     * Экземпляр сервера (app.imports.instance-id), который выполняет импорт; после
+     * перезапуска он помечает прерванными только свои импорты.
+     */
+    @Column(length = 128)
+    private String owner;
+
+    /** Импорт, файл которого запущен повторно из хранилища; null — файл загружен клиентом. */
+    private Long rerunOf;
+
+    /** Время стадий импорта, мс: разбор файла, проверка записей (с preflight справочников), запись в БД. */
+    private Long parseMillis;
+
+    private Long validateMillis;
+
+    private Long writeMillis;
+
+    /**
+     * Id созданных билетов сериями, см. {@link TicketIdRuns}: одна колонка-массив
+     * вместо строки join-таблицы на каждый билет.
+     */
     @Builder.Default
-    @ElementCollection
-    @CollectionTable(name = "import_file_log_ticket_ids",
-            joinColumns = @JoinColumn(name = "log_id"))
-    @Column(name = "ticket_id")
-    private List<Integer> ticketIds = new ArrayList<>();
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "ticket_id_runs")
+    private int[] ticketIdRuns = new int[0];
 
     private LocalDateTime createdAt;
 
     private LocalDateTime completedAt;
 
+    /**
+     * Когда файл записи последний раз взят для импорта с тем же содержимым. Пока
+     * не истёк {@code app.imports.retention.reuse-grace}, очистка запись не трогает:
+     * новая запись на тот же ключ могла ещё не закоммититься.
+     */
+    private LocalDateTime reusedAt;
+
+    /**
+     * Запись удаляется очисткой: файл уже нельзя взять повторно, а сама запись
+     * остаётся, пока не удалён объект, — неудавшееся удаление повторит следующий проход.
+     */
+    private LocalDateTime expiredAt;
+
     @PrePersist
     public void prePersist() {
         createdAt = createdAt == null ? LocalDateTime.now() : createdAt;
     }
+
+    /** Развёрнутый список id; изменения списка не сохраняются — для этого есть setter и append. */
+    public List<Integer> getTicketIds() {
+        return TicketIdRuns.decode(ticketIdRuns);
+    }
+
+    public void setTicketIds(List<Integer> ticketIds) {
+        ticketIdRuns = TicketIdRuns.encode(ticketIds);
+    }
+
+    public void appendTicketIds(List<Integer> ticketIds) {
+        ticketIdRuns = TicketIdRuns.append(ticketIdRuns, ticketIds);
+    }
+
+    public static class ImportFileLogBuilder {
+
+        public ImportFileLogBuilder ticketIds(List<Integer> ticketIds) {
+            return ticketIdRuns(TicketIdRuns.encode(ticketIds));
+        }
+    }
 }
@@ -1,7 +1,10 @@
 package systems.project.models;
 
 public enum ImportStatus {
+    /** Сессия прямой загрузки: файл ещё не подтверждён клиентом. */
+    UPLOADING,
     PENDING,
+    RUNNING,
     SUCCESS,
     FAILED
 }
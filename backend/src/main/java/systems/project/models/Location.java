@@ -26,7 +26,7 @@ public class Location {
     @SequenceGenerator(
             name = "location_seq_gen",
             sequenceName = "location_seq",
-            allocationSize = 1
+            allocationSize = 50
     )
     @GeneratedValue(strategy = GenerationType.SEQUENCE,
             generator = "location_seq_gen")
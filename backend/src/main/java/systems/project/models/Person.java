@@ -27,7 +27,7 @@ public class Person {
     @SequenceGenerator(
             name = "person_seq_gen",
             sequenceName = "person_seq",
-            allocationSize = 1
+            allocationSize = 50
     )
     @GeneratedValue(strategy = GenerationType.SEQUENCE,
             generator = "person_seq_gen")
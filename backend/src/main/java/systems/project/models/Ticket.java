@@ -11,6 +11,9 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
+import jakarta.persistence.NamedSubgraph;
 import jakarta.persistence.OneToOne;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.SequenceGenerator;
@@ -27,13 +30,25 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @Data
 @Entity
+@NamedEntityGraph(
+        name = Ticket.GRAPH_WITH_ASSOCIATIONS,
+        attributeNodes = {
+            @NamedAttributeNode("coordinates"),
+            @NamedAttributeNode(value = "person", subgraph = "person.location"),
+            @NamedAttributeNode("event"),
+            @NamedAttributeNode("venue")
+        },
+        subgraphs = @NamedSubgraph(name = "person.location", attributeNodes = @NamedAttributeNode("location")))
 @Cacheable
 @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Ticket {
+
+    public static final String GRAPH_WITH_ASSOCIATIONS = "Ticket.withAssociations";
+
     @SequenceGenerator(
             name = "ticket_seq_gen",
             sequenceName = "ticket_seq",
-            allocationSize = 1
+            allocationSize = 50
     )
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ticket_seq_gen")
     @Id
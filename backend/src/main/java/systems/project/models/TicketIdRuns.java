@@ -0,0 +1,81 @@
+package systems.project.models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Компактная запись id билетов импорта: пары (первый id, длина серии) подряд
+ * идущих id. Id выдаёт последовательность, поэтому импорт на десятки тысяч
+ * билетов обычно укладывается в несколько серий.
+ */
+public final class TicketIdRuns {
+
+    private static final int[] EMPTY = new int[0];
+
+    private TicketIdRuns() {
+    }
+
+    public static int[] encode(List<Integer> ids) {
+        return append(EMPTY, ids);
+    }
+
+    /**
+     * Дописывает id в конец; id, продолжающий последнюю серию, только удлиняет её.
+     */
+    public static int[] append(int[] runs, List<Integer> ids) {
+        int[] current = runs == null ? EMPTY : runs;
+        if (ids == null || ids.isEmpty()) {
+            return current;
+        }
+        int[] result = Arrays.copyOf(current, current.length + 2 * ids.size());
+        int length = current.length;
+        for (int id : ids) {
+            if (length > 0 && (long) result[length - 2] + result[length - 1] == id) {
+                result[length - 1]++;
+            } else {
+                result[length++] = id;
+                result[length++] = 1;
+            }
+        }
+        return Arrays.copyOf(result, length);
+    }
+
+    public static int count(int[] runs) {
+        long count = 0;
+        for (int i = 1; i < length(runs); i += 2) {
+            count += runs[i];
+        }
+        return Math.toIntExact(count);
+    }
+
+    public static List<Integer> decode(int[] runs) {
+        return slice(runs, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Не больше {@code limit} id, начиная с {@code offset}-го по порядку записи;
+     * разворачиваются только попавшие в окно серии.
+     */
+    public static List<Integer> slice(int[] runs, long offset, int limit) {
+        List<Integer> ids = new ArrayList<>((int) Math.max(0, Math.min(limit, count(runs) - offset)));
+        long skip = offset;
+        for (int i = 0; i + 1 < length(runs) && ids.size() < limit; i += 2) {
+            int first = runs[i];
+            int size = runs[i + 1];
+            if (skip >= size) {
+                skip -= size;
+                continue;
+            }
+            for (long k = skip; k < size && ids.size() < limit; k++) {
+                ids.add((int) (first + k));
+            }
+            skip = 0;
+        }
+        return ids;
+    }
+
+    private static int length(int[] runs) {
+        return runs == null ? 0 : runs.length;
+    }
+}
@@ -28,7 +28,7 @@ public class Venue {
     @SequenceGenerator(
             name = "venue_seq_gen",
             sequenceName = "venue_seq",
-            allocationSize = 1
+            allocationSize = 50
     )
 
     @GeneratedValue(strategy = GenerationType.SEQUENCE,
@@ -0,0 +1,18 @@
+package systems.project.models.api;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class ExecutorStats {
+    private String name;
+    private boolean virtualThreads;
+    private int capacity;
+    private int poolSize;
+    private int active;
+    private int queued;
+    private long submitted;
+    private long completed;
+    private long rejected;
+}
@@ -5,7 +5,6 @@ import lombok.Data;
 import systems.project.models.ImportStatus;
 
 import java.time.LocalDateTime;
-import java.util.List;
 
 @Data
 @Builder
@@ -15,12 +14,25 @@ public class ImportLogEntry {
     private String storageKey;
     private String contentType;
     private Long size;
+    private String contentEncoding;
+    private Long originalSize;
+    private String contentHash;
     private ImportStatus status;
     private Integer requested;
     private Integer imported;
+    private Integer chunkSize;
+    private Integer committedPosition;
+    private Integer partitions;
+    private Integer committedPartitions;
+    private Boolean compensated;
+    private Long rerunOf;
+    private Long parseMillis;
+    private Long validateMillis;
+    private Long writeMillis;
     private String errorMessage;
     private LocalDateTime createdAt;
     private LocalDateTime completedAt;
-    private List<Integer> ticketIds;
     private String downloadPath;
+    /** Заполнен, пока импорт выполняется. */
+    private ImportProgress progress;
 }
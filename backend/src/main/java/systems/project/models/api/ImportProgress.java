@@ -0,0 +1,18 @@
+package systems.project.models.api;
+
+import lombok.Builder;
+import lombok.Data;
+import systems.project.models.ImportStatus;
+
+@Data
+@Builder
+public class ImportProgress {
+    private Long logId;
+    private ImportStatus status;
+    private int processed;
+    private long bytesRead;
+    private Long totalBytes;
+    private Double percent;
+    private double recordsPerSecond;
+    private Long etaSeconds;
+}
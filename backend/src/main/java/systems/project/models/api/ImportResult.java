@@ -18,4 +18,10 @@ public class ImportResult {
     private Long logId;
     private String storageKey;
     private String filename;
+    /** Preflight справочников и проверка записей, мс. */
+    private Long validateMillis;
+    /** Сохранение записей, мс. */
+    private Long writeMillis;
+    /** true — такой файл уже был импортирован, возвращён результат прежнего импорта (logId). */
+    private Boolean replayed;
 }
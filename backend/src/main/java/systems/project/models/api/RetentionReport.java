@@ -0,0 +1,20 @@
+package systems.project.models.api;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+public class RetentionReport {
+    private LocalDateTime startedAt;
+    private long durationMillis;
+    private int deletedLogs;
+    private int removedObjects;
+    /** Объекты, которые хранилище не смогло удалить; записи журнала о них уже удалены. */
+    private int failedObjects;
+    /** Сумма размеров удалённых объектов, как они лежали в хранилище. */
+    private long reclaimedBytes;
+    private int sweptTemporary;
+}
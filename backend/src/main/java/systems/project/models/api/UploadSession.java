@@ -0,0 +1,22 @@
+package systems.project.models.api;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * Сессия прямой загрузки файла импорта: файл отправляется {@code method} на
+ * {@code uploadUrl}, после чего импорт запускается POST на {@code completePath}.
+ */
+@Data
+@Builder
+public class UploadSession {
+    private Long logId;
+    private String uploadUrl;
+    private String method;
+    private Instant expiresAt;
+    private String completePath;
+    /** Больший файл будет отклонён при подтверждении загрузки. */
+    private long maxSize;
+}
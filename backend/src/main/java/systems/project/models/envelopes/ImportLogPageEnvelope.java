@@ -0,0 +1,18 @@
+package systems.project.models.envelopes;
+
+import lombok.Data;
+import systems.project.models.api.ImportLogEntry;
+
+import java.util.List;
+
+@Data
+public class ImportLogPageEnvelope {
+
+    private List<ImportLogEntry> entries;
+
+    private String nextCursor;
+
+    private boolean hasMore;
+
+    private int limit;
+}
@@ -0,0 +1,21 @@
+package systems.project.models.envelopes;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ImportTicketIdsEnvelope {
+
+    private Long logId;
+
+    private List<Integer> ticketIds;
+
+    private int total;
+
+    private String nextCursor;
+
+    private boolean hasMore;
+
+    private int limit;
+}
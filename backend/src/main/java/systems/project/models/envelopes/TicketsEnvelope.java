@@ -1,13 +1,13 @@
 package systems.project.models.envelopes;
 
 import lombok.Data;
-import systems.project.models.Ticket;
+import systems.project.models.views.TicketView;
 
 import java.util.List;
 
 @Data
 public class TicketsEnvelope {
 
-    private List<Ticket> ticketList;
+    private List<TicketView> ticketList;
 
 }
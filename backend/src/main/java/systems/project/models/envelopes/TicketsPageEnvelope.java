@@ -0,0 +1,18 @@
+package systems.project.models.envelopes;
+
+import lombok.Data;
+import systems.project.models.views.TicketView;
+
+import java.util.List;
+
+@Data
+public class TicketsPageEnvelope {
+
+    private List<TicketView> ticketList;
+
+    private String nextCursor;
+
+    private boolean hasMore;
+
+    private int limit;
+}
@@ -0,0 +1,23 @@
+package systems.project.models.storage;
+
+/**
+ * Как подготовленный объект становится постоянным при фиксации импорта.
+ */
+public enum ObjectPromotion {
+
+    /**
+     * Файл загружается на ключ {@code .tmp}, а при фиксации копируется на
+     * постоянный ключ: время фиксации растёт с размером файла.
+     */
+    COPY,
+
+    /**
+     * Файл сразу загружается на постоянный ключ с тегом {@link #STATE_TAG}={@link #PENDING},
+     * а фиксация только снимает тег — за постоянное время. Объекты, так и
+     * оставшиеся с тегом, удаляет {@code PendingObjectSweeper}.
+     */
+    TAG;
+
+    public static final String STATE_TAG = "import-state";
+    public static final String PENDING = "pending";
+}
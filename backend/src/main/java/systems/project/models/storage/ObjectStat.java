@@ -0,0 +1,33 @@
+package systems.project.models.storage;
+
+import java.time.Instant;
+
+/**
+ * Метаданные объекта хранилища — по ним строятся ETag, Last-Modified и Content-Range.
+ */
+public class ObjectStat {
+
+    private final long size;
+    private final String etag;
+    private final Instant lastModified;
+
+    public ObjectStat(long size, String etag, Instant lastModified) {
+        this.size = size;
+        this.etag = etag;
+        this.lastModified = lastModified;
+    }
+
+    /** Размер объекта, как он лежит в хранилище (после сжатия). */
+    public long getSize() {
+        return size;
+    }
+
+    /** Версия содержимого без кавычек; меняется вместе с объектом. */
+    public String getEtag() {
+        return etag;
+    }
+
+    public Instant getLastModified() {
+        return lastModified;
+    }
+}
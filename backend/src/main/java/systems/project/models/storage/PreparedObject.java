@@ -1,78 +1,98 @@
 package systems.project.models.storage;
 
-import io.minio.CopyObjectArgs;
-import io.minio.CopySource;
-import io.minio.MinioClient;
-import io.minio.RemoveObjectArgs;
-import systems.project.exceptions.StorageException;
+/**
+ * Файл импорта, уже загруженный в хранилище, но ещё не зафиксированный:
+ * {@link #commit()} делает его постоянным, {@link #rollback()} удаляет.
+ * Как именно — решает реализация хранилища.
+ */
+public abstract class PreparedObject {
 
-import java.util.logging.Logger;
-
-public class PreparedObject {
-
-    private final MinioClient client;
-    private final String bucket;
-    private final String tempKey;
     private final String finalKey;
     private final long size;
+    private final Long originalSize;
     private final String contentType;
-    private final Logger logger;
-    private boolean promoted;
+    private final String contentEncoding;
+    private final String contentHash;
 
-    public PreparedObject(MinioClient client,
-                          String bucket,
-                          String tempKey,
-                          String finalKey,
-                          long size,
-                          String contentType,
-                          Logger logger) {
-        this.client = client;
-        this.bucket = bucket;
-        this.tempKey = tempKey;
+    protected PreparedObject(String finalKey,
+                             long size,
+                             Long originalSize,
+                             String contentType,
+                             String contentEncoding,
+                             String contentHash) {
         this.finalKey = finalKey;
         this.size = size;
+        this.originalSize = originalSize;
         this.contentType = contentType;
-        this.logger = logger;
+        this.contentEncoding = contentEncoding;
+        this.contentHash = contentHash;
     }
 
-    public void commit() {
-        try {
-            client.copyObject(CopyObjectArgs.builder()
-                    .bucket(bucket)
-                    .object(finalKey)
-                    .source(CopySource.builder().bucket(bucket).object(tempKey).build())
-                    .build());
-            client.removeObject(RemoveObjectArgs.builder()
-                    .bucket(bucket)
-                    .object(tempKey)
-                    .build());
-            promoted = true;
-        } catch (Exception e) {
-            throw new StorageException("Не удалось зафиксировать файл импорта", e);
-        }
-    }
+    /**
+     * Уже зафиксированный объект с тем же содержимым: commit и rollback ничего не
+     * делают, ведь объект принадлежит и прежним импортам.
+     */
+    public static PreparedObject reused(String key,
+                                        long size,
+                                        Long originalSize,
+                                        String contentType,
+                                        String contentEncoding,
+                                        String contentHash) {
+        return new PreparedObject(key, size, originalSize, contentType, contentEncoding, contentHash) {
+            @Override
+            public void commit() {
+                // объект давно зафиксирован
+            }
+
+            @Override
+            public void rollback() {
+                // объект нужен прежним импортам
+            }
 
-    public void rollback() {
-        try {
-            String target = promoted ? finalKey : tempKey;
-            client.removeObject(RemoveObjectArgs.builder()
-                    .bucket(bucket)
-                    .object(target)
-                    .build());
-        } catch (Exception e) {
-            logger.warning("Не удалось удалить временный объект MinIO: " + e.getMessage());
-        }
+            @Override
+            public boolean isReused() {
+                return true;
+            }
+        };
     }
 
+    public abstract void commit();
+
+    /**
+     * Удаляет объект, зафиксирован он уже или нет. Ошибки только логируются:
+     * откат вызывается, когда импорт уже провалился.
+     */
+    public abstract void rollback();
+
     public String getFinalKey() {
         return finalKey;
     }
 
+    /** Размер объекта в хранилище (после сжатия). */
     public long getSize() {
         return size;
     }
 
+    /** Размер файла до сжатия; null, если файл и был загружен сжатым. */
+    public Long getOriginalSize() {
+        return originalSize;
+    }
+
     public String getContentType() {
         return contentType;
     }
+
+    /** SHA-256 файла в том виде, в каком он был загружен, hex. */
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public boolean isReused() {
+        return false;
+    }
+
+    /** Кодировка объекта в хранилище, например gzip; null — объект не сжат. */
+    public String getContentEncoding() {
+        return contentEncoding;
+    }
 }
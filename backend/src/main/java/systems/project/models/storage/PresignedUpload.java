@@ -0,0 +1,39 @@
+package systems.project.models.storage;
+
+import java.time.Instant;
+
+/**
+ * Ссылка для прямой загрузки файла в хранилище: клиент отправляет по ней PUT
+ * с телом файла, и байты не проходят через сервер приложения.
+ */
+public class PresignedUpload {
+
+    private final String key;
+    private final String contentType;
+    private final String url;
+    private final Instant expiresAt;
+
+    public PresignedUpload(String key, String contentType, String url, Instant expiresAt) {
+        this.key = key;
+        this.contentType = contentType;
+        this.url = url;
+        this.expiresAt = expiresAt;
+    }
+
+    /** Временный ключ, на который ляжет файл; постоянным его делает {@link PreparedObject#commit()}. */
+    public String getKey() {
+        return key;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+}
@@ -1,24 +1,36 @@
 package systems.project.models.storage;
 
-import io.minio.GetObjectResponse;
-
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 
+/**
+ * Открытый на чтение объект хранилища.
+ */
 public class StoredObject implements AutoCloseable {
 
-    private final GetObjectResponse response;
+    private final InputStream stream;
 
-    public StoredObject(GetObjectResponse response) {
-        this.response = response;
+    public StoredObject(InputStream stream) {
+        this.stream = stream;
     }
 
     public InputStream stream() {
-        return response;
+        return stream;
+    }
+
+    /**
+     * Отдаёт объект целиком, как он лежит в хранилище. Реализации, у которых
+     * объект — локальный файл, читают его каналом, а не через поток {@link #stream()}.
+     *
+     * @return число переданных байт
+     */
+    public long transferTo(OutputStream target) throws IOException {
+        return stream().transferTo(target);
     }
 
     @Override
     public void close() throws IOException {
-        response.close();
+        stream.close();
     }
 }
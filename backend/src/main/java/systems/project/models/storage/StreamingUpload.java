@@ -0,0 +1,274 @@
+package systems.project.models.storage;
+
+import systems.project.exceptions.StorageException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Загрузка объекта, размер которого заранее неизвестен: поставщик пишет байты
+ * через {@link #write(byte[], int, int)}, а MinIO в своём потоке читает их из
+ * {@link #content()}. Между ними ограниченная очередь, поэтому в памяти держится
+ * не больше {@code capacity} прочитанных блоков плюс одна часть multipart-загрузки.
+ * Медленное хранилище притормаживает поставщика, а не копит данные. При
+ * {@code compress} байты сжимаются gzip по пути в очередь.
+ */
+public class StreamingUpload {
+
+    private static final byte[] END = new byte[0];
+    private static final long OFFER_POLL_MILLIS = 100;
+    private static final int GZIP_BUFFER = 8192;
+
+    private final String finalKey;
+    private final String contentType;
+    private final String contentEncoding;
+    private final BlockingQueue<byte[]> blocks;
+    private final InputStream content = new QueueInputStream();
+    private final OutputStream queued = new QueueOutputStream();
+    private final OutputStream input;
+    private final MessageDigest digest;
+    private String contentHash;
+    private CompletableFuture<PreparedObject> upload;
+    private PreparedObject committed;
+    private volatile IOException failure;
+    private boolean finished;
+    private long written;
+    private long stored;
+
+    /**
+     * @param contentEncoding кодировка объекта в хранилище: gzip, если поставщик
+     *                        пишет уже сжатые данные или {@code compress}; иначе null
+     * @param digest          пустой дайджест, которым хранилище считает хеш содержимого
+     */
+    public StreamingUpload(String finalKey, String contentType, String contentEncoding,
+                           boolean compress, int capacity, MessageDigest digest) {
+        this.finalKey = finalKey;
+        this.digest = digest;
+        this.contentType = contentType;
+        this.contentEncoding = contentEncoding;
+        this.blocks = new ArrayBlockingQueue<>(capacity);
+        this.input = compress ? gzip(queued) : queued;
+    }
+
+    /**
+     * Привязывает фоновую загрузку, читающую {@link #content()}.
+     */
+    public void attach(CompletableFuture<PreparedObject> upload) {
+        this.upload = upload;
+    }
+
+    public InputStream content() {
+        return content;
+    }
+
+    public void write(byte[] buffer, int offset, int length) throws IOException {
+        if (finished) {
+            throw new IOException("Загрузка в хранилище уже завершена");
+        }
+        if (length > 0) {
+            input.write(buffer, offset, length);
+            digest.update(buffer, offset, length);
+            written += length;
+        }
+    }
+
+    /**
+     * Конец данных: хранилище получит EOF и завершит загрузку. Повторный вызов ничего не делает.
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        if (input != queued) {
+            // хвост deflate и трейлер gzip
+            input.close();
+        }
+        finished = true;
+        contentHash = HexFormat.of().formatHex(digest.digest());
+        offer(END);
+    }
+
+    /**
+     * Обрывает загрузку: хранилище вместо EOF получит ошибку, и неполный объект не появится.
+     */
+    public void abort(IOException cause) {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        failure = cause;
+        blocks.clear();
+        blocks.offer(END);
+    }
+
+    /**
+     * Ждёт окончания фоновой загрузки; объект остаётся на временном ключе.
+     */
+    public PreparedObject await() {
+        try {
+            return upload.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof StorageException storage) {
+                throw storage;
+            }
+            throw new StorageException("Не удалось сохранить файл импорта во временном хранилище", e.getCause());
+        }
+    }
+
+    /**
+     * Ждёт окончания фоновой загрузки и переносит объект на постоянный ключ.
+     * Повторный вызов возвращает уже зафиксированный объект.
+     */
+    public PreparedObject commit() {
+        if (committed == null) {
+            PreparedObject prepared = await();
+            prepared.commit();
+            committed = prepared;
+        }
+        return committed;
+    }
+
+    /**
+     * Удаляет всё, что успело попасть в хранилище, если объект ещё не зафиксирован;
+     * если загрузка упала, удалять нечего.
+     */
+    public void discard() {
+        if (committed != null) {
+            return;
+        }
+        abort(new IOException("Загрузка отменена"));
+        try {
+            await().rollback();
+        } catch (StorageException ignored) {
+            // незавершённую multipart-загрузку MinIO отменяет сам
+        }
+    }
+
+    public String getFinalKey() {
+        return finalKey;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getContentEncoding() {
+        return contentEncoding;
+    }
+
+    /** Хеш записанных поставщиком байт в hex; известен после {@link #finish()}. */
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    /** Сколько байт записал поставщик. */
+    public long getWritten() {
+        return written;
+    }
+
+    /** Сколько байт ушло в хранилище (после сжатия). */
+    public long getStored() {
+        return stored;
+    }
+
+    private static OutputStream gzip(OutputStream target) {
+        try {
+            return new GZIPOutputStream(target, GZIP_BUFFER);
+        } catch (IOException e) {
+            // заголовок gzip пишется в очередь, которая ещё пуста и не может отказать
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void offer(byte[] block) throws IOException {
+        try {
+            while (!blocks.offer(block, OFFER_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (upload.isDone()) {
+                    // хранилище упало и больше не читает
+                    throw new IOException("Загрузка в хранилище прервана");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Загрузка в хранилище прервана");
+        }
+    }
+
+    private final class QueueOutputStream extends OutputStream {
+
+        @Override
+        public void write(int value) throws IOException {
+            write(new byte[] {(byte) value}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) throws IOException {
+            if (length > 0) {
+                offer(Arrays.copyOfRange(buffer, offset, offset + length));
+                stored += length;
+            }
+        }
+    }
+
+    private final class QueueInputStream extends InputStream {
+
+        private byte[] current = new byte[0];
+        private int offset;
+        private boolean ended;
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            int read = read(single, 0, 1);
+            return read < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int off, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (offset == current.length && !nextBlock()) {
+                return -1;
+            }
+            int count = Math.min(length, current.length - offset);
+            System.arraycopy(current, offset, buffer, off, count);
+            offset += count;
+            return count;
+        }
+
+        private boolean nextBlock() throws IOException {
+            if (ended) {
+                return false;
+            }
+            byte[] block;
+            try {
+                block = blocks.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Загрузка в хранилище прервана");
+            }
+            if (block == END) {
+                ended = true;
+                if (failure != null) {
+                    throw failure;
+                }
+                return false;
+            }
+            current = block;
+            offset = 0;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package systems.project.models.views;
+
+import systems.project.models.ImportStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Запись журнала импорта без id билетов — для постраничного списка. Строится
+ * JPQL constructor expression, так что серии id даже не читаются из БД.
+ */
+public record ImportLogSummary(
+        Long id,
+        String originalFilename,
+        String storageKey,
+        String contentType,
+        Long size,
+        String contentEncoding,
+        Long originalSize,
+        String contentHash,
+        ImportStatus status,
+        String errorMessage,
+        Integer requested,
+        Integer imported,
+        Integer chunkSize,
+        Integer committedPosition,
+        Integer partitions,
+        Integer committedPartitions,
+        Boolean compensated,
+        Long rerunOf,
+        Long parseMillis,
+        Long validateMillis,
+        Long writeMillis,
+        LocalDateTime createdAt,
+        LocalDateTime completedAt) {
+}
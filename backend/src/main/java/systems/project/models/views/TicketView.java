@@ -0,0 +1,69 @@
+package systems.project.models.views;
+
+import systems.project.models.Color;
+import systems.project.models.Country;
+import systems.project.models.EventType;
+import systems.project.models.TicketType;
+import systems.project.models.VenueType;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only представление билета. Строится JPQL constructor expression прямо из
+ * результата запроса, минуя managed-сущности, и сериализуется в ту же JSON-форму,
+ * что и {@link systems.project.models.Ticket}.
+ */
+public record TicketView(
+        Integer id,
+        String name,
+        CoordinatesView coordinates,
+        LocalDateTime creationDate,
+        PersonView person,
+        EventView event,
+        float price,
+        TicketType type,
+        Float discount,
+        int number,
+        String comment,
+        VenueView venue) {
+
+    public TicketView(Integer id, String name, LocalDateTime creationDate, Float price, TicketType type,
+                      Float discount, Integer number, String comment,
+                      Long coordinatesId, Integer coordinatesX, Float coordinatesY,
+                      Long personId, Color eyeColor, Color hairColor, Double weight,
+                      String passportID, Country nationality,
+                      Long locationId, Integer locationX, Float locationY, Float locationZ,
+                      Integer eventId, String eventName, Integer ticketsCount, EventType eventType,
+                      Long venueId, String venueName, Integer venueCapacity, VenueType venueType) {
+        this(id, name,
+                new CoordinatesView(coordinatesId, coordinatesX == null ? 0 : coordinatesX, coordinatesY),
+                creationDate,
+                personId == null ? null : new PersonView(personId, eyeColor, hairColor,
+                        locationId == null ? null : new LocationView(locationId, locationX, locationY, locationZ),
+                        weight, passportID, nationality),
+                eventId == null ? null : new EventView(eventId, eventName, ticketsCount, eventType),
+                price == null ? 0f : price,
+                type,
+                discount,
+                number == null ? 0 : number,
+                comment,
+                venueId == null ? null : new VenueView(venueId, venueName,
+                        venueCapacity == null ? 0 : venueCapacity, venueType));
+    }
+
+    public record CoordinatesView(Long id, int x, Float y) { }
+
+    public record LocationView(Long id, Integer x, Float y, Float z) { }
+
+    public record PersonView(Long id,
+                             Color eyeColor,
+                             Color hairColor,
+                             LocationView location,
+                             Double weight,
+                             String passportID,
+                             Country nationality) { }
+
+    public record EventView(Integer id, String name, Integer ticketsCount, EventType eventType) { }
+
+    public record VenueView(Long id, String name, int capacity, VenueType type) { }
+}
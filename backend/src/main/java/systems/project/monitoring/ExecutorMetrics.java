@@ -0,0 +1,77 @@
+package systems.project.monitoring;
+
+import org.springframework.core.task.TaskDecorator;
+import systems.project.models.api.ExecutorStats;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+
+/**
+ * Counters for one async executor. Acts as the executor's TaskDecorator, so it
+ * also carries the request's SQL statement counter over to the worker thread.
+ */
+public class ExecutorMetrics implements TaskDecorator {
+
+    private final String name;
+    private final SqlStatementCounter statementCounter;
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private volatile IntSupplier queueDepth = () -> 0;
+    private volatile IntSupplier poolSize = () -> 0;
+    private volatile int capacity;
+    private volatile boolean virtualThreads;
+
+    public ExecutorMetrics(String name, SqlStatementCounter statementCounter) {
+        this.name = name;
+        this.statementCounter = statementCounter;
+    }
+
+    public void describe(boolean virtual, int limit, IntSupplier queue, IntSupplier pool) {
+        this.virtualThreads = virtual;
+        this.capacity = limit;
+        this.queueDepth = queue;
+        this.poolSize = pool;
+    }
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        submitted.incrementAndGet();
+        AtomicInteger statements = statementCounter.current();
+        return () -> {
+            active.incrementAndGet();
+            statementCounter.bind(statements);
+            try {
+                runnable.run();
+            } finally {
+                statementCounter.clear();
+                active.decrementAndGet();
+                completed.incrementAndGet();
+            }
+        };
+    }
+
+    public void onRejected() {
+        rejected.incrementAndGet();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public ExecutorStats snapshot() {
+        return ExecutorStats.builder()
+                .name(name)
+                .virtualThreads(virtualThreads)
+                .capacity(capacity)
+                .poolSize(poolSize.getAsInt())
+                .active(active.get())
+                .queued(queueDepth.getAsInt())
+                .submitted(submitted.get())
+                .completed(completed.get())
+                .rejected(rejected.get())
+                .build();
+    }
+}
@@ -0,0 +1,43 @@
+package systems.project.monitoring;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Adds the number of SQL statements executed for the request as the
+ * {@value #HEADER} response header.
+ */
+@ControllerAdvice
+public class SqlStatementCountAdvice implements ResponseBodyAdvice<Object> {
+
+    public static final String HEADER = "X-SQL-Statement-Count";
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body,
+                                  MethodParameter returnType,
+                                  MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request,
+                                  ServerHttpResponse response) {
+        if (request instanceof ServletServerHttpRequest servletRequest) {
+            Object statements = servletRequest.getServletRequest().getAttribute(SqlStatementCountFilter.ATTRIBUTE);
+            if (statements instanceof AtomicInteger count) {
+                response.getHeaders().set(HEADER, String.valueOf(count.get()));
+            }
+        }
+        return body;
+    }
+}
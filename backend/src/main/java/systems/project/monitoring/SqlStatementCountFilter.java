@@ -0,0 +1,50 @@
+package systems.project.monitoring;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Binds a fresh SQL statement counter to every request. The counter is kept
+ * as a request attribute so the async dispatch can rebind it and
+ * {@link SqlStatementCountAdvice} can report it.
+ */
+@Component
+public class SqlStatementCountFilter extends OncePerRequestFilter {
+
+    public static final String ATTRIBUTE = SqlStatementCountFilter.class.getName() + ".counter";
+
+    private final SqlStatementCounter counter;
+
+    public SqlStatementCountFilter(SqlStatementCounter counter) {
+        this.counter = counter;
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        AtomicInteger statements = (AtomicInteger) request.getAttribute(ATTRIBUTE);
+        if (statements == null) {
+            statements = new AtomicInteger();
+            request.setAttribute(ATTRIBUTE, statements);
+        }
+        counter.bind(statements);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            counter.clear();
+        }
+    }
+}
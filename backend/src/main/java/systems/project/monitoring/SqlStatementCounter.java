@@ -0,0 +1,42 @@
+package systems.project.monitoring;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hibernate StatementInspector that counts SQL statements issued while a counter
+ * is bound to the current thread. The counter is bound per HTTP request by
+ * {@link SqlStatementCountFilter}.
+ */
+@Component
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<AtomicInteger> CURRENT = new ThreadLocal<>();
+
+    public AtomicInteger current() {
+        return CURRENT.get();
+    }
+
+    public void bind(AtomicInteger counter) {
+        if (counter == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(counter);
+        }
+    }
+
+    public void clear() {
+        CURRENT.remove();
+    }
+
+    @Override
+    public String inspect(String sql) {
+        AtomicInteger counter = CURRENT.get();
+        if (counter != null) {
+            counter.incrementAndGet();
+        }
+        return sql;
+    }
+}
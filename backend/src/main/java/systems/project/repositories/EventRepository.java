@@ -3,10 +3,13 @@ package systems.project.repositories;
 import jakarta.persistence.QueryHint;
 import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import systems.project.models.Event;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,4 +20,10 @@ public interface EventRepository extends JpaRepository<Event, Long> {
 
     @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Event> findById(Integer id);
+
+    List<Event> findByIdIn(Collection<Integer> ids);
+
+    /** Занятые места событий: строки {@code [eventId, x, y]}. */
+    @Query("select e.id, c.x, c.y from Event e join e.tickets t join t.coordinates c where e.id in :ids")
+    List<Object[]> findOccupiedSeats(@Param("ids") Collection<Integer> ids);
 }
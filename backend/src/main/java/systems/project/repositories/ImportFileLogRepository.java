@@ -1,13 +1,176 @@
 package systems.project.repositories;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import systems.project.models.ImportFileLog;
+import systems.project.models.ImportStatus;
+import systems.project.models.TicketIdRuns;
+import systems.project.models.views.ImportLogSummary;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.StringJoiner;
 
 @Repository
 public interface ImportFileLogRepository extends JpaRepository<ImportFileLog, Long> {
 
-    List<ImportFileLog> findAllByOrderByCreatedAtDesc();
+    String SUMMARY_SELECT = "select new systems.project.models.views.ImportLogSummary("
+            + "l.id, l.originalFilename, l.storageKey, l.contentType, l.size, l.contentEncoding, l.originalSize, "
+            + "l.contentHash, l.status, l.errorMessage, l.requested, l.imported, l.chunkSize, l.committedPosition, "
+            + "l.partitions, l.committedPartitions, l.compensated, l.rerunOf, l.parseMillis, l.validateMillis, "
+            + "l.writeMillis, l.createdAt, l.completedAt) "
+            + "from ImportFileLog l ";
+
+    /**
+     * Keyset-страница журнала от новых записей к старым; null в фильтре — без ограничения.
+     */
+    @Query(SUMMARY_SELECT
+            + "where (:before is null or l.id < :before) "
+            + "and (:status is null or l.status = :status) "
+            + "and (:from is null or l.createdAt >= :from) "
+            + "and (:to is null or l.createdAt < :to) "
+            + "order by l.id desc")
+    List<ImportLogSummary> findSummaries(@Param("before") Long before,
+                                         @Param("status") ImportStatus status,
+                                         @Param("from") LocalDateTime from,
+                                         @Param("to") LocalDateTime to,
+                                         Limit limit);
+
+    @Query(SUMMARY_SELECT + "where l.id = :id")
+    Optional<ImportLogSummary> findSummaryById(@Param("id") Long id);
+
+    @Query("select l.ticketIdRuns from ImportFileLog l where l.id = :id")
+    Optional<int[]> findTicketIdRuns(@Param("id") Long id);
+
+    /**
+     * Id первой завершённой записи за пределами {@code keep} самых новых: она и
+     * все более старые завершённые записи превышают лимит по числу.
+     */
+    @Query(value = "select l.id from import_file_log l where l.status in ('SUCCESS', 'FAILED') "
+            + "order by l.id desc offset :keep limit 1", nativeQuery = true)
+    Optional<Long> findIdBeyondNewest(@Param("keep") int keep);
+
+    /**
+     * Записи, подлежащие удалению: завершённые старше {@code cutoff} или с id не
+     * больше {@code maxId}, и сессии прямой загрузки, не подтверждённые до {@code uploadCutoff}.
+     * Записи, файл которых взят повторно после {@code reuseCutoff}, и уже помеченные не входят.
+     */
+    @Query("select l.id from ImportFileLog l "
+            + "where l.expiredAt is null and (l.reusedAt is null or l.reusedAt < :reuseCutoff) "
+            + "and ((l.status in :finished and (l.createdAt < :cutoff or l.id <= :maxId)) "
+            + "or (l.status = systems.project.models.ImportStatus.UPLOADING and l.createdAt < :uploadCutoff)) "
+            + "order by l.id")
+    List<Long> findExpiredIds(@Param("finished") Collection<ImportStatus> finished,
+                              @Param("cutoff") LocalDateTime cutoff,
+                              @Param("maxId") long maxId,
+                              @Param("uploadCutoff") LocalDateTime uploadCutoff,
+                              @Param("reuseCutoff") LocalDateTime reuseCutoff,
+                              Limit limit);
+
+    /**
+     * Помечает записи удаляемыми; запись, файл которой успели взять повторно
+     * после {@code reuseCutoff}, остаётся как есть.
+     */
+    @Transactional
+    @Modifying
+    @Query("update ImportFileLog l set l.expiredAt = :now where l.id in :ids and l.expiredAt is null "
+            + "and (l.reusedAt is null or l.reusedAt < :reuseCutoff)")
+    int markExpired(@Param("ids") Collection<Long> ids,
+                    @Param("now") LocalDateTime now,
+                    @Param("reuseCutoff") LocalDateTime reuseCutoff);
+
+    /** Помеченные удаляемыми записи после {@code after} — keyset по id. */
+    @Query(SUMMARY_SELECT + "where l.expiredAt is not null and l.id > :after order by l.id")
+    List<ImportLogSummary> findExpiredSummaries(@Param("after") long after, Limit limit);
+
+    @Transactional
+    @Modifying
+    @Query("delete from ImportFileLog l where l.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    /** Ключи из {@code keys}, на которые ещё ссылается хоть одна не помеченная удаляемой запись. */
+    @Query("select distinct l.storageKey from ImportFileLog l where l.storageKey in :keys and l.expiredAt is null")
+    List<String> findReferencedKeys(@Param("keys") Collection<String> keys);
+
+    /**
+     * Отмечает, что файл по ключу берётся повторно. 0 — живых записей на ключ
+     * не осталось (их удаляет очистка), и объект брать нельзя.
+     */
+    @Transactional
+    @Modifying
+    @Query("update ImportFileLog l set l.reusedAt = :now where l.storageKey = :key and l.expiredAt is null")
+    int markReused(@Param("key") String storageKey, @Param("now") LocalDateTime now);
+
+    /**
+     * Атомарный переход статуса: вернёт 0, если запись уже не в статусе {@code from}
+     * (например, её параллельно возобновил другой запрос). Импорт переходит к
+     * экземпляру {@code owner}, который его дальше и выполняет.
+     */
+    @Transactional
+    @Modifying
+    @Query("update ImportFileLog l set l.status = :to, l.errorMessage = null, l.owner = :owner "
+            + "where l.id = :id and l.status = :from")
+    int transitionStatus(@Param("id") Long id,
+                         @Param("from") ImportStatus from,
+                         @Param("to") ImportStatus to,
+                         @Param("owner") String owner);
+
+    /**
+     * Итог закоммиченной партиции параллельного импорта: её билеты дописываются
+     * в журнал одним атомарным update, так что партиции пишут его без гонок,
+     * а после остановки сервера закоммиченное видно в журнале.
+     */
+    default int recordPartition(Long id, List<Integer> ticketIds, int imported) {
+        int[] runs = TicketIdRuns.encode(ticketIds);
+        StringJoiner literal = new StringJoiner(",", "{", "}");
+        for (int value : runs) {
+            literal.add(Integer.toString(value));
+        }
+        return appendPartitionRuns(id, literal.toString(), imported);
+    }
+
+    @Transactional
+    @Modifying
+    @Query(value = "update import_file_log set "
+            + "ticket_id_runs = coalesce(ticket_id_runs, '{}') || cast(cast(:runs as text) as integer[]), "
+            + "imported = coalesce(imported, 0) + :imported, "
+            + "committed_partitions = coalesce(committed_partitions, 0) + 1 "
+            + "where id = :id", nativeQuery = true)
+    int appendPartitionRuns(@Param("id") Long id, @Param("runs") String runs, @Param("imported") int imported);
+
+    Optional<ImportFileLog> findFirstByContentHashOrderByIdDesc(String contentHash);
+
+    Optional<ImportFileLog> findFirstByContentHashAndStatusOrderByIdDesc(String contentHash, ImportStatus status);
+
+    /**
+     * Объект потоковой загрузки известен только после её окончания: его размер
+     * и хеш, а при совпадении хеша — ключ уже сохранённого объекта.
+     */
+    @Transactional
+    @Modifying
+    @Query("update ImportFileLog l set l.storageKey = :storageKey, l.size = :size, l.originalSize = :originalSize, "
+            + "l.contentEncoding = :contentEncoding, l.contentHash = :contentHash where l.id = :id")
+    int updateStoredObject(@Param("id") Long id,
+                           @Param("storageKey") String storageKey,
+                           @Param("size") Long size,
+                           @Param("originalSize") Long originalSize,
+                           @Param("contentEncoding") String contentEncoding,
+                           @Param("contentHash") String contentHash);
+
+    @Transactional
+    @Modifying
+    @Query("update ImportFileLog l set l.status = :failed, l.errorMessage = :message, l.completedAt = :now "
+            + "where l.owner = :owner and l.status in ("
+            + "systems.project.models.ImportStatus.PENDING, systems.project.models.ImportStatus.RUNNING)")
+    int failUnfinished(@Param("failed") ImportStatus failed,
+                       @Param("message") String message,
+                       @Param("now") LocalDateTime now,
+                       @Param("owner") String owner);
 }
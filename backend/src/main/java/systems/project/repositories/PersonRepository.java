@@ -3,10 +3,13 @@ package systems.project.repositories;
 import jakarta.persistence.QueryHint;
 import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import systems.project.models.Person;
 
+import java.util.Collection;
 import java.util.List;
 @Repository
 public interface PersonRepository extends JpaRepository<Person, Long> {
@@ -15,4 +18,14 @@ public interface PersonRepository extends JpaRepository<Person, Long> {
 
     boolean existsPersonByPassportID(String passportID);
 
+    List<Person> findByIdIn(Collection<Long> ids);
+
+    @Query("select p.passportID from Person p where p.passportID in :passports")
+    List<String> findExistingPassportIDs(@Param("passports") Collection<String> passports);
+
+    /** Число билетов владельцев по событиям: строки {@code [personId, eventId, count]}. */
+    @Query("select p.id, t.event.id, count(t) from Person p join p.tickets t "
+            + "where p.id in :ids and t.event is not null group by p.id, t.event.id")
+    List<Object[]> countTicketsByEvent(@Param("ids") Collection<Long> ids);
+
 }
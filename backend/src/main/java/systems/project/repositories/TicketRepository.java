@@ -2,31 +2,70 @@ package systems.project.repositories;
 
 import jakarta.persistence.QueryHint;
 import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.data.repository.query.Param;
 import systems.project.models.Ticket;
+import systems.project.models.views.TicketView;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface TicketRepository extends JpaRepository<Ticket, Long> {
 
+    String VIEW_SELECT = "select new systems.project.models.views.TicketView("
+            + "t.id, t.name, t.creationDate, t.price, t.type, t.discount, t.number, t.comment, "
+            + "c.id, c.x, c.y, "
+            + "p.id, p.eyeColor, p.hairColor, p.weight, p.passportID, p.nationality, "
+            + "l.id, l.x, l.y, l.z, "
+            + "e.id, e.name, e.ticketsCount, e.eventType, "
+            + "v.id, v.name, v.capacity, v.type) "
+            + "from Ticket t join t.coordinates c "
+            + "left join t.person p left join p.location l "
+            + "left join t.event e "
+            + "left join t.venue v ";
+
+    @Query(VIEW_SELECT + "order by t.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<TicketView> findAllViews();
+
+    @Query(VIEW_SELECT + "where t.id > :after order by t.id")
+    List<TicketView> findViewsAfter(@Param("after") Integer after, Limit limit);
+
+    @Query(VIEW_SELECT + "where t.id = :id")
+    Optional<TicketView> findViewById(@Param("id") Integer id);
+
+    @Query(VIEW_SELECT + "where e.id is not null order by e.id asc, t.id asc")
     @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
-    List<Ticket> findAllBy();
+    List<TicketView> findViewsWithMinEvent(Limit limit);
 
+    @EntityGraph(Ticket.GRAPH_WITH_ASSOCIATIONS)
+    @Query("select t from Ticket t order by t.id")
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE")
+    })
+    Stream<Ticket> streamAllForExport();
+
+    @EntityGraph(Ticket.GRAPH_WITH_ASSOCIATIONS)
     Optional<Ticket> findById(Integer id);
 
+    List<Ticket> findByIdIn(Collection<Integer> ids);
+
     boolean existsById(Integer id);
 
     void deleteById(Integer id);
 
     Long deleteByComment(String comment);
 
-    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
-    Optional<Ticket> findFirstByEventIsNotNullOrderByEventIdAsc();
-
     @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Long countByCommentLessThan(String comment);
 }
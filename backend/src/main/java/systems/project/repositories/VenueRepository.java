@@ -7,10 +7,13 @@ import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import systems.project.models.Venue;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface VenueRepository extends JpaRepository<Venue, Long> {
     @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Venue> findAllBy();
+
+    List<Venue> findByIdIn(Collection<Long> ids);
 }
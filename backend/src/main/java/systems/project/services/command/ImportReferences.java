@@ -0,0 +1,96 @@
+package systems.project.services.command;
+
+import systems.project.models.Coordinates;
+import systems.project.models.Event;
+import systems.project.models.EventType;
+import systems.project.models.Person;
+import systems.project.models.Ticket;
+import systems.project.models.Venue;
+import systems.project.models.VenueType;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Справочники одного вызова импорта: существующие person/event/venue,
+ * на которые ссылаются записи, загружаются заранее пачками {@code IN (...)},
+ * а новые объекты, описанные в файле несколько раз, создаются один раз
+ * и переиспользуются.
+ */
+final class ImportReferences {
+
+    /** Размер одного списка IN: держит число bind-параметров далеко от лимита PostgreSQL. */
+    static final int IN_CLAUSE_SLICE = 1000;
+
+    final Set<Long> personIds = new LinkedHashSet<>();
+    final Set<Integer> eventIds = new LinkedHashSet<>();
+    final Set<Long> venueIds = new LinkedHashSet<>();
+    final Set<String> newPassports = new LinkedHashSet<>();
+
+    final Map<Long, Person> persons = new HashMap<>();
+    final Map<Integer, Event> events = new HashMap<>();
+    final Map<Long, Venue> venues = new HashMap<>();
+    final Set<String> existingPassports = new HashSet<>();
+    final Set<SeatKey> occupiedSeats = new HashSet<>();
+    final Map<OwnerKey, Long> ownerEventCounts = new HashMap<>();
+
+    final Map<String, Person> newPersons = new HashMap<>();
+    final Map<EventKey, Event> newEvents = new HashMap<>();
+    final Map<VenueKey, Venue> newVenues = new HashMap<>();
+
+    record EventKey(String name, int ticketsCount, EventType eventType) { }
+
+    record VenueKey(String name, int capacity, VenueType type) { }
+
+    record SeatKey(Integer eventId, int x, Float y) { }
+
+    record OwnerKey(Long personId, Integer eventId) { }
+
+    long ticketsOf(Long personId, Integer eventId) {
+        return ownerEventCounts.getOrDefault(new OwnerKey(personId, eventId), 0L);
+    }
+
+    boolean isSeatTaken(Integer eventId, Coordinates coordinates) {
+        return occupiedSeats.contains(new SeatKey(eventId, coordinates.getX(), coordinates.getY()));
+    }
+
+    static ImportReferences collect(List<Ticket> tickets) {
+        ImportReferences refs = new ImportReferences();
+        for (Ticket ticket : tickets) {
+            if (ticket == null) {
+                continue;
+            }
+            Person person = ticket.getPerson();
+            if (person != null) {
+                if (person.getId() != null) {
+                    refs.personIds.add(person.getId());
+                } else if (person.getPassportID() != null && !person.getPassportID().isBlank()) {
+                    refs.newPassports.add(person.getPassportID().trim());
+                }
+            }
+            if (ticket.getEvent() != null && ticket.getEvent().getId() != null) {
+                refs.eventIds.add(ticket.getEvent().getId());
+            }
+            if (ticket.getVenue() != null && ticket.getVenue().getId() != null) {
+                refs.venueIds.add(ticket.getVenue().getId());
+            }
+        }
+        return refs;
+    }
+
+    static <K, V> List<V> loadInSlices(Collection<K> keys, Function<List<K>, List<V>> loader) {
+        List<V> loaded = new ArrayList<>();
+        List<K> all = new ArrayList<>(keys);
+        for (int from = 0; from < all.size(); from += IN_CLAUSE_SLICE) {
+            loaded.addAll(loader.apply(all.subList(from, Math.min(all.size(), from + IN_CLAUSE_SLICE))));
+        }
+        return loaded;
+    }
+}
@@ -1,6 +1,10 @@
 package systems.project.services.command;
 
+import jakarta.persistence.EntityManager;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
 import org.postgresql.util.PSQLException;
+import org.springframework.data.domain.Limit;
 import org.springframework.dao.CannotSerializeTransactionException;
 import org.springframework.dao.TransientDataAccessException;
 import org.springframework.retry.annotation.Backoff;
@@ -13,12 +17,13 @@ import systems.project.cache.CacheStatsTracked;
 import systems.project.exceptions.InvalidDataException;
 import systems.project.models.Coordinates;
 import systems.project.models.Event;
-import systems.project.models.Location;
 import systems.project.models.Person;
 import systems.project.models.Ticket;
 import systems.project.models.TicketType;
 import systems.project.models.Venue;
 import systems.project.models.api.ImportResult;
+import systems.project.models.envelopes.TicketsPageEnvelope;
+import systems.project.models.views.TicketView;
 import systems.project.repositories.EventRepository;
 import systems.project.repositories.LocationRepository;
 import systems.project.repositories.PersonRepository;
@@ -26,48 +31,89 @@ import systems.project.repositories.TicketRepository;
 import systems.project.repositories.VenueRepository;
 import systems.project.services.core.ValidateTypes;
 
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.IntUnaryOperator;
 
 @Service
 @Transactional(readOnly = true)
 public class TicketCommandService {
 
+    private static final int DEFAULT_PAGE_LIMIT = 50;
+    private static final int MAX_PAGE_LIMIT = 500;
+    private static final String CURSOR_PREFIX = "id:";
+    /** Совпадает с hibernate.jdbc.batch_size: один flush импорта — один JDBC batch на таблицу. */
+    private static final int IMPORT_BATCH_SIZE = 50;
+
     private final TicketRepository ticketRepository;
     private final PersonRepository personRepository;
     private final ValidateTypes validateTypes;
     private final EventRepository eventRepository;
     private final VenueRepository venueRepository;
     private final LocationRepository locationRepository;
+    private final EntityManager entityManager;
+    private final TicketImportValidator importValidator;
+    private final TicketCopyLoader copyLoader;
 
     public TicketCommandService(TicketRepository ticketRepository,
                                 PersonRepository personRepository,
                                 ValidateTypes validateTypes,
                                 EventRepository eventRepository,
                                 VenueRepository venueRepository,
-                                LocationRepository locationRepository) {
+                                LocationRepository locationRepository,
+                                EntityManager entityManager,
+                                TicketImportValidator importValidator,
+                                TicketCopyLoader copyLoader) {
         this.ticketRepository = ticketRepository;
         this.personRepository = personRepository;
         this.validateTypes = validateTypes;
         this.eventRepository = eventRepository;
         this.venueRepository = venueRepository;
         this.locationRepository = locationRepository;
+        this.entityManager = entityManager;
+        this.importValidator = importValidator;
+        this.copyLoader = copyLoader;
     }
 
     @CacheStatsTracked
-    public Map<String, List<Ticket>> getTickets() {
+    public Map<String, List<TicketView>> getTickets() {
         try {
-            List<Ticket> list = ticketRepository.findAllBy();
+            List<TicketView> list = ticketRepository.findAllViews();
             return Map.of("tickets", list);
         } catch (Exception e) {
-            return Collections.singletonMap("tickets", (List<Ticket>) null);
+            return Collections.singletonMap("tickets", (List<TicketView>) null);
         }
     }
 
+    /**
+     * Keyset-страница билетов, упорядоченных по id. Курсор непрозрачен для клиента
+     * и содержит id последнего отданного билета, поэтому стоимость страницы зависит
+     * только от limit, а не от размера таблицы.
+     */
+    @CacheStatsTracked
+    public TicketsPageEnvelope getTicketsPage(String after, Integer limit) throws InvalidDataException {
+        int pageSize = normalizeLimit(limit);
+        int afterId = decodeCursor(after);
+
+        List<TicketView> fetched = ticketRepository.findViewsAfter(afterId, Limit.of(pageSize + 1));
+        boolean hasMore = fetched.size() > pageSize;
+        List<TicketView> page = hasMore ? fetched.subList(0, pageSize) : fetched;
+
+        TicketsPageEnvelope envelope = new TicketsPageEnvelope();
+        envelope.setTicketList(new ArrayList<>(page));
+        envelope.setLimit(pageSize);
+        envelope.setHasMore(hasMore);
+        envelope.setNextCursor(hasMore ? encodeCursor(page.get(page.size() - 1).id()) : null);
+        return envelope;
+    }
+
     @Retryable(
             retryFor = {CannotSerializeTransactionException.class, TransientDataAccessException.class},
             maxAttempts = 5,
@@ -93,9 +139,9 @@ public class TicketCommandService {
     }
 
     @CacheStatsTracked
-    public Ticket getTicket(Integer id) {
+    public TicketView getTicket(Integer id) {
         try {
-            return ticketRepository.findById(id).orElse(null);
+            return ticketRepository.findViewById(id).orElse(null);
         } catch (Exception e) {
             return null;
         }
@@ -158,10 +204,10 @@ public class TicketCommandService {
     }
 
     @CacheStatsTracked
-    public Ticket getWithMinEvent() {
+    public TicketView getWithMinEvent() {
         try {
-            Optional<Ticket> res = ticketRepository.findFirstByEventIsNotNullOrderByEventIdAsc();
-            return res.orElse(null);
+            List<TicketView> res = ticketRepository.findViewsWithMinEvent(Limit.of(1));
+            return res.isEmpty() ? null : res.get(0);
         } catch (Exception e) {
             return null;
         }
@@ -250,194 +296,218 @@ public class TicketCommandService {
     @Transactional(isolation = Isolation.REPEATABLE_READ)
     @CacheStatsTracked
     public ImportResult importTickets(List<Ticket> tickets) throws InvalidDataException {
+        return importTickets(tickets, 1);
+    }
+
+    /**
+     * @param firstPosition номер первой записи списка в исходном файле — для сообщений об ошибках
+     *                      при поэтапном импорте
+     */
+    @Transactional(isolation = Isolation.REPEATABLE_READ)
+    @CacheStatsTracked
+    public ImportResult importTickets(List<Ticket> tickets, int firstPosition) throws InvalidDataException {
+        return importRecords(tickets, index -> firstPosition + index);
+    }
+
+    /**
+     * Импорт записей, взятых из файла не подряд — например, одной партиции
+     * параллельной записи.
+     *
+     * @param positions номера записей в исходном файле, по одному на элемент списка
+     */
+    @Transactional(isolation = Isolation.REPEATABLE_READ)
+    @CacheStatsTracked
+    public ImportResult importTickets(List<Ticket> tickets, int[] positions) throws InvalidDataException {
+        if (tickets != null && tickets.size() != positions.length) {
+            throw new IllegalArgumentException("positions не соответствуют списку ticket");
+        }
+        return importRecords(tickets, index -> positions[index]);
+    }
+
+    private ImportResult importRecords(List<Ticket> tickets, IntUnaryOperator positionOf) throws InvalidDataException {
         if (tickets == null || tickets.isEmpty()) {
             throw new InvalidDataException("Список ticket пуст");
         }
 
-        List<Integer> storedIds = new ArrayList<>();
+        long validateStarted = System.nanoTime();
+        ImportReferences refs = preloadReferences(tickets);
+        List<TicketImportValidator.Draft> drafts = importValidator.validate(tickets, positionOf, refs);
+        long validateMillis = millisSince(validateStarted);
 
-        for (int i = 0; i < tickets.size(); i++) {
-            int position = i + 1;
-            Ticket prepared = prepareTicketForImport(tickets.get(i), position);
-            try {
-                Ticket saved = ticketRepository.save(prepared);
-                storedIds.add(saved.getId());
-            } catch (Exception e) {
-                throw new InvalidDataException("Запись #" + position + ": не удалось сохранить: " + e.getMessage());
+        long writeStarted = System.nanoTime();
+        List<Integer> storedIds = new ArrayList<>();
+        // Без auto-flush вставки не разрываются на отдельные statement; они уходят пачками в flushImportBatch.
+        Session session = entityManager.unwrap(Session.class);
+        FlushMode previousFlushMode = session.getHibernateFlushMode();
+        session.setHibernateFlushMode(FlushMode.COMMIT);
+        try {
+            int batchStart = 0;
+            for (int i = 0; i < drafts.size(); i++) {
+                TicketImportValidator.Draft draft = drafts.get(i);
+                try {
+                    Ticket saved = ticketRepository.save(materialize(draft, refs));
+                    storedIds.add(saved.getId());
+                } catch (Exception e) {
+                    throw new InvalidDataException(
+                            "Запись #" + draft.position() + ": не удалось сохранить: " + e.getMessage());
+                }
+                if ((i + 1) % IMPORT_BATCH_SIZE == 0) {
+                    flushImportBatch(positionOf.applyAsInt(batchStart), draft.position());
+                    batchStart = i + 1;
+                }
+            }
+            if (batchStart < drafts.size()) {
+                flushImportBatch(positionOf.applyAsInt(batchStart), positionOf.applyAsInt(drafts.size() - 1));
             }
+        } finally {
+            session.setHibernateFlushMode(previousFlushMode);
         }
 
         return ImportResult.builder()
                 .requested(tickets.size())
                 .imported(storedIds.size())
                 .ticketIds(storedIds)
+                .validateMillis(validateMillis)
+                .writeMillis(millisSince(writeStarted))
                 .build();
     }
 
-    private Ticket prepareTicketForImport(Ticket source, int position) throws InvalidDataException {
-        if (source == null) {
-            throw new InvalidDataException("Запись #" + position + ": ticket отсутствует");
+    /**
+     * Bulk-режим для больших файлов: записи проверяются так же, как при обычном
+     * импорте, новые person/event/venue сохраняются через JPA, а сами билеты и
+     * координаты загружаются PostgreSQL COPY (см. {@link TicketCopyLoader}).
+     * Любая ошибка откатывает всю загрузку.
+     */
+    @Transactional(isolation = Isolation.REPEATABLE_READ, rollbackFor = InvalidDataException.class)
+    @CacheStatsTracked
+    public ImportResult bulkImportTickets(List<Ticket> tickets) throws InvalidDataException {
+        if (tickets == null || tickets.isEmpty()) {
+            throw new InvalidDataException("Список ticket пуст");
         }
 
-        Ticket target = new Ticket();
-        target.setId(null);
-        target.setName(requireNonBlank(source.getName(), "ticket.name", position));
-        target.setPrice(requirePositiveFloat(source.getPrice(), "ticket.price", position));
-        target.setType(requireNotNull(source.getType(), "ticket.type", position));
-        target.setNumber(requirePositiveInt(source.getNumber(), "ticket.number", position));
-        target.setDiscount(source.getDiscount());
-        target.setComment(trimToNull(source.getComment()));
+        long validateStarted = System.nanoTime();
+        ImportReferences refs = preloadReferences(tickets);
+        List<TicketImportValidator.Draft> drafts = importValidator.validate(tickets, index -> index + 1, refs);
+        long validateMillis = millisSince(validateStarted);
 
-        Coordinates coords = requireNotNull(source.getCoordinates(), "ticket.coordinates", position);
-        Coordinates copyCoords = new Coordinates();
-        copyCoords.setId(null);
-        copyCoords.setX(coords.getX());
-        copyCoords.setY(requireFloat(coords.getY(), "ticket.coordinates.y", position));
-        target.setCoordinates(copyCoords);
-
-        target.setPerson(resolvePerson(source.getPerson(), position));
-        target.setEvent(resolveEvent(source.getEvent(), position));
-        target.setVenue(resolveVenue(source.getVenue(), position));
-
-        if (!validatePerson(target.getPerson(), target.getEvent())) {
-            throw new InvalidDataException("Запись #" + position + ": некорректный владелец билета");
+        long writeStarted = System.nanoTime();
+        List<Ticket> rows = new ArrayList<>(drafts.size());
+        for (TicketImportValidator.Draft draft : drafts) {
+            rows.add(materialize(draft, refs));
         }
-        if (!validatePlace(target.getCoordinates(), target.getEvent())) {
-            throw new InvalidDataException("Запись #" + position + ": координаты заняты для события");
-        }
-        if (!validateTypes.compatibility(target)) {
-            throw new InvalidDataException("Запись #" + position + ": ticket type не совместим с зависимостями");
+        List<Integer> storedIds;
+        try {
+            storedIds = copyLoader.load(rows);
+        } catch (SQLException | RuntimeException e) {
+            throw new InvalidDataException("Bulk-загрузка не удалась: " + e.getMessage(), e);
         }
 
-        return target;
+        return ImportResult.builder()
+                .requested(tickets.size())
+                .imported(storedIds.size())
+                .ticketIds(storedIds)
+                .validateMillis(validateMillis)
+                .writeMillis(millisSince(writeStarted))
+                .build();
     }
 
-    private Person resolvePerson(Person source, int position) throws InvalidDataException {
-        if (source == null) {
-            return null;
-        }
-
-        if (source.getId() != null) {
-            int personId = Math.toIntExact(source.getId());
-            return personRepository.findById((long) personId)
-                    .orElseThrow(() -> new InvalidDataException(
-                            "Запись #" + position + ": person с id=" + source.getId() + " не найден"));
-        }
-
-        String passport = requireNonBlank(source.getPassportID(), "person.passportID", position);
-        if (personRepository.existsPersonByPassportID(passport)) {
-            throw new InvalidDataException(
-                    "Запись #" + position + ": person с passportID=" + passport + " уже существует");
-        }
-
-        Location location = requireNotNull(source.getLocation(), "person.location", position);
-        Location storedLocation = locationRepository.save(Location.builder()
-                .id(null)
-                .x(requireNotNull(location.getX(), "person.location.x", position))
-                .y(requireFloat(location.getY(), "person.location.y", position))
-                .z(requireNotNull(location.getZ(), "person.location.z", position))
-                .build());
-
-        Person person = new Person();
-        person.setId(null);
-        person.setPassportID(passport);
-        person.setWeight(requirePositiveDouble(source.getWeight(), "person.weight", position));
-        person.setNationality(requireNotNull(source.getNationality(), "person.nationality", position));
-        person.setHairColor(requireNotNull(source.getHairColor(), "person.hairColor", position));
-        person.setEyeColor(source.getEyeColor());
-        person.setLocation(storedLocation);
-
-        return personRepository.save(person);
+    /**
+     * Preflight импорта: все id и passportID, упомянутые в записях, а также занятые
+     * места и число билетов владельцев по событиям загружаются несколькими запросами
+     * IN вместо поиска по одному на каждую запись. После него валидация не обращается
+     * к БД и может идти параллельно.
+     */
+    private ImportReferences preloadReferences(List<Ticket> tickets) {
+        ImportReferences refs = ImportReferences.collect(tickets);
+        ImportReferences.loadInSlices(refs.personIds, personRepository::findByIdIn)
+                .forEach(person -> refs.persons.put(person.getId(), person));
+        ImportReferences.loadInSlices(refs.eventIds, eventRepository::findByIdIn)
+                .forEach(event -> refs.events.put(event.getId(), event));
+        ImportReferences.loadInSlices(refs.venueIds, venueRepository::findByIdIn)
+                .forEach(venue -> refs.venues.put(venue.getId(), venue));
+        refs.existingPassports.addAll(
+                ImportReferences.loadInSlices(refs.newPassports, personRepository::findExistingPassportIDs));
+        ImportReferences.loadInSlices(refs.eventIds, eventRepository::findOccupiedSeats)
+                .forEach(row -> refs.occupiedSeats.add(new ImportReferences.SeatKey(
+                        (Integer) row[0], (Integer) row[1], (Float) row[2])));
+        ImportReferences.loadInSlices(refs.personIds, personRepository::countTicketsByEvent)
+                .forEach(row -> refs.ownerEventCounts.put(
+                        new ImportReferences.OwnerKey((Long) row[0], (Integer) row[1]), (Long) row[2]));
+        return refs;
     }
 
-    private Event resolveEvent(Event source, int position) throws InvalidDataException {
-        if (source == null) {
-            return null;
-        }
+    private static long millisSince(long startedNanos) {
+        return (System.nanoTime() - startedNanos) / 1_000_000;
+    }
 
-        if (source.getId() != null) {
-            return eventRepository.findById(source.getId())
-                    .orElseThrow(() -> new InvalidDataException(
-                            "Запись #" + position + ": event с id=" + source.getId() + " не найден"));
+    private void flushImportBatch(int from, int to) throws InvalidDataException {
+        try {
+            entityManager.flush();
+        } catch (RuntimeException e) {
+            throw new InvalidDataException("Записи #" + from + "–#" + to + ": не удалось сохранить: " + e.getMessage());
         }
-
-        Event event = new Event();
-        event.setId(null);
-        event.setName(requireNonBlank(source.getName(), "event.name", position));
-        event.setTicketsCount(requirePositiveInt(source.getTicketsCount(), "event.ticketsCount", position));
-        event.setEventType(source.getEventType());
-
-        return eventRepository.save(event);
     }
 
-    private Venue resolveVenue(Venue source, int position) throws InvalidDataException {
-        if (source == null) {
-            return null;
+    private Ticket materialize(TicketImportValidator.Draft draft, ImportReferences refs) {
+        Ticket ticket = draft.ticket();
+        if (draft.newPerson()) {
+            ticket.setPerson(storePerson(ticket.getPerson(), refs));
         }
-
-        if (source.getId() != null) {
-            return venueRepository.findById(source.getId())
-                    .orElseThrow(() -> new InvalidDataException(
-                            "Запись #" + position + ": venue с id=" + source.getId() + " не найден"));
+        if (draft.newEvent()) {
+            Event event = ticket.getEvent();
+            ticket.setEvent(refs.newEvents.computeIfAbsent(
+                    new ImportReferences.EventKey(event.getName(), event.getTicketsCount(), event.getEventType()),
+                    key -> eventRepository.save(event)));
         }
-
-        Venue venue = new Venue();
-        venue.setId(null);
-        venue.setName(requireNonBlank(source.getName(), "venue.name", position));
-        venue.setCapacity(requirePositiveInt(source.getCapacity(), "venue.capacity", position));
-        venue.setType(source.getType());
-
-        return venueRepository.save(venue);
-    }
-
-    private String trimToNull(String value) {
-        if (value == null) {
-            return null;
+        if (draft.newVenue()) {
+            Venue venue = ticket.getVenue();
+            ticket.setVenue(refs.newVenues.computeIfAbsent(
+                    new ImportReferences.VenueKey(venue.getName(), venue.getCapacity(), venue.getType()),
+                    key -> venueRepository.save(venue)));
         }
-        String trimmed = value.trim();
-        return trimmed.isEmpty() ? null : trimmed;
+        return ticket;
     }
 
-    private String requireNonBlank(String value, String field, int position) throws InvalidDataException {
-        if (value == null || value.trim().isEmpty()) {
-            throw new InvalidDataException("Запись #" + position + ": " + field + " обязательно");
+    /** Повторы одного passportID уже сверены валидатором — здесь person сохраняется один раз. */
+    private Person storePerson(Person person, ImportReferences refs) {
+        Person stored = refs.newPersons.get(person.getPassportID());
+        if (stored != null) {
+            return stored;
         }
-        return value.trim();
+        person.setLocation(locationRepository.save(person.getLocation()));
+        stored = personRepository.save(person);
+        refs.newPersons.put(stored.getPassportID(), stored);
+        return stored;
     }
 
-    private <T> T requireNotNull(T value, String field, int position) throws InvalidDataException {
-        if (value == null) {
-            throw new InvalidDataException("Запись #" + position + ": " + field + " обязательно");
+    private int normalizeLimit(Integer limit) throws InvalidDataException {
+        if (limit == null) {
+            return DEFAULT_PAGE_LIMIT;
         }
-        return value;
-    }
-
-    private int requirePositiveInt(Number value, String field, int position) throws InvalidDataException {
-        if (value == null || value.intValue() <= 0) {
-            throw new InvalidDataException("Запись #" + position + ": " + field + " должно быть > 0");
+        if (limit <= 0) {
+            throw new InvalidDataException("limit должно быть > 0");
         }
-        return value.intValue();
+        return Math.min(limit, MAX_PAGE_LIMIT);
     }
 
-    private float requirePositiveFloat(Number value, String field, int position) throws InvalidDataException {
-        if (value == null || value.floatValue() <= 0f) {
-            throw new InvalidDataException("Запись #" + position + ": " + field + " должно быть > 0");
-        }
-        return value.floatValue();
+    private String encodeCursor(Integer id) {
+        byte[] raw = (CURSOR_PREFIX + id).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
     }
 
-    private float requireFloat(Number value, String field, int position) throws InvalidDataException {
-        if (value == null) {
-            throw new InvalidDataException("Запись #" + position + ": " + field + " обязательно");
+    private int decodeCursor(String cursor) throws InvalidDataException {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
         }
-        return value.floatValue();
-    }
-
-    private double requirePositiveDouble(Number value, String field, int position) throws InvalidDataException {
-        if (value == null || value.doubleValue() <= 0d) {
-            throw new InvalidDataException("Запись #" + position + ": " + field + " должно быть > 0");
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+            if (!raw.startsWith(CURSOR_PREFIX)) {
+                throw new InvalidDataException("Некорректный курсор страницы");
+            }
+            return Integer.parseInt(raw.substring(CURSOR_PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidDataException("Некорректный курсор страницы", e);
         }
-        return value.doubleValue();
     }
 
     private boolean validatePerson(Person person, Event event) {
@@ -448,7 +518,13 @@ public class TicketCommandService {
         if (personOptional.isEmpty()) {
             return false;
         }
-        Person presented = personOptional.get();
+        return personHasRoom(personOptional.get(), event);
+    }
+
+    private boolean personHasRoom(Person presented, Event event) {
+        if (presented == null || event == null) {
+            return true;
+        }
         List<Ticket> tickets = presented.getTickets();
         if (tickets == null || tickets.size() < 10) {
             return true;
@@ -470,7 +546,13 @@ public class TicketCommandService {
         if (eventOptional.isEmpty()) {
             return true;
         }
-        Event presented = eventOptional.get();
+        return placeIsFree(eventOptional.get(), coordinates);
+    }
+
+    private boolean placeIsFree(Event presented, Coordinates coordinates) {
+        if (presented == null) {
+            return true;
+        }
         List<Ticket> tickets = presented.getTickets();
         if (tickets == null || coordinates == null) {
             return true;
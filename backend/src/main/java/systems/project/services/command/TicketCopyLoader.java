@@ -0,0 +1,177 @@
+package systems.project.services.command;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.stereotype.Component;
+import systems.project.models.Coordinates;
+import systems.project.models.Ticket;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bulk-загрузка проверенных билетов через PostgreSQL COPY: строки билетов и
+ * координат потоком уходят во временную staging-таблицу, а затем переносятся
+ * в ticket и coordinates двумя set-based INSERT ... SELECT. Id берутся блоками
+ * из тех же последовательностей, что и у Hibernate (pooled-lo), поэтому не
+ * пересекаются с id, выданными обычной записью.
+ */
+@Component
+public class TicketCopyLoader {
+
+    /** Совпадает с allocationSize у ticket_seq и coordinates_seq: одно значение последовательности — блок id. */
+    private static final int ID_BLOCK = 50;
+    /** Сколько символов CSV копится перед отправкой в COPY. */
+    private static final int COPY_BUFFER_CHARS = 64 * 1024;
+
+    private static final String CREATE_STAGE = "create temp table ticket_import_stage ("
+            + "ord integer not null, ticket_id integer not null, coordinates_id bigint not null, "
+            + "name varchar(255) not null, price real not null, type varchar(255) not null, discount real, "
+            + "number integer not null, comment varchar(255), x integer not null, y real not null, "
+            + "person_id bigint, event_id integer, venue_id bigint) on commit drop";
+    private static final String COPY_STAGE = "COPY ticket_import_stage (ord, ticket_id, coordinates_id, name, "
+            + "price, type, discount, number, comment, x, y, person_id, event_id, venue_id) "
+            + "FROM STDIN WITH (FORMAT csv)";
+    private static final String MERGE_COORDINATES = "insert into coordinates (id, x, y) "
+            + "select coordinates_id, x, y from ticket_import_stage order by ord";
+    private static final String MERGE_TICKETS = "insert into ticket (id, name, coordinates_id, creation_date, "
+            + "person_id, event_id, price, type, discount, number, comment, venue_id) "
+            + "select ticket_id, name, coordinates_id, :now, person_id, event_id, price, type, discount, number, "
+            + "comment, venue_id from ticket_import_stage order by ord";
+
+    private final EntityManager entityManager;
+
+    public TicketCopyLoader(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Должен вызываться внутри транзакции: staging-таблица живёт до её конца.
+     * Ссылки билетов (person, event, venue) к этому моменту уже должны иметь id.
+     *
+     * @return id вставленных билетов в порядке списка
+     */
+    public List<Integer> load(List<Ticket> tickets) throws SQLException {
+        Session session = entityManager.unwrap(Session.class);
+        session.doWork(TicketCopyLoader::requirePostgres);
+        // новые person/event/venue из файла должны оказаться в БД раньше билетов, которые на них ссылаются
+        session.flush();
+
+        List<Long> ticketIds = allocateIds(session, "ticket_seq", tickets.size());
+        List<Long> coordinateIds = allocateIds(session, "coordinates_seq", tickets.size());
+        session.doWork(connection -> copyToStage(connection, tickets, ticketIds, coordinateIds));
+
+        // через Hibernate, а не JDBC: так инвалидируются кэши запросов по этим таблицам
+        session.createNativeQuery(MERGE_COORDINATES, Object.class)
+                .addSynchronizedEntityClass(Coordinates.class)
+                .executeUpdate();
+        session.createNativeQuery(MERGE_TICKETS, Object.class)
+                .addSynchronizedEntityClass(Ticket.class)
+                .setParameter("now", LocalDateTime.now())
+                .executeUpdate();
+
+        List<Integer> ids = new ArrayList<>(ticketIds.size());
+        ticketIds.forEach(id -> ids.add(Math.toIntExact(id)));
+        return ids;
+    }
+
+    private static void requirePostgres(Connection connection) throws SQLException {
+        if (!connection.isWrapperFor(PGConnection.class)) {
+            throw new SQLFeatureNotSupportedException("COPY поддерживается только PostgreSQL");
+        }
+    }
+
+    private List<Long> allocateIds(Session session, String sequence, int count) {
+        int blocks = (count + ID_BLOCK - 1) / ID_BLOCK;
+        List<Long> starts = session.createNativeQuery(
+                        "select nextval('" + sequence + "') from generate_series(1, :blocks)", Long.class)
+                .setParameter("blocks", blocks)
+                .getResultList();
+        List<Long> ids = new ArrayList<>(count);
+        for (Long start : starts) {
+            for (int offset = 0; offset < ID_BLOCK && ids.size() < count; offset++) {
+                ids.add(start + offset);
+            }
+        }
+        return ids;
+    }
+
+    private void copyToStage(Connection connection,
+                             List<Ticket> tickets,
+                             List<Long> ticketIds,
+                             List<Long> coordinateIds) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(CREATE_STAGE);
+        }
+
+        CopyIn copy = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_STAGE);
+        try {
+            StringBuilder buffer = new StringBuilder(COPY_BUFFER_CHARS);
+            for (int i = 0; i < tickets.size(); i++) {
+                appendRow(buffer, i, tickets.get(i), ticketIds.get(i), coordinateIds.get(i));
+                if (buffer.length() >= COPY_BUFFER_CHARS) {
+                    send(copy, buffer);
+                }
+            }
+            send(copy, buffer);
+            copy.endCopy();
+        } finally {
+            if (copy.isActive()) {
+                copy.cancelCopy();
+            }
+        }
+    }
+
+    private void send(CopyIn copy, StringBuilder buffer) throws SQLException {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+        copy.writeToCopy(bytes, 0, bytes.length);
+        buffer.setLength(0);
+    }
+
+    private void appendRow(StringBuilder row, int ord, Ticket ticket, Long ticketId, Long coordinatesId) {
+        Coordinates coordinates = ticket.getCoordinates();
+        row.append(ord).append(',')
+                .append(ticketId).append(',')
+                .append(coordinatesId).append(',');
+        appendText(row, ticket.getName());
+        row.append(',').append(ticket.getPrice()).append(',');
+        appendText(row, ticket.getType().name());
+        row.append(',');
+        appendValue(row, ticket.getDiscount());
+        row.append(',').append(ticket.getNumber()).append(',');
+        appendText(row, ticket.getComment());
+        row.append(',').append(coordinates.getX())
+                .append(',').append(coordinates.getY()).append(',');
+        appendValue(row, ticket.getPerson() == null ? null : ticket.getPerson().getId());
+        row.append(',');
+        appendValue(row, ticket.getEvent() == null ? null : ticket.getEvent().getId());
+        row.append(',');
+        appendValue(row, ticket.getVenue() == null ? null : ticket.getVenue().getId());
+        row.append('\n');
+    }
+
+    private void appendValue(StringBuilder row, Object value) {
+        if (value != null) {
+            row.append(value);
+        }
+    }
+
+    /** Строки всегда в кавычках: в CSV-режиме COPY пустое поле без кавычек — это NULL. */
+    private void appendText(StringBuilder row, String value) {
+        if (value == null) {
+            return;
+        }
+        row.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+}
@@ -0,0 +1,343 @@
+package systems.project.services.command;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import systems.project.configuratons.AsyncConfiguration;
+import systems.project.configuratons.ImportProperties;
+import systems.project.exceptions.InvalidDataException;
+import systems.project.models.Coordinates;
+import systems.project.models.Event;
+import systems.project.models.Location;
+import systems.project.models.Person;
+import systems.project.models.Ticket;
+import systems.project.models.Venue;
+import systems.project.services.core.ValidateTypes;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Стадия валидации импорта. Проверки записи не обращаются к БД и сессии
+ * Hibernate — только к заранее загруженным {@link ImportReferences}, — поэтому
+ * большие списки проверяются параллельно в отдельном fork-join пуле. Результат
+ * совпадает с последовательной проверкой: ошибкой считается первая по номеру
+ * неудачная запись.
+ */
+@Component
+public class TicketImportValidator {
+
+    /** Записей в одной листовой задаче fork-join. */
+    private static final int LEAF_SIZE = 256;
+
+    private final ValidateTypes validateTypes;
+    private final ImportProperties importProperties;
+    private final ForkJoinPool pool;
+
+    public TicketImportValidator(ValidateTypes validateTypes,
+                                 ImportProperties importProperties,
+                                 @Qualifier(AsyncConfiguration.IMPORT_VALIDATION_POOL) ForkJoinPool pool) {
+        this.validateTypes = validateTypes;
+        this.importProperties = importProperties;
+        this.pool = pool;
+    }
+
+    /**
+     * Проверенная запись: билет с уже найденными существующими ссылками и ещё
+     * не сохранёнными новыми person/event/venue, которые создаст стадия записи.
+     */
+    record Draft(int position, Ticket ticket, boolean newPerson, boolean newEvent, boolean newVenue) { }
+
+    /**
+     * @param positionOf номер записи в исходном файле по её индексу в списке — для сообщений об ошибках
+     */
+    List<Draft> validate(List<Ticket> tickets,
+                         IntUnaryOperator positionOf,
+                         ImportReferences refs) throws InvalidDataException {
+        int size = tickets.size();
+        Draft[] drafts = new Draft[size];
+        InvalidDataException[] errors = new InvalidDataException[size];
+        AtomicInteger firstError = new AtomicInteger(size);
+
+        Validation root = new Validation(tickets, positionOf, refs, drafts, errors, firstError, 0, size);
+        if (size >= importProperties.getParallelValidationThreshold()) {
+            pool.invoke(root);
+        } else {
+            root.compute();
+        }
+
+        int failedAt = firstError.get();
+        checkPersonsConsistent(drafts, failedAt);
+        if (failedAt < size) {
+            throw errors[failedAt];
+        }
+        return Arrays.asList(drafts);
+    }
+
+    /**
+     * Один и тот же новый person (по passportID) может встречаться в файле
+     * несколько раз, но только с одинаковыми данными. Проверка сквозная по
+     * файлу, поэтому выполняется последовательно и лишь до первой ошибки
+     * валидации — чтобы сообщить о самой ранней проблеме.
+     */
+    private void checkPersonsConsistent(Draft[] drafts, int limit) throws InvalidDataException {
+        Map<String, Person> defined = new HashMap<>();
+        for (int i = 0; i < limit; i++) {
+            Draft draft = drafts[i];
+            if (!draft.newPerson()) {
+                continue;
+            }
+            Person person = draft.ticket().getPerson();
+            Person first = defined.putIfAbsent(person.getPassportID(), person);
+            if (first != null && !samePerson(first, person)) {
+                throw new InvalidDataException("Запись #" + draft.position() + ": person с passportID="
+                        + person.getPassportID() + " уже описан в файле с другими данными");
+            }
+        }
+    }
+
+    private Draft prepare(Ticket source, int position, ImportReferences refs) throws InvalidDataException {
+        if (source == null) {
+            throw new InvalidDataException("Запись #" + position + ": ticket отсутствует");
+        }
+
+        Ticket target = new Ticket();
+        target.setId(null);
+        target.setName(requireNonBlank(source.getName(), "ticket.name", position));
+        target.setPrice(requirePositiveFloat(source.getPrice(), "ticket.price", position));
+        target.setType(requireNotNull(source.getType(), "ticket.type", position));
+        target.setNumber(requirePositiveInt(source.getNumber(), "ticket.number", position));
+        target.setDiscount(source.getDiscount());
+        target.setComment(trimToNull(source.getComment()));
+
+        Coordinates coords = requireNotNull(source.getCoordinates(), "ticket.coordinates", position);
+        Coordinates copyCoords = new Coordinates();
+        copyCoords.setId(null);
+        copyCoords.setX(coords.getX());
+        copyCoords.setY(requireFloat(coords.getY(), "ticket.coordinates.y", position));
+        target.setCoordinates(copyCoords);
+
+        Person sourcePerson = source.getPerson();
+        Event sourceEvent = source.getEvent();
+        Venue sourceVenue = source.getVenue();
+        boolean newPerson = sourcePerson != null && sourcePerson.getId() == null;
+        boolean newEvent = sourceEvent != null && sourceEvent.getId() == null;
+        boolean newVenue = sourceVenue != null && sourceVenue.getId() == null;
+
+        target.setPerson(resolvePerson(sourcePerson, position, refs));
+        target.setEvent(resolveEvent(sourceEvent, position, refs));
+        target.setVenue(resolveVenue(sourceVenue, position, refs));
+
+        // Новые person/event из этого файла ещё не имеют билетов — проверять нужно только существующие.
+        if (sourceEvent != null && !newEvent) {
+            Event event = target.getEvent();
+            if (sourcePerson != null && !newPerson
+                    && refs.ticketsOf(target.getPerson().getId(), event.getId()) >= 10) {
+                throw new InvalidDataException("Запись #" + position + ": некорректный владелец билета");
+            }
+            if (refs.isSeatTaken(event.getId(), copyCoords)) {
+                throw new InvalidDataException("Запись #" + position + ": координаты заняты для события");
+            }
+        }
+        if (!validateTypes.compatibility(target)) {
+            throw new InvalidDataException("Запись #" + position + ": ticket type не совместим с зависимостями");
+        }
+
+        return new Draft(position, target, newPerson, newEvent, newVenue);
+    }
+
+    private Person resolvePerson(Person source, int position, ImportReferences refs) throws InvalidDataException {
+        if (source == null) {
+            return null;
+        }
+
+        if (source.getId() != null) {
+            Person existing = refs.persons.get(source.getId());
+            if (existing == null) {
+                throw new InvalidDataException(
+                        "Запись #" + position + ": person с id=" + source.getId() + " не найден");
+            }
+            return existing;
+        }
+
+        String passport = requireNonBlank(source.getPassportID(), "person.passportID", position);
+        if (refs.existingPassports.contains(passport)) {
+            throw new InvalidDataException(
+                    "Запись #" + position + ": person с passportID=" + passport + " уже существует");
+        }
+
+        Location location = requireNotNull(source.getLocation(), "person.location", position);
+        Person person = new Person();
+        person.setId(null);
+        person.setPassportID(passport);
+        person.setWeight(requirePositiveDouble(source.getWeight(), "person.weight", position));
+        person.setNationality(requireNotNull(source.getNationality(), "person.nationality", position));
+        person.setHairColor(requireNotNull(source.getHairColor(), "person.hairColor", position));
+        person.setEyeColor(source.getEyeColor());
+        person.setLocation(Location.builder()
+                .id(null)
+                .x(requireNotNull(location.getX(), "person.location.x", position))
+                .y(requireFloat(location.getY(), "person.location.y", position))
+                .z(requireNotNull(location.getZ(), "person.location.z", position))
+                .build());
+        return person;
+    }
+
+    private Event resolveEvent(Event source, int position, ImportReferences refs) throws InvalidDataException {
+        if (source == null) {
+            return null;
+        }
+
+        if (source.getId() != null) {
+            Event existing = refs.events.get(source.getId());
+            if (existing == null) {
+                throw new InvalidDataException(
+                        "Запись #" + position + ": event с id=" + source.getId() + " не найден");
+            }
+            return existing;
+        }
+
+        Event event = new Event();
+        event.setId(null);
+        event.setName(requireNonBlank(source.getName(), "event.name", position));
+        event.setTicketsCount(requirePositiveInt(source.getTicketsCount(), "event.ticketsCount", position));
+        event.setEventType(source.getEventType());
+        return event;
+    }
+
+    private Venue resolveVenue(Venue source, int position, ImportReferences refs) throws InvalidDataException {
+        if (source == null) {
+            return null;
+        }
+
+        if (source.getId() != null) {
+            Venue existing = refs.venues.get(source.getId());
+            if (existing == null) {
+                throw new InvalidDataException(
+                        "Запись #" + position + ": venue с id=" + source.getId() + " не найден");
+            }
+            return existing;
+        }
+
+        Venue venue = new Venue();
+        venue.setId(null);
+        venue.setName(requireNonBlank(source.getName(), "venue.name", position));
+        venue.setCapacity(requirePositiveInt(source.getCapacity(), "venue.capacity", position));
+        venue.setType(source.getType());
+        return venue;
+    }
+
+    static boolean samePerson(Person defined, Person candidate) {
+        Location location = defined.getLocation();
+        Location candidateLocation = candidate.getLocation();
+        return Objects.equals(defined.getWeight(), candidate.getWeight())
+                && defined.getNationality() == candidate.getNationality()
+                && defined.getHairColor() == candidate.getHairColor()
+                && defined.getEyeColor() == candidate.getEyeColor()
+                && Objects.equals(location.getX(), candidateLocation.getX())
+                && Float.compare(location.getY(), candidateLocation.getY()) == 0
+                && Objects.equals(location.getZ(), candidateLocation.getZ());
+    }
+
+    private String trimToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    private String requireNonBlank(String value, String field, int position) throws InvalidDataException {
+        if (value == null || value.trim().isEmpty()) {
+            throw new InvalidDataException("Запись #" + position + ": " + field + " обязательно");
+        }
+        return value.trim();
+    }
+
+    private <T> T requireNotNull(T value, String field, int position) throws InvalidDataException {
+        if (value == null) {
+            throw new InvalidDataException("Запись #" + position + ": " + field + " обязательно");
+        }
+        return value;
+    }
+
+    private int requirePositiveInt(Number value, String field, int position) throws InvalidDataException {
+        if (value == null || value.intValue() <= 0) {
+            throw new InvalidDataException("Запись #" + position + ": " + field + " должно быть > 0");
+        }
+        return value.intValue();
+    }
+
+    private float requirePositiveFloat(Number value, String field, int position) throws InvalidDataException {
+        if (value == null || value.floatValue() <= 0f) {
+            throw new InvalidDataException("Запись #" + position + ": " + field + " должно быть > 0");
+        }
+        return value.floatValue();
+    }
+
+    private float requireFloat(Number value, String field, int position) throws InvalidDataException {
+        if (value == null) {
+            throw new InvalidDataException("Запись #" + position + ": " + field + " обязательно");
+        }
+        return value.floatValue();
+    }
+
+    private double requirePositiveDouble(Number value, String field, int position) throws InvalidDataException {
+        if (value == null || value.doubleValue() <= 0d) {
+            throw new InvalidDataException("Запись #" + position + ": " + field + " должно быть > 0");
+        }
+        return value.doubleValue();
+    }
+
+    private final class Validation extends RecursiveAction {
+        private final List<Ticket> tickets;
+        private final IntUnaryOperator positionOf;
+        private final ImportReferences refs;
+        private final Draft[] drafts;
+        private final InvalidDataException[] errors;
+        private final AtomicInteger firstError;
+        private final int from;
+        private final int to;
+
+        private Validation(List<Ticket> tickets, IntUnaryOperator positionOf, ImportReferences refs, Draft[] drafts,
+                           InvalidDataException[] errors, AtomicInteger firstError, int from, int to) {
+            this.tickets = tickets;
+            this.positionOf = positionOf;
+            this.refs = refs;
+            this.drafts = drafts;
+            this.errors = errors;
+            this.firstError = firstError;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > LEAF_SIZE) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Validation(tickets, positionOf, refs, drafts, errors, firstError, from, middle),
+                        new Validation(tickets, positionOf, refs, drafts, errors, firstError, middle, to));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                // записи после уже найденной ошибки проверять незачем
+                if (i > firstError.get()) {
+                    return;
+                }
+                try {
+                    drafts[i] = prepare(tickets.get(i), positionOf.applyAsInt(i), refs);
+                } catch (InvalidDataException e) {
+                    errors[i] = e;
+                    firstError.accumulateAndGet(i, Math::min);
+                    return;
+                }
+            }
+        }
+    }
+}
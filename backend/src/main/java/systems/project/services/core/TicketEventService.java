@@ -1,21 +1,28 @@
 // TicketEventsService.java
 package systems.project.services.core;
 
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import systems.project.configuratons.AsyncConfiguration;
 
 import java.io.IOException;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.logging.Logger;
 
 @Service
 public class TicketEventService {
     private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
     private final Logger logger;
+    private final AsyncTaskExecutor fanOutExecutor;
 
-    public TicketEventService(Logger logger) {
+    public TicketEventService(Logger logger,
+                              @Qualifier(AsyncConfiguration.EVENT_FAN_OUT_EXECUTOR) AsyncTaskExecutor fanOutExecutor) {
         this.logger = logger;
+        this.fanOutExecutor = fanOutExecutor;
     }
 
     public SseEmitter subscribe() {
@@ -44,7 +51,19 @@ public class TicketEventService {
         return emitter;
     }
 
+    /**
+     * Рассылка идёт в отдельном однопоточном executor: медленный SSE-клиент не
+     * задерживает поток, выполнивший изменение, а события приходят в порядке публикации.
+     */
     public void publishChange(String action, Integer id) {
+        try {
+            fanOutExecutor.execute(() -> send(action, id));
+        } catch (RejectedExecutionException e) {
+            logger.warning("SSE fan-out skipped, event queue is full: " + action);
+        }
+    }
+
+    private void send(String action, Integer id) {
         logger.info("published");
         emitters.forEach(em -> {
             try {
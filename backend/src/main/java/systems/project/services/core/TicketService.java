@@ -3,9 +3,12 @@ package systems.project.services.core;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import systems.project.configuratons.AsyncConfiguration;
 import systems.project.exceptions.InvalidDataException;
 import systems.project.models.Ticket;
 import systems.project.models.api.ImportResult;
+import systems.project.models.envelopes.TicketsPageEnvelope;
+import systems.project.models.views.TicketView;
 import systems.project.services.command.TicketCommandService;
 import systems.project.services.imports.TicketImportCoordinator;
 
@@ -28,17 +31,26 @@ public class TicketService {
     }
 
     @Async
-    public CompletableFuture<Map<String, List<Ticket>>> getTickets() {
+    public CompletableFuture<Map<String, List<TicketView>>> getTickets() {
         return completedFuture(commands.getTickets());
     }
 
+    @Async
+    public CompletableFuture<TicketsPageEnvelope> getTicketsPage(String after, Integer limit) {
+        try {
+            return completedFuture(commands.getTicketsPage(after, limit));
+        } catch (InvalidDataException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
     @Async
     public CompletableFuture<Map<String, Boolean>> addTicket(Ticket ticket) {
         return completedFuture(commands.addTicket(ticket));
     }
 
     @Async
-    public CompletableFuture<Ticket> getTicket(Integer id) {
+    public CompletableFuture<TicketView> getTicket(Integer id) {
         return completedFuture(commands.getTicket(id));
     }
 
@@ -58,7 +70,7 @@ public class TicketService {
     }
 
     @Async
-    public CompletableFuture<Ticket> getWithMinEvent() {
+    public CompletableFuture<TicketView> getWithMinEvent() {
         return completedFuture(commands.getWithMinEvent());
     }
 
@@ -77,7 +89,7 @@ public class TicketService {
         return completedFuture(commands.cloneVip(ticketId));
     }
 
-    @Async
+    @Async(AsyncConfiguration.IMPORT_EXECUTOR)
     public CompletableFuture<ImportResult> importTickets(List<Ticket> tickets) {
         try {
             return completedFuture(commands.importTickets(tickets));
@@ -86,10 +98,48 @@ public class TicketService {
         }
     }
 
-    @Async
-    public CompletableFuture<ImportResult> importFromFile(MultipartFile file) {
+    @Async(AsyncConfiguration.IMPORT_EXECUTOR)
+    public CompletableFuture<ImportResult> importFromFile(MultipartFile file, boolean idempotent) {
+        try {
+            return completedFuture(fileImportCoordinator.importFromFile(file, idempotent));
+        } catch (InvalidDataException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Async(AsyncConfiguration.IMPORT_EXECUTOR)
+    public CompletableFuture<ImportResult> importFromFileChunked(MultipartFile file, Integer chunkSize) {
+        try {
+            return completedFuture(fileImportCoordinator.importFromFileChunked(file, chunkSize));
+        } catch (InvalidDataException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Async(AsyncConfiguration.IMPORT_EXECUTOR)
+    public CompletableFuture<ImportResult> importFromFileBulk(MultipartFile file, boolean idempotent) {
+        try {
+            return completedFuture(fileImportCoordinator.importFromFileBulk(file, idempotent));
+        } catch (InvalidDataException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Async(AsyncConfiguration.IMPORT_EXECUTOR)
+    public CompletableFuture<ImportResult> importFromFileParallel(MultipartFile file,
+                                                                  Integer writers,
+                                                                  boolean idempotent) {
+        try {
+            return completedFuture(fileImportCoordinator.importFromFileParallel(file, writers, idempotent));
+        } catch (InvalidDataException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Async(AsyncConfiguration.IMPORT_EXECUTOR)
+    public CompletableFuture<ImportResult> resumeImport(Long logId) {
         try {
-            return completedFuture(fileImportCoordinator.importFromFile(file));
+            return completedFuture(fileImportCoordinator.resume(logId));
         } catch (InvalidDataException e) {
             return CompletableFuture.failedFuture(e);
         }
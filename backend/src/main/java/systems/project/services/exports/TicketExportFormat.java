@@ -0,0 +1,37 @@
+package systems.project.services.exports;
+
+import systems.project.exceptions.InvalidDataException;
+
+import java.util.Locale;
+
+public enum TicketExportFormat {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    TicketExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public static TicketExportFormat parse(String value) throws InvalidDataException {
+        if (value == null || value.isBlank()) {
+            return NDJSON;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidDataException("Неподдерживаемый формат экспорта: " + value);
+        }
+    }
+}
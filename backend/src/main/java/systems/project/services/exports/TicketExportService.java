@@ -0,0 +1,128 @@
+package systems.project.services.exports;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import systems.project.models.Coordinates;
+import systems.project.models.Ticket;
+import systems.project.repositories.TicketRepository;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Выгрузка всей таблицы билетов без материализации списка: строки читаются
+ * серверным курсором и сразу пишутся в поток ответа, а persistence context
+ * периодически очищается, так что память не растёт с числом билетов.
+ */
+@Service
+@Transactional(readOnly = true)
+public class TicketExportService {
+
+    private static final int CLEAR_INTERVAL = 500;
+    private static final String CSV_HEADER = "id,name,creationDate,price,type,discount,number,comment,"
+            + "coordinatesX,coordinatesY,personId,eventId,venueId";
+
+    private final TicketRepository ticketRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    public TicketExportService(TicketRepository ticketRepository,
+                               EntityManager entityManager,
+                               ObjectMapper objectMapper) {
+        this.ticketRepository = ticketRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+    }
+
+    public long export(TicketExportFormat format, OutputStream outputStream) throws IOException {
+        try (Stream<Ticket> tickets = ticketRepository.streamAllForExport()) {
+            return switch (format) {
+                case NDJSON -> writeNdjson(tickets.iterator(), outputStream);
+                case CSV -> writeCsv(tickets.iterator(), outputStream);
+            };
+        }
+    }
+
+    private long writeNdjson(Iterator<Ticket> tickets, OutputStream outputStream) throws IOException {
+        BufferedOutputStream buffered = new BufferedOutputStream(outputStream);
+        long count = 0;
+        try (SequenceWriter writer = objectMapper.writer()
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n")
+                .writeValues(buffered)) {
+            while (tickets.hasNext()) {
+                Ticket ticket = tickets.next();
+                writer.write(ticket);
+                release(ticket, ++count);
+            }
+        }
+        if (count > 0) {
+            buffered.write('\n');
+        }
+        buffered.flush();
+        return count;
+    }
+
+    private long writeCsv(Iterator<Ticket> tickets, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        long count = 0;
+        while (tickets.hasNext()) {
+            Ticket ticket = tickets.next();
+            writer.write(toCsvRow(ticket));
+            writer.write('\n');
+            release(ticket, ++count);
+        }
+        writer.flush();
+        return count;
+    }
+
+    private void release(Ticket ticket, long count) {
+        entityManager.detach(ticket);
+        if (count % CLEAR_INTERVAL == 0) {
+            entityManager.clear();
+        }
+    }
+
+    private String toCsvRow(Ticket ticket) {
+        Coordinates coordinates = ticket.getCoordinates();
+        return String.join(",",
+                csv(ticket.getId()),
+                csv(ticket.getName()),
+                csv(ticket.getCreationDate()),
+                csv(ticket.getPrice()),
+                csv(ticket.getType()),
+                csv(ticket.getDiscount()),
+                csv(ticket.getNumber()),
+                csv(ticket.getComment()),
+                csv(coordinates == null ? null : coordinates.getX()),
+                csv(coordinates == null ? null : coordinates.getY()),
+                csv(ticket.getPerson() == null ? null : ticket.getPerson().getId()),
+                csv(ticket.getEvent() == null ? null : ticket.getEvent().getId()),
+                csv(ticket.getVenue() == null ? null : ticket.getVenue().getId()));
+    }
+
+    private String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0
+                && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,302 @@
+package systems.project.services.imports;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import systems.project.exceptions.ImportFormatException;
+import systems.project.models.Ticket;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PushbackReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+
+/**
+ * Построчное чтение плоского CSV (RFC 4180) с обязательной строкой заголовка.
+ * Колонки совпадают с CSV-экспортом и дополнены полями новых person/event/venue,
+ * так что выгрузку можно загрузить обратно. Порядок колонок произвольный,
+ * id и creationDate игнорируются. Запись собирается в дерево и десериализуется
+ * тем же ObjectReader, что и JSON, поэтому типы и перечисления проверяются
+ * одинаково во всех форматах.
+ */
+final class CsvTicketImportReader implements TicketImportReader {
+
+    /** Колонка → путь свойства в JSON-представлении ticket; пустой путь — колонка игнорируется. */
+    private static final Map<String, String> COLUMNS = new LinkedHashMap<>();
+    private static final Map<String, String> COLUMN_BY_PATH;
+
+    static {
+        COLUMNS.put("id", "");
+        COLUMNS.put("creationDate", "");
+        COLUMNS.put("name", "name");
+        COLUMNS.put("price", "price");
+        COLUMNS.put("type", "type");
+        COLUMNS.put("discount", "discount");
+        COLUMNS.put("number", "number");
+        COLUMNS.put("comment", "comment");
+        COLUMNS.put("coordinatesX", "coordinates.x");
+        COLUMNS.put("coordinatesY", "coordinates.y");
+        COLUMNS.put("personId", "person.id");
+        COLUMNS.put("personPassportID", "person.passportID");
+        COLUMNS.put("personWeight", "person.weight");
+        COLUMNS.put("personNationality", "person.nationality");
+        COLUMNS.put("personHairColor", "person.hairColor");
+        COLUMNS.put("personEyeColor", "person.eyeColor");
+        COLUMNS.put("personLocationX", "person.location.x");
+        COLUMNS.put("personLocationY", "person.location.y");
+        COLUMNS.put("personLocationZ", "person.location.z");
+        COLUMNS.put("eventId", "event.id");
+        COLUMNS.put("eventName", "event.name");
+        COLUMNS.put("eventTicketsCount", "event.ticketsCount");
+        COLUMNS.put("eventType", "event.eventType");
+        COLUMNS.put("venueId", "venue.id");
+        COLUMNS.put("venueName", "venue.name");
+        COLUMNS.put("venueCapacity", "venue.capacity");
+        COLUMNS.put("venueType", "venue.type");
+        COLUMN_BY_PATH = new HashMap<>();
+        COLUMNS.forEach((column, path) -> {
+            if (!path.isEmpty()) {
+                COLUMN_BY_PATH.put(path, column);
+            }
+        });
+    }
+
+    private final CountingInputStream source;
+    private final PushbackReader input;
+    private final ObjectReader ticketReader;
+    private final String[][] paths;
+    private List<String> pending;
+    private int pendingLine;
+    private int recordLine;
+    private int lineNr = 1;
+    private boolean finished;
+    private int position;
+
+    /**
+     * Сразу читает заголовок, поэтому неизвестные колонки отклоняются до первой записи.
+     */
+    CsvTicketImportReader(InputStream payload, ObjectReader ticketReader) {
+        this.source = new CountingInputStream(payload);
+        this.input = new PushbackReader(new BufferedReader(new InputStreamReader(source, StandardCharsets.UTF_8)));
+        this.ticketReader = ticketReader;
+        this.paths = readHeader();
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (finished) {
+            return false;
+        }
+        while (pending == null) {
+            List<String> record = readRecord(position + 1);
+            if (record == null) {
+                finished = true;
+                return false;
+            }
+            if (record.size() > 1 || record.get(0) != null) {
+                pending = record;
+                pendingLine = recordLine;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Ticket next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        List<String> record = pending;
+        pending = null;
+        position++;
+        if (record.size() != paths.length) {
+            finished = true;
+            throw new ImportFormatException(prefix() + "ожидалось полей: " + paths.length
+                    + ", получено: " + record.size());
+        }
+        ObjectNode node = JsonNodeFactory.instance.objectNode();
+        for (int i = 0; i < paths.length; i++) {
+            String value = record.get(i);
+            if (paths[i] != null && value != null) {
+                put(node, paths[i], value);
+            }
+        }
+        try {
+            return ticketReader.readValue(node);
+        } catch (JsonMappingException e) {
+            finished = true;
+            throw new ImportFormatException(prefix(column(e)) + e.getOriginalMessage(), e);
+        } catch (IOException e) {
+            finished = true;
+            throw new ImportFormatException(prefix() + "не удалось прочитать запись", e);
+        }
+    }
+
+    @Override
+    public int skip(int count) {
+        int skipped = 0;
+        while (skipped < count && hasNext()) {
+            pending = null;
+            position++;
+            skipped++;
+        }
+        return skipped;
+    }
+
+    @Override
+    public long getBytesRead() {
+        return source.getCount();
+    }
+
+    @Override
+    public int getPosition() {
+        return position;
+    }
+
+    @Override
+    public void close() {
+        try {
+            input.close();
+        } catch (IOException ignored) {
+            // источник уже прочитан или оборван, закрывать нечего
+        }
+    }
+
+    private String[][] readHeader() {
+        List<String> header = readRecord(0);
+        if (header == null) {
+            throw new ImportFormatException("CSV не содержит строку заголовка");
+        }
+        String[][] result = new String[header.size()][];
+        List<String> seen = new ArrayList<>();
+        for (int i = 0; i < header.size(); i++) {
+            String column = header.get(i) == null ? "" : header.get(i).trim();
+            if (i == 0 && column.startsWith(NdjsonTicketImportReader.BOM)) {
+                column = column.substring(NdjsonTicketImportReader.BOM.length()).trim();
+            }
+            String path = COLUMNS.get(column);
+            if (path == null) {
+                throw new ImportFormatException("Заголовок CSV: неизвестная колонка \"" + column
+                        + "\", допустимы: " + String.join(", ", COLUMNS.keySet()));
+            }
+            if (seen.contains(column)) {
+                throw new ImportFormatException("Заголовок CSV: колонка \"" + column + "\" указана дважды");
+            }
+            seen.add(column);
+            result[i] = path.isEmpty() ? null : path.split("\\.");
+        }
+        return result;
+    }
+
+    /**
+     * Читает одну запись; поле в кавычках может содержать запятые и переводы строк.
+     * Пустое поле без кавычек — null, {@code ""} — пустая строка.
+     *
+     * @return поля записи или null в конце файла
+     */
+    private List<String> readRecord(int record) {
+        try {
+            int c = input.read();
+            if (c < 0) {
+                return null;
+            }
+            recordLine = lineNr;
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean inQuotes = false;
+            while (true) {
+                if (inQuotes) {
+                    if (c < 0) {
+                        throw new ImportFormatException(location(record) + "незакрытая кавычка");
+                    }
+                    if (c == '"') {
+                        int next = input.read();
+                        if (next != '"') {
+                            inQuotes = false;
+                            c = next;
+                            continue;
+                        }
+                    } else if (c == '\n') {
+                        lineNr++;
+                    }
+                    field.append((char) c);
+                } else if (c == ',') {
+                    fields.add(value(field, quoted));
+                    field.setLength(0);
+                    quoted = false;
+                } else if (c == '\n' || c == '\r' || c < 0) {
+                    if (c == '\r') {
+                        int next = input.read();
+                        if (next >= 0 && next != '\n') {
+                            input.unread(next);
+                        }
+                    }
+                    if (c >= 0) {
+                        lineNr++;
+                    }
+                    fields.add(value(field, quoted));
+                    return fields;
+                } else if (quoted) {
+                    throw new ImportFormatException(location(record) + "лишние символы после закрывающей кавычки");
+                } else if (c == '"' && field.isEmpty()) {
+                    inQuotes = true;
+                    quoted = true;
+                } else {
+                    field.append((char) c);
+                }
+                c = input.read();
+            }
+        } catch (IOException e) {
+            finished = true;
+            throw new ImportFormatException(location(record) + "не удалось прочитать файл", e);
+        }
+    }
+
+    private static String value(StringBuilder field, boolean quoted) {
+        if (!quoted && field.isEmpty()) {
+            return null;
+        }
+        return field.toString();
+    }
+
+    private static void put(ObjectNode node, String[] path, String value) {
+        ObjectNode parent = node;
+        for (int i = 0; i < path.length - 1; i++) {
+            ObjectNode child = (ObjectNode) parent.get(path[i]);
+            parent = child != null ? child : parent.putObject(path[i]);
+        }
+        parent.put(path[path.length - 1], value);
+    }
+
+    private static String column(JsonMappingException e) {
+        String path = e.getPath().stream()
+                .map(JsonMappingException.Reference::getFieldName)
+                .collect(Collectors.joining("."));
+        return COLUMN_BY_PATH.get(path);
+    }
+
+    private String location(int record) {
+        String line = "строка " + lineNr;
+        return record == 0 ? "Заголовок CSV (" + line + "): " : "Запись #" + record + " (" + line + "): ";
+    }
+
+    private String prefix() {
+        return prefix(null);
+    }
+
+    private String prefix(String column) {
+        String where = column == null ? "" : ", колонка " + column;
+        return "Запись #" + position + " (строка " + pendingLine + where + "): ";
+    }
+}
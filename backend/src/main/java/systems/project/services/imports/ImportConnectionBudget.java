@@ -0,0 +1,65 @@
+package systems.project.services.imports;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.stereotype.Component;
+import systems.project.configuratons.ImportProperties;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ограничивает число соединений, которые одновременно держат партиции
+ * параллельных импортов: не больше {@code app.imports.max-pool-share} от
+ * размера пула Hikari, чтобы обычные запросы не ждали соединение.
+ */
+@Component
+public class ImportConnectionBudget {
+
+    /** Размер пула Hikari по умолчанию — если DataSource не Hikari. */
+    private static final int DEFAULT_POOL_SIZE = 10;
+    private static final long ACQUIRE_TIMEOUT_SECONDS = 30;
+
+    private final Semaphore permits;
+
+    public ImportConnectionBudget(DataSource dataSource, ImportProperties importProperties) {
+        int poolSize = poolSize(dataSource);
+        int limit = Math.max(1, (int) Math.floor(poolSize * importProperties.getMaxPoolShare()));
+        this.permits = new Semaphore(limit, true);
+    }
+
+    /**
+     * Ждёт хотя бы одно соединение из бюджета и забирает столько свободных,
+     * сколько есть, но не больше {@code wanted}.
+     *
+     * @return число полученных разрешений; 0 — бюджет не освободился за время ожидания
+     */
+    public int acquire(int wanted) throws InterruptedException {
+        if (!permits.tryAcquire(ACQUIRE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            return 0;
+        }
+        int acquired = 1;
+        while (acquired < wanted && permits.tryAcquire()) {
+            acquired++;
+        }
+        return acquired;
+    }
+
+    public void release(int count) {
+        if (count > 0) {
+            permits.release(count);
+        }
+    }
+
+    private static int poolSize(DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+            }
+        } catch (SQLException e) {
+            // не Hikari — берём размер по умолчанию
+        }
+        return DEFAULT_POOL_SIZE;
+    }
+}
@@ -0,0 +1,134 @@
+package systems.project.services.imports;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import systems.project.configuratons.AsyncConfiguration;
+import systems.project.exceptions.InvalidDataException;
+import systems.project.models.ImportFileLog;
+import systems.project.models.ImportStatus;
+import systems.project.models.api.ImportLogEntry;
+import systems.project.models.api.ImportResult;
+import systems.project.models.api.UploadSession;
+import systems.project.services.core.TicketEventService;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Logger;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+
+/**
+ * Фоновые импорты: загрузка только сохраняет файл и заводит запись журнала,
+ * а сами записи обрабатываются в пуле импорта, чья ёмкость и ограничивает
+ * число одновременных задач. Прогресс доступен через журнал и SSE.
+ */
+@Service
+public class ImportJobService {
+
+    private final TicketImportCoordinator coordinator;
+    private final ImportLogService logService;
+    private final TicketEventService events;
+    private final AsyncTaskExecutor importExecutor;
+    private final Logger logger;
+
+    public ImportJobService(TicketImportCoordinator coordinator,
+                            ImportLogService logService,
+                            TicketEventService events,
+                            @Qualifier(AsyncConfiguration.IMPORT_EXECUTOR) AsyncTaskExecutor importExecutor,
+                            Logger logger) {
+        this.coordinator = coordinator;
+        this.logService = logService;
+        this.events = events;
+        this.importExecutor = importExecutor;
+        this.logger = logger;
+    }
+
+    /**
+     * @param idempotent уже успешно импортированный файл не ставится в очередь:
+     *                   возвращается прежняя запись журнала
+     */
+    @Async
+    public CompletableFuture<ImportLogEntry> submit(MultipartFile file, Integer chunkSize, boolean idempotent) {
+        ImportFileLog logEntry;
+        try {
+            logEntry = coordinator.submitJob(file, chunkSize, idempotent);
+        } catch (InvalidDataException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        Long logId = logEntry.getId();
+        if (logEntry.getStatus() == ImportStatus.SUCCESS) {
+            return completedFuture(logService.get(logId));
+        }
+        return schedule(logId);
+    }
+
+    /**
+     * Выдаёт ссылку для загрузки файла прямо в хранилище, минуя сервер.
+     */
+    public UploadSession openUpload(String filename, String contentType, Integer chunkSize)
+            throws InvalidDataException {
+        return coordinator.openUpload(filename, contentType, chunkSize);
+    }
+
+    /**
+     * Клиент загрузил файл по ссылке из {@link #openUpload(String, String, Integer)}:
+     * импорт ставится в очередь, как и файл, присланный через {@link #submit}.
+     */
+    @Async
+    public CompletableFuture<ImportLogEntry> completeUpload(Long logId) {
+        try {
+            coordinator.completeUpload(logId);
+        } catch (InvalidDataException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return schedule(logId);
+    }
+
+    /**
+     * Повторный импорт файла записи {@code logId} из хранилища в фоновой очереди.
+     */
+    @Async
+    public CompletableFuture<ImportLogEntry> rerun(Long logId, Integer chunkSize, boolean onlyFailed) {
+        ImportFileLog logEntry;
+        try {
+            logEntry = coordinator.submitRerun(logId, chunkSize, onlyFailed);
+        } catch (InvalidDataException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return schedule(logEntry.getId());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void failInterruptedJobs() {
+        int interrupted = coordinator.failInterrupted();
+        if (interrupted > 0) {
+            logger.warning("Import jobs interrupted by restart, marked FAILED: " + interrupted);
+        }
+    }
+
+    private CompletableFuture<ImportLogEntry> schedule(Long logId) {
+        try {
+            importExecutor.execute(() -> run(logId));
+        } catch (RejectedExecutionException e) {
+            coordinator.abandonJob(logId, "Очередь импорта переполнена, повторите позже");
+            return CompletableFuture.failedFuture(e);
+        }
+        return completedFuture(logService.get(logId));
+    }
+
+    private void run(Long logId) {
+        try {
+            ImportResult result = coordinator.runJob(logId);
+            logger.info("Import job #" + logId + " finished: " + result.getImported() + " tickets");
+        } catch (InvalidDataException | RuntimeException e) {
+            logger.warning("Import job #" + logId + " failed: " + e.getMessage());
+        } finally {
+            events.publishChange("bulk-import", null);
+        }
+    }
+}
@@ -1,27 +1,49 @@
 package systems.project.services.imports;
 
 import org.springframework.stereotype.Component;
-import systems.project.models.ImportFileLog;
 import systems.project.models.api.ImportLogEntry;
+import systems.project.models.views.ImportLogSummary;
 
 @Component
 public class ImportLogMapper {
 
-    public ImportLogEntry toDto(ImportFileLog entity) {
+    private final ImportProgressService progressService;
+
+    public ImportLogMapper(ImportProgressService progressService) {
+        this.progressService = progressService;
+    }
+
+    /**
+     * Запись журнала без id билетов — их отдаёт отдельный постраничный запрос
+     * {@code /import/logs/{id}/tickets}.
+     */
+    public ImportLogEntry toSummary(ImportLogSummary summary) {
         return ImportLogEntry.builder()
-                .id(entity.getId())
-                .filename(entity.getOriginalFilename())
-                .storageKey(entity.getStorageKey())
-                .contentType(entity.getContentType())
-                .size(entity.getSize())
-                .status(entity.getStatus())
-                .requested(entity.getRequested())
-                .imported(entity.getImported())
-                .errorMessage(entity.getErrorMessage())
-                .createdAt(entity.getCreatedAt())
-                .completedAt(entity.getCompletedAt())
-                .ticketIds(entity.getTicketIds() == null ? null : entity.getTicketIds().stream().toList())
-                .downloadPath("/import/logs/" + entity.getId() + "/file")
+                .id(summary.id())
+                .filename(summary.originalFilename())
+                .storageKey(summary.storageKey())
+                .contentType(summary.contentType())
+                .size(summary.size())
+                .contentEncoding(summary.contentEncoding())
+                .originalSize(summary.originalSize())
+                .contentHash(summary.contentHash())
+                .status(summary.status())
+                .requested(summary.requested())
+                .imported(summary.imported())
+                .chunkSize(summary.chunkSize())
+                .committedPosition(summary.committedPosition())
+                .partitions(summary.partitions())
+                .committedPartitions(summary.committedPartitions())
+                .compensated(summary.compensated())
+                .rerunOf(summary.rerunOf())
+                .parseMillis(summary.parseMillis())
+                .validateMillis(summary.validateMillis())
+                .writeMillis(summary.writeMillis())
+                .errorMessage(summary.errorMessage())
+                .createdAt(summary.createdAt())
+                .completedAt(summary.completedAt())
+                .progress(progressService.snapshot(summary.id()))
+                .downloadPath("/import/logs/" + summary.id() + "/file")
                 .build();
     }
 }
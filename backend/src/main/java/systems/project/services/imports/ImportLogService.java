@@ -1,12 +1,21 @@
 package systems.project.services.imports;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import systems.project.exceptions.InvalidDataException;
 import systems.project.exceptions.ResourceNotFoundException;
+import systems.project.models.ImportStatus;
 import systems.project.models.api.ImportLogEntry;
+import systems.project.models.envelopes.ImportLogPageEnvelope;
+import systems.project.models.envelopes.ImportTicketIdsEnvelope;
+import systems.project.models.views.ImportLogSummary;
 import systems.project.repositories.ImportFileLogRepository;
-import systems.project.models.ImportFileLog;
+import systems.project.models.TicketIdRuns;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -14,6 +23,13 @@ import java.util.stream.Collectors;
 @Transactional(readOnly = true)
 public class ImportLogService {
 
+    private static final int DEFAULT_PAGE_LIMIT = 50;
+    private static final int MAX_PAGE_LIMIT = 500;
+    private static final int DEFAULT_IDS_LIMIT = 1000;
+    private static final int MAX_IDS_LIMIT = 10_000;
+    private static final String LOG_CURSOR_PREFIX = "log:";
+    private static final String IDS_CURSOR_PREFIX = "pos:";
+
     private final ImportFileLogRepository repository;
     private final ImportLogMapper mapper;
 
@@ -23,15 +39,99 @@ public class ImportLogService {
         this.mapper = mapper;
     }
 
-    public List<ImportLogEntry> list() {
-        return repository.findAllByOrderByCreatedAtDesc().stream()
-                .map(mapper::toDto)
-                .collect(Collectors.toList());
+    /**
+     * Keyset-страница журнала от новых записей к старым, без id билетов.
+     * Курсор содержит id последней отданной записи.
+     *
+     * @param from начало периода по времени создания, включительно; null — без ограничения
+     * @param to   конец периода, не включительно; null — без ограничения
+     */
+    public ImportLogPageEnvelope page(ImportStatus status,
+                                      LocalDateTime from,
+                                      LocalDateTime to,
+                                      String after,
+                                      Integer limit) throws InvalidDataException {
+        int pageSize = normalizeLimit(limit, DEFAULT_PAGE_LIMIT, MAX_PAGE_LIMIT);
+        long before = decodeCursor(after, LOG_CURSOR_PREFIX);
+
+        List<ImportLogSummary> fetched = repository.findSummaries(
+                before == 0 ? null : before, status, from, to, Limit.of(pageSize + 1));
+        boolean hasMore = fetched.size() > pageSize;
+        List<ImportLogSummary> page = hasMore ? fetched.subList(0, pageSize) : fetched;
+
+        ImportLogPageEnvelope envelope = new ImportLogPageEnvelope();
+        envelope.setEntries(page.stream().map(mapper::toSummary).collect(Collectors.toList()));
+        envelope.setLimit(pageSize);
+        envelope.setHasMore(hasMore);
+        envelope.setNextCursor(hasMore ? encodeCursor(LOG_CURSOR_PREFIX, page.get(page.size() - 1).id()) : null);
+        return envelope;
+    }
+
+    /**
+     * Страница id билетов, созданных импортом, в порядке записи. Курсор — позиция
+     * в этом порядке: серии id разворачиваются только в пределах страницы.
+     */
+    public ImportTicketIdsEnvelope ticketIds(Long id, String after, Integer limit) throws InvalidDataException {
+        int pageSize = normalizeLimit(limit, DEFAULT_IDS_LIMIT, MAX_IDS_LIMIT);
+        long offset = decodeCursor(after, IDS_CURSOR_PREFIX);
+        int[] runs = repository.findTicketIdRuns(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Запись импорта не найдена"));
+
+        int total = TicketIdRuns.count(runs);
+        List<Integer> ids = TicketIdRuns.slice(runs, offset, pageSize);
+        boolean hasMore = offset + ids.size() < total;
+
+        ImportTicketIdsEnvelope envelope = new ImportTicketIdsEnvelope();
+        envelope.setLogId(id);
+        envelope.setTicketIds(ids);
+        envelope.setTotal(total);
+        envelope.setLimit(pageSize);
+        envelope.setHasMore(hasMore);
+        envelope.setNextCursor(hasMore ? encodeCursor(IDS_CURSOR_PREFIX, offset + ids.size()) : null);
+        return envelope;
     }
 
+    /**
+     * Запись журнала без id билетов: серии даже не читаются из БД, так что
+     * детали и скачивание файла не зависят от размера импорта.
+     */
     public ImportLogEntry get(Long id) {
-        ImportFileLog entity = repository.findById(id)
+        return repository.findSummaryById(id)
+                .map(mapper::toSummary)
                 .orElseThrow(() -> new ResourceNotFoundException("Запись импорта не найдена"));
-        return mapper.toDto(entity);
+    }
+
+    private static int normalizeLimit(Integer limit, int defaultLimit, int maxLimit) throws InvalidDataException {
+        if (limit == null) {
+            return defaultLimit;
+        }
+        if (limit <= 0) {
+            throw new InvalidDataException("limit должно быть > 0");
+        }
+        return Math.min(limit, maxLimit);
+    }
+
+    private static String encodeCursor(String prefix, long value) {
+        byte[] raw = (prefix + value).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    private static long decodeCursor(String cursor, String prefix) throws InvalidDataException {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+            if (!raw.startsWith(prefix)) {
+                throw new InvalidDataException("Некорректный курсор страницы");
+            }
+            long value = Long.parseLong(raw.substring(prefix.length()));
+            if (value < 0) {
+                throw new InvalidDataException("Некорректный курсор страницы");
+            }
+            return value;
+        } catch (IllegalArgumentException e) {
+            throw new InvalidDataException("Некорректный курсор страницы", e);
+        }
     }
 }
@@ -0,0 +1,119 @@
+package systems.project.services.imports;
+
+import systems.project.models.Event;
+import systems.project.models.Person;
+import systems.project.models.Ticket;
+import systems.project.models.Venue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Разбиение записей файла на партиции для параллельной записи. Записи одного
+ * события попадают в одну партицию, поэтому проверки мест и лимита билетов
+ * владельца в разных транзакциях не пересекаются. Так же вместе держатся записи
+ * с одним новым person или venue — иначе каждая партиция создала бы свою копию.
+ */
+public final class ImportPartitions {
+
+    private ImportPartitions() {
+    }
+
+    /**
+     * @return индексы записей каждой партиции по возрастанию; партиций не больше {@code maxPartitions}
+     *         и не больше числа независимых групп записей
+     */
+    public static List<int[]> split(List<Ticket> tickets, int maxPartitions) {
+        int size = tickets.size();
+        int[] parent = new int[size];
+        Arrays.setAll(parent, i -> i);
+        Map<String, Integer> owners = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            for (String key : keys(tickets.get(i))) {
+                Integer owner = owners.putIfAbsent(key, i);
+                if (owner != null) {
+                    union(parent, owner, i);
+                }
+            }
+        }
+
+        Map<Integer, List<Integer>> groups = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            groups.computeIfAbsent(find(parent, i), root -> new ArrayList<>()).add(i);
+        }
+        List<List<Integer>> ordered = new ArrayList<>(groups.values());
+        ordered.sort(Comparator.comparingInt((List<Integer> group) -> group.size()).reversed());
+
+        int partitions = Math.max(1, Math.min(maxPartitions, ordered.size()));
+        List<List<Integer>> buckets = new ArrayList<>();
+        PriorityQueue<Integer> lightest = new PriorityQueue<>(
+                Comparator.comparingInt((Integer bucket) -> buckets.get(bucket).size()).thenComparingInt(b -> b));
+        for (int i = 0; i < partitions; i++) {
+            buckets.add(new ArrayList<>());
+            lightest.add(i);
+        }
+        for (List<Integer> group : ordered) {
+            int bucket = lightest.poll();
+            buckets.get(bucket).addAll(group);
+            lightest.add(bucket);
+        }
+
+        List<int[]> result = new ArrayList<>(partitions);
+        for (List<Integer> bucket : buckets) {
+            int[] indices = bucket.stream().mapToInt(Integer::intValue).sorted().toArray();
+            if (indices.length > 0) {
+                result.add(indices);
+            }
+        }
+        return result;
+    }
+
+    private static List<String> keys(Ticket ticket) {
+        List<String> keys = new ArrayList<>(3);
+        if (ticket == null) {
+            return keys;
+        }
+        Event event = ticket.getEvent();
+        if (event != null) {
+            keys.add(event.getId() != null
+                    ? "event:" + event.getId()
+                    : "new-event:" + trim(event.getName()) + '|' + event.getTicketsCount()
+                            + '|' + event.getEventType());
+        }
+        Person person = ticket.getPerson();
+        if (person != null && person.getId() == null && person.getPassportID() != null) {
+            keys.add("new-person:" + person.getPassportID().trim());
+        }
+        Venue venue = ticket.getVenue();
+        if (venue != null && venue.getId() == null) {
+            keys.add("new-venue:" + trim(venue.getName()) + '|' + venue.getCapacity() + '|' + venue.getType());
+        }
+        return keys;
+    }
+
+    private static String trim(String value) {
+        return value == null ? null : value.trim();
+    }
+
+    private static int find(int[] parent, int index) {
+        int current = index;
+        while (parent[current] != current) {
+            parent[current] = parent[parent[current]];
+            current = parent[current];
+        }
+        return current;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+        if (rootA != rootB) {
+            parent[Math.max(rootA, rootB)] = Math.min(rootA, rootB);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package systems.project.services.imports;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import systems.project.configuratons.AsyncConfiguration;
+import systems.project.models.ImportStatus;
+import systems.project.models.api.ImportProgress;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Logger;
+
+/**
+ * Живой прогресс выполняющихся импортов. Закоммиченная позиция хранится в
+ * журнале, а скорость и ETA считаются здесь, в памяти, и рассылаются
+ * подписчикам SSE после каждого чанка.
+ */
+@Service
+public class ImportProgressService {
+
+    private static final String EVENT_NAME = "import-progress";
+
+    private final Map<Long, Run> runs = new ConcurrentHashMap<>();
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+    private final AsyncTaskExecutor fanOutExecutor;
+    private final Logger logger;
+
+    public ImportProgressService(@Qualifier(AsyncConfiguration.EVENT_FAN_OUT_EXECUTOR) AsyncTaskExecutor fanOutExecutor,
+                                 Logger logger) {
+        this.fanOutExecutor = fanOutExecutor;
+        this.logger = logger;
+    }
+
+    public void start(Long logId, int position, long bytesRead, Long totalBytes) {
+        Run run = new Run(position, bytesRead, totalBytes);
+        runs.put(logId, run);
+        publish(snapshot(logId, run));
+    }
+
+    public void advance(Long logId, int position, long bytesRead) {
+        Run run = runs.get(logId);
+        if (run == null) {
+            return;
+        }
+        run.position = position;
+        run.bytesRead = bytesRead;
+        publish(snapshot(logId, run));
+    }
+
+    public void finish(Long logId, ImportStatus status) {
+        Run run = runs.remove(logId);
+        if (run == null) {
+            return;
+        }
+        run.status = status;
+        publish(snapshot(logId, run));
+    }
+
+    /**
+     * @return текущий прогресс или null, если импорт сейчас не выполняется
+     */
+    public ImportProgress snapshot(Long logId) {
+        Run run = runs.get(logId);
+        return run == null ? null : snapshot(logId, run);
+    }
+
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(0L);
+        emitters.add(emitter);
+
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> {
+            emitters.remove(emitter);
+            emitter.complete();
+        });
+        emitter.onError(ex -> emitters.remove(emitter));
+        try {
+            emitter.send(SseEmitter.event()
+                    .data("connected")
+                    .reconnectTime(3000)
+                    .build());
+        } catch (IOException ignored) { }
+
+        return emitter;
+    }
+
+    private ImportProgress snapshot(Long logId, Run run) {
+        double elapsedSeconds = (System.nanoTime() - run.startedNanos) / 1_000_000_000.0;
+        int position = run.position;
+        long bytesRead = run.bytesRead;
+        double recordsPerSecond = elapsedSeconds > 0 ? (position - run.startPosition) / elapsedSeconds : 0;
+
+        Double percent = null;
+        Long etaSeconds = null;
+        if (run.totalBytes != null && run.totalBytes > 0 && bytesRead >= 0) {
+            percent = Math.min(100.0, bytesRead * 100.0 / run.totalBytes);
+            double bytesPerSecond = elapsedSeconds > 0 ? (bytesRead - run.startBytes) / elapsedSeconds : 0;
+            if (bytesPerSecond > 0) {
+                etaSeconds = Math.max(0L, Math.round((run.totalBytes - bytesRead) / bytesPerSecond));
+            }
+        }
+        return ImportProgress.builder()
+                .logId(logId)
+                .status(run.status)
+                .processed(position)
+                .bytesRead(bytesRead)
+                .totalBytes(run.totalBytes)
+                .percent(percent)
+                .recordsPerSecond(recordsPerSecond)
+                .etaSeconds(etaSeconds)
+                .build();
+    }
+
+    private void publish(ImportProgress progress) {
+        if (emitters.isEmpty()) {
+            return;
+        }
+        try {
+            fanOutExecutor.execute(() -> send(progress));
+        } catch (RejectedExecutionException e) {
+            logger.warning("Import progress skipped, event queue is full: log #" + progress.getLogId());
+        }
+    }
+
+    private void send(ImportProgress progress) {
+        emitters.forEach(em -> {
+            try {
+                em.send(SseEmitter.event()
+                        .name(EVENT_NAME)
+                        .id(progress.getLogId() + ":" + progress.getProcessed())
+                        .data(progress, MediaType.APPLICATION_JSON)
+                        .build());
+            } catch (IOException e) {
+                em.complete();
+                emitters.remove(em);
+            }
+        });
+    }
+
+    private static final class Run {
+        private final long startedNanos = System.nanoTime();
+        private final int startPosition;
+        private final long startBytes;
+        private final Long totalBytes;
+        private volatile int position;
+        private volatile long bytesRead;
+        private volatile ImportStatus status = ImportStatus.RUNNING;
+
+        private Run(int position, long bytesRead, Long totalBytes) {
+            this.startPosition = position;
+            this.startBytes = Math.max(0, bytesRead);
+            this.totalBytes = totalBytes;
+            this.position = position;
+            this.bytesRead = bytesRead;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package systems.project.services.imports;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import systems.project.configuratons.ImportRetentionProperties;
+import systems.project.exceptions.StorageException;
+import systems.project.models.ImportStatus;
+import systems.project.models.api.RetentionReport;
+import systems.project.models.views.ImportLogSummary;
+import systems.project.repositories.ImportFileLogRepository;
+import systems.project.services.storage.StorageService;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+/**
+ * Хранение журнала импорта: завершённые записи старше {@code max-age} или за
+ * пределами {@code keep-last} самых новых удаляются пакетами вместе с файлами.
+ * Файл с тем же содержимым может принадлежать нескольким записям, поэтому
+ * объект удаляется, только когда на его ключ не осталось ни одной ссылки.
+ * Записи сначала помечаются удаляемыми — после этого их файл нельзя взять
+ * повторно, — затем удаляются объекты и только потом сами записи.
+ * Заодно удаляются брошенные временные объекты и неподтверждённые сессии
+ * прямой загрузки.
+ */
+@Service
+public class ImportRetentionService {
+
+    private static final Set<ImportStatus> FINISHED = EnumSet.of(ImportStatus.SUCCESS, ImportStatus.FAILED);
+    private static final LocalDateTime NO_CUTOFF = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final ImportFileLogRepository logRepository;
+    private final StorageService storageService;
+    private final ImportRetentionProperties properties;
+    private final Logger logger;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile RetentionReport lastReport;
+
+    public ImportRetentionService(ImportFileLogRepository logRepository,
+                                  StorageService storageService,
+                                  ImportRetentionProperties properties,
+                                  Logger logger) {
+        this.logRepository = logRepository;
+        this.storageService = storageService;
+        this.properties = properties;
+        this.logger = logger;
+    }
+
+    @Scheduled(initialDelayString = "${app.imports.retention.interval:PT6H}",
+            fixedDelayString = "${app.imports.retention.interval:PT6H}")
+    public void scheduledRun() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            RetentionReport report = run().orElse(null);
+            if (report == null) {
+                logger.info("Import retention skipped: a pass is already running");
+            } else if (report.getDeletedLogs() > 0 || report.getSweptTemporary() > 0) {
+                logger.info("Import retention: deleted " + report.getDeletedLogs() + " logs, removed "
+                        + report.getRemovedObjects() + " objects (" + report.getReclaimedBytes()
+                        + " bytes), swept " + report.getSweptTemporary() + " temporary objects");
+            }
+        } catch (StorageException e) {
+            logger.warning("Import retention failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Один проход очистки. Ручной запуск и расписание не выполняются одновременно:
+     * если проход уже идёт, второй не ждёт его, а сразу возвращает пустой результат.
+     */
+    public Optional<RetentionReport> run() {
+        if (!running.compareAndSet(false, true)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(runPass());
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private RetentionReport runPass() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        long started = System.nanoTime();
+        LocalDateTime cutoff = properties.getMaxAge().isPositive()
+                ? startedAt.minus(properties.getMaxAge())
+                : NO_CUTOFF;
+        long maxId = properties.getKeepLast() > 0
+                ? logRepository.findIdBeyondNewest(properties.getKeepLast()).orElse(0L)
+                : 0L;
+        LocalDateTime uploadCutoff = startedAt.minus(properties.getTempTtl());
+        LocalDateTime reuseCutoff = startedAt.minus(properties.getReuseGrace());
+        int batchSize = Math.max(1, properties.getBatchSize());
+
+        while (true) {
+            List<Long> ids = logRepository.findExpiredIds(FINISHED, cutoff, maxId, uploadCutoff, reuseCutoff,
+                    Limit.of(batchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            logRepository.markExpired(ids, startedAt, reuseCutoff);
+            if (ids.size() < batchSize) {
+                break;
+            }
+        }
+
+        int deletedLogs = 0;
+        int removedObjects = 0;
+        int failedObjects = 0;
+        long reclaimedBytes = 0;
+        long after = 0;
+        while (true) {
+            List<ImportLogSummary> expired = logRepository.findExpiredSummaries(after, Limit.of(batchSize));
+            if (expired.isEmpty()) {
+                break;
+            }
+            after = expired.get(expired.size() - 1).id();
+            Map<String, Long> sizes = new LinkedHashMap<>();
+            for (ImportLogSummary summary : expired) {
+                if (summary.storageKey() != null) {
+                    sizes.putIfAbsent(summary.storageKey(), summary.size() == null ? 0L : summary.size());
+                }
+            }
+            if (!sizes.isEmpty()) {
+                // объект, на который ссылаются живые записи, им и нужен
+                sizes.keySet().removeAll(logRepository.findReferencedKeys(sizes.keySet()));
+            }
+            // сначала объекты, потом записи: запись с неудалённым файлом остаётся
+            // помеченной, и следующий проход повторит удаление
+            Set<String> failed = sizes.isEmpty() ? Set.of() : new HashSet<>(storageService.remove(sizes.keySet()));
+            for (Map.Entry<String, Long> entry : sizes.entrySet()) {
+                if (failed.contains(entry.getKey())) {
+                    failedObjects++;
+                } else {
+                    removedObjects++;
+                    reclaimedBytes += entry.getValue();
+                }
+            }
+            List<Long> forgotten = expired.stream()
+                    .filter(summary -> summary.storageKey() == null || !failed.contains(summary.storageKey()))
+                    .map(ImportLogSummary::id)
+                    .toList();
+            if (!forgotten.isEmpty()) {
+                deletedLogs += logRepository.deleteByIdIn(forgotten);
+            }
+            if (expired.size() < batchSize) {
+                break;
+            }
+        }
+        int swept = storageService.sweepTemporary(properties.getTempTtl());
+
+        RetentionReport report = RetentionReport.builder()
+                .startedAt(startedAt)
+                .durationMillis((System.nanoTime() - started) / 1_000_000)
+                .deletedLogs(deletedLogs)
+                .removedObjects(removedObjects)
+                .failedObjects(failedObjects)
+                .reclaimedBytes(reclaimedBytes)
+                .sweptTemporary(swept)
+                .build();
+        lastReport = report;
+        return report;
+    }
+
+    /** Итог последнего прохода; null, если очистка ещё не запускалась. */
+    public RetentionReport getLastReport() {
+        return lastReport;
+    }
+}
@@ -0,0 +1,124 @@
+package systems.project.services.imports;
+
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectReader;
+import systems.project.exceptions.ImportFormatException;
+import systems.project.models.Ticket;
+
+import java.io.IOException;
+import java.util.NoSuchElementException;
+
+/**
+ * Потоковое чтение массива ticket: каждый элемент десериализуется только при
+ * вызове {@link #next()}, так что в памяти держится одна запись, а не весь файл.
+ */
+final class JsonTicketImportReader implements TicketImportReader {
+
+    private final JsonParser json;
+    private final ObjectReader ticketReader;
+    private JsonToken pending;
+    private boolean finished;
+    private int position;
+
+    JsonTicketImportReader(JsonParser json, ObjectReader ticketReader) {
+        this.json = json;
+        this.ticketReader = ticketReader;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (finished) {
+            return false;
+        }
+        if (pending == null) {
+            try {
+                pending = json.nextToken();
+            } catch (IOException e) {
+                finished = true;
+                throw failure(position + 1, e);
+            }
+            if (pending == null || pending == JsonToken.END_ARRAY) {
+                finished = true;
+            }
+        }
+        return !finished;
+    }
+
+    @Override
+    public Ticket next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        JsonToken token = pending;
+        pending = null;
+        position++;
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            finished = true;
+            throw new ImportFormatException(prefix(position, json.currentTokenLocation()) + "ожидался объект ticket");
+        }
+        try {
+            return ticketReader.readValue(json);
+        } catch (IOException e) {
+            finished = true;
+            throw failure(position, e);
+        }
+    }
+
+    @Override
+    public int skip(int count) {
+        int skipped = 0;
+        while (skipped < count && hasNext()) {
+            pending = null;
+            position++;
+            try {
+                json.skipChildren();
+            } catch (IOException e) {
+                finished = true;
+                throw failure(position, e);
+            }
+            skipped++;
+        }
+        return skipped;
+    }
+
+    @Override
+    public long getBytesRead() {
+        return json.currentLocation().getByteOffset();
+    }
+
+    @Override
+    public int getPosition() {
+        return position;
+    }
+
+    @Override
+    public void close() {
+        try {
+            json.close();
+        } catch (IOException ignored) {
+            // источник уже прочитан или оборван, закрывать нечего
+        }
+    }
+
+    private ImportFormatException failure(int record, IOException e) {
+        if (e instanceof JsonProcessingException processing) {
+            return new ImportFormatException(
+                    prefix(record, processing.getLocation()) + processing.getOriginalMessage(), e);
+        }
+        return new ImportFormatException("Запись #" + record + ": не удалось прочитать файл", e);
+    }
+
+    private String prefix(int record, JsonLocation location) {
+        if (location == null || location.getLineNr() < 1) {
+            return "Запись #" + record + ": ";
+        }
+        return "Запись #" + record + " (строка " + location.getLineNr()
+                + ", столбец " + location.getColumnNr() + "): ";
+    }
+}
@@ -0,0 +1,122 @@
+package systems.project.services.imports;
+
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectReader;
+import systems.project.exceptions.ImportFormatException;
+import systems.project.models.Ticket;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+
+/**
+ * Построчное чтение NDJSON/JSON Lines: одна строка — один объект ticket,
+ * пустые строки пропускаются. Номер строки в ошибках — строка файла.
+ */
+final class NdjsonTicketImportReader implements TicketImportReader {
+
+    static final String BOM = "\uFEFF";
+
+    private final CountingInputStream source;
+    private final BufferedReader lines;
+    private final ObjectReader ticketReader;
+    private String pending;
+    private int pendingLine;
+    private int lineNr;
+    private boolean finished;
+    private int position;
+
+    NdjsonTicketImportReader(InputStream payload, ObjectReader ticketReader) {
+        this.source = new CountingInputStream(payload);
+        this.lines = new BufferedReader(new InputStreamReader(source, StandardCharsets.UTF_8));
+        // несколько объектов в одной строке — ошибка, а не молча потерянные записи
+        this.ticketReader = ticketReader.with(DeserializationFeature.FAIL_ON_TRAILING_TOKENS);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (finished) {
+            return false;
+        }
+        while (pending == null) {
+            String line;
+            try {
+                line = lines.readLine();
+            } catch (IOException e) {
+                finished = true;
+                throw new ImportFormatException("Запись #" + (position + 1) + ": не удалось прочитать файл", e);
+            }
+            if (line == null) {
+                finished = true;
+                return false;
+            }
+            lineNr++;
+            if (lineNr == 1 && line.startsWith(BOM)) {
+                line = line.substring(BOM.length());
+            }
+            if (!line.isBlank()) {
+                pending = line;
+                pendingLine = lineNr;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Ticket next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        String line = pending;
+        pending = null;
+        position++;
+        try {
+            return ticketReader.readValue(line);
+        } catch (JsonProcessingException e) {
+            finished = true;
+            throw new ImportFormatException(prefix(e.getLocation()) + e.getOriginalMessage(), e);
+        }
+    }
+
+    @Override
+    public int skip(int count) {
+        int skipped = 0;
+        while (skipped < count && hasNext()) {
+            pending = null;
+            position++;
+            skipped++;
+        }
+        return skipped;
+    }
+
+    @Override
+    public long getBytesRead() {
+        return source.getCount();
+    }
+
+    @Override
+    public int getPosition() {
+        return position;
+    }
+
+    @Override
+    public void close() {
+        try {
+            lines.close();
+        } catch (IOException ignored) {
+            // источник уже прочитан или оборван, закрывать нечего
+        }
+    }
+
+    private String prefix(JsonLocation location) {
+        if (location == null || location.getColumnNr() < 1) {
+            return "Запись #" + position + " (строка " + pendingLine + "): ";
+        }
+        return "Запись #" + position + " (строка " + pendingLine + ", столбец " + location.getColumnNr() + "): ";
+    }
+}
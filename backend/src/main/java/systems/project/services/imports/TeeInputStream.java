@@ -0,0 +1,90 @@
+package systems.project.services.imports;
+
+import systems.project.models.storage.StreamingUpload;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Отдаёт загрузку парсеру и одновременно пишет каждый прочитанный байт в
+ * хранилище, так что файл читается с диска/сети один раз и не копится в памяти.
+ * При закрытии дочитывает хвост, который парсер мог не запросить (или не успел
+ * из-за ошибки формата): в хранилище всегда попадает файл целиком, и упавший
+ * импорт можно продолжить. Ошибка чтения источника обрывает загрузку, чтобы
+ * усечённый файл не был сохранён.
+ */
+final class TeeInputStream extends FilterInputStream {
+
+    private static final int DRAIN_BUFFER = 64 * 1024;
+
+    private final StreamingUpload upload;
+    private boolean closed;
+
+    TeeInputStream(InputStream source, StreamingUpload upload) {
+        super(source);
+        this.upload = upload;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        int read = read(single, 0, 1);
+        return read < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int read;
+        try {
+            read = super.read(buffer, offset, length);
+        } catch (IOException e) {
+            upload.abort(e);
+            throw e;
+        }
+        if (read > 0) {
+            upload.write(buffer, offset, read);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        // пропущенные байты тоже должны попасть в хранилище
+        byte[] buffer = new byte[(int) Math.min(n, DRAIN_BUFFER)];
+        long skipped = 0;
+        while (skipped < n) {
+            int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+            if (read < 0) {
+                break;
+            }
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            byte[] buffer = new byte[DRAIN_BUFFER];
+            while (read(buffer, 0, buffer.length) >= 0) {
+                // дочитываем хвост в хранилище
+            }
+            upload.finish();
+        } catch (IOException e) {
+            // источник оборван — загрузка уже прервана; хранилище упало — узнаем при commit
+            upload.abort(e);
+        } finally {
+            super.close();
+        }
+    }
+}
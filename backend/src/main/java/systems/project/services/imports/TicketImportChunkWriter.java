@@ -0,0 +1,101 @@
+package systems.project.services.imports;
+
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+import systems.project.exceptions.InvalidDataException;
+import systems.project.exceptions.ResourceNotFoundException;
+import systems.project.models.ImportFileLog;
+import systems.project.models.ImportStatus;
+import systems.project.models.Ticket;
+import systems.project.models.api.ImportResult;
+import systems.project.repositories.ImportFileLogRepository;
+import systems.project.services.command.TicketCommandService;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Транзакционные шаги поэтапного импорта. Каждый чанк коммитится вместе с
+ * checkpoint в {@link ImportFileLog}, поэтому после сбоя позиция в журнале
+ * точно соответствует тому, что уже записано в БД.
+ */
+@Service
+public class TicketImportChunkWriter {
+
+    private final TicketCommandService ticketCommandService;
+    private final ImportFileLogRepository logRepository;
+    private final EntityManager entityManager;
+
+    public TicketImportChunkWriter(TicketCommandService ticketCommandService,
+                                   ImportFileLogRepository logRepository,
+                                   EntityManager entityManager) {
+        this.ticketCommandService = ticketCommandService;
+        this.logRepository = logRepository;
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * @param parseMillis время разбора записей чанка; вместе с временем проверки и записи
+     *                    накапливается в журнале
+     * @return новая закоммиченная позиция (номер последней записи чанка)
+     */
+    @Transactional(isolation = Isolation.REPEATABLE_READ, rollbackFor = InvalidDataException.class)
+    public int write(Long logId, List<Ticket> chunk, int firstPosition, long parseMillis)
+            throws InvalidDataException {
+        ImportResult result = ticketCommandService.importTickets(chunk, firstPosition);
+        entityManager.clear();
+
+        ImportFileLog logEntry = find(logId);
+        int committed = firstPosition + chunk.size() - 1;
+        logEntry.setCommittedPosition(committed);
+        logEntry.setImported(valueOrZero(logEntry.getImported()) + result.getImported());
+        logEntry.appendTicketIds(result.getTicketIds());
+        logEntry.setParseMillis(sum(logEntry.getParseMillis(), parseMillis));
+        logEntry.setValidateMillis(sum(logEntry.getValidateMillis(), result.getValidateMillis()));
+        logEntry.setWriteMillis(sum(logEntry.getWriteMillis(), result.getWriteMillis()));
+        logRepository.save(logEntry);
+        return committed;
+    }
+
+    @Transactional
+    public ImportResult complete(Long logId) {
+        ImportFileLog logEntry = find(logId);
+        logEntry.setStatus(ImportStatus.SUCCESS);
+        logEntry.setRequested(valueOrZero(logEntry.getCommittedPosition()));
+        logEntry.setCompletedAt(LocalDateTime.now());
+        logRepository.save(logEntry);
+
+        return ImportResult.builder()
+                .requested(logEntry.getRequested())
+                .imported(valueOrZero(logEntry.getImported()))
+                .ticketIds(logEntry.getTicketIds())
+                .logId(logEntry.getId())
+                .storageKey(logEntry.getStorageKey())
+                .filename(logEntry.getOriginalFilename())
+                .build();
+    }
+
+    @Transactional
+    public void fail(Long logId, String message) {
+        ImportFileLog logEntry = find(logId);
+        logEntry.setStatus(ImportStatus.FAILED);
+        logEntry.setErrorMessage(message);
+        logEntry.setCompletedAt(LocalDateTime.now());
+        logRepository.save(logEntry);
+    }
+
+    private ImportFileLog find(Long logId) {
+        return logRepository.findById(logId)
+                .orElseThrow(() -> new ResourceNotFoundException("Запись импорта не найдена"));
+    }
+
+    private long sum(Long total, Long value) {
+        return (total == null ? 0L : total) + (value == null ? 0L : value);
+    }
+
+    private int valueOrZero(Integer value) {
+        return value == null ? 0 : value;
+    }
+}
@@ -1,63 +1,119 @@
 package systems.project.services.imports;
 
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.TransactionSynchronization;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
+import systems.project.configuratons.AsyncConfiguration;
+import systems.project.configuratons.ImportProperties;
+import systems.project.exceptions.ImportFormatException;
 import systems.project.exceptions.InvalidDataException;
+import systems.project.exceptions.ResourceNotFoundException;
 import systems.project.models.ImportFileLog;
 import systems.project.models.ImportStatus;
 import systems.project.models.Ticket;
 import systems.project.models.api.ImportResult;
+import systems.project.models.api.UploadSession;
 import systems.project.models.storage.PreparedObject;
+import systems.project.models.storage.PresignedUpload;
+import systems.project.models.storage.StoredObject;
+import systems.project.models.storage.StreamingUpload;
 import systems.project.repositories.ImportFileLogRepository;
 import systems.project.services.command.TicketCommandService;
-import systems.project.services.storage.MinioStorageService;
+import systems.project.services.storage.ContentEncodings;
+import systems.project.services.storage.ContentHashes;
+import systems.project.services.storage.StorageService;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Service
 public class TicketImportCoordinator {
 
     private final TicketCommandService ticketCommandService;
     private final TicketImportParser parser;
-    private final MinioStorageService storageService;
+    private final StorageService storageService;
     private final ImportFileLogRepository logRepository;
+    private final TicketImportChunkWriter chunkWriter;
+    private final ImportProperties importProperties;
+    private final ImportProgressService progress;
+    private final TicketImportPartitionWriter partitionWriter;
+    private final ImportConnectionBudget connectionBudget;
+    private final AsyncTaskExecutor writerExecutor;
 
     public TicketImportCoordinator(TicketCommandService ticketCommandService,
                                    TicketImportParser parser,
-                                   MinioStorageService storageService,
-                                   ImportFileLogRepository logRepository) {
+                                   StorageService storageService,
+                                   ImportFileLogRepository logRepository,
+                                   TicketImportChunkWriter chunkWriter,
+                                   ImportProperties importProperties,
+                                   ImportProgressService progress,
+                                   TicketImportPartitionWriter partitionWriter,
+                                   ImportConnectionBudget connectionBudget,
+                                   @Qualifier(AsyncConfiguration.IMPORT_WRITER_EXECUTOR)
+                                   AsyncTaskExecutor writerExecutor) {
         this.ticketCommandService = ticketCommandService;
         this.parser = parser;
         this.storageService = storageService;
         this.logRepository = logRepository;
+        this.chunkWriter = chunkWriter;
+        this.importProperties = importProperties;
+        this.progress = progress;
+        this.partitionWriter = partitionWriter;
+        this.connectionBudget = connectionBudget;
+        this.writerExecutor = writerExecutor;
     }
 
+    /**
+     * @param idempotent если файл с тем же SHA-256 уже был успешно импортирован,
+     *                   вернуть прежний результат вместо повторной записи билетов
+     */
     @Transactional(isolation = Isolation.REPEATABLE_READ)
-    public ImportResult importFromFile(MultipartFile multipartFile) throws InvalidDataException {
+    public ImportResult importFromFile(MultipartFile multipartFile,
+                                       boolean idempotent) throws InvalidDataException {
         byte[] bytes = readBytes(multipartFile);
-        List<Ticket> tickets = parser.parse(bytes);
+        String contentHash = ContentHashes.sha256(bytes);
+        if (idempotent) {
+            Optional<ImportResult> previous = replay(contentHash);
+            if (previous.isPresent()) {
+                return previous.get();
+            }
+        }
+        long parseStarted = System.nanoTime();
+        List<Ticket> tickets = parse(multipartFile, bytes);
+        long parseMillis = millisSince(parseStarted);
         if (tickets.isEmpty()) {
             throw new InvalidDataException("Файл не содержит записей ticket");
         }
-        PreparedObject preparedObject = storageService.prepareUpload(
-                multipartFile.getOriginalFilename(),
-                bytes,
-                multipartFile.getContentType());
+        PreparedObject preparedObject = upload(multipartFile, bytes, contentHash);
 
         ImportFileLog logEntry = ImportFileLog.builder()
                 .originalFilename(multipartFile.getOriginalFilename())
                 .storageKey(preparedObject.getFinalKey())
                 .contentType(preparedObject.getContentType())
                 .size(preparedObject.getSize())
+                .contentEncoding(preparedObject.getContentEncoding())
+                .originalSize(preparedObject.getOriginalSize())
+                .contentHash(preparedObject.getContentHash())
                 .status(ImportStatus.PENDING)
                 .requested(tickets.size())
+                .parseMillis(parseMillis)
+                .owner(importProperties.getInstanceId())
                 .createdAt(LocalDateTime.now())
                 .build();
         logRepository.save(logEntry);
@@ -71,6 +127,8 @@ public class TicketImportCoordinator {
                     ? new ArrayList<>()
                     : new ArrayList<>(result.getTicketIds());
             logEntry.setTicketIds(ids);
+            logEntry.setValidateMillis(result.getValidateMillis());
+            logEntry.setWriteMillis(result.getWriteMillis());
             logEntry.setStatus(ImportStatus.SUCCESS);
             logEntry.setCompletedAt(LocalDateTime.now());
             logRepository.save(logEntry);
@@ -88,6 +146,758 @@ public class TicketImportCoordinator {
         }
     }
 
+    /**
+     * Поэтапный импорт: записи читаются потоково и коммитятся чанками, а тот же
+     * поток параллельно уходит в хранилище, так что память не зависит от размера
+     * файла. Объект фиксируется до отметки об успехе, а при ошибке — тоже, чтобы
+     * записанные чанки можно было продолжить через {@link #resume(Long)} с
+     * сохранённой в журнале позиции. Если же сервер остановится посреди файла,
+     * объекта не будет вовсе, и resume скажет об этом. Хеш файла известен только
+     * после чтения, поэтому идемпотентного режима здесь нет; если такой файл уже
+     * хранится, журнал ссылается на прежний объект, а новая копия удаляется.
+     */
+    public ImportResult importFromFileChunked(MultipartFile multipartFile,
+                                              Integer chunkSize) throws InvalidDataException {
+        int size = resolveChunkSize(chunkSize);
+        BufferedInputStream source = new BufferedInputStream(openStream(multipartFile));
+        String sourceEncoding = detectEncoding(source);
+        StreamingUpload upload = storageService.openUpload(
+                multipartFile.getOriginalFilename(),
+                multipartFile.getContentType(),
+                sourceEncoding != null);
+        TeeInputStream tee = new TeeInputStream(source, upload);
+        Long logId = null;
+        try {
+            ImportFileLog logEntry = logRepository.save(ImportFileLog.builder()
+                    .originalFilename(multipartFile.getOriginalFilename())
+                    .storageKey(upload.getFinalKey())
+                    .contentType(upload.getContentType())
+                    .size(multipartFile.getSize())
+                    .contentEncoding(upload.getContentEncoding())
+                    .originalSize(sourceEncoding == null ? multipartFile.getSize() : null)
+                    .status(ImportStatus.RUNNING)
+                    .chunkSize(size)
+                    .committedPosition(0)
+                    .imported(0)
+                    .owner(importProperties.getInstanceId())
+                    .createdAt(LocalDateTime.now())
+                    .build());
+            logId = logEntry.getId();
+            return runChunks(logEntry, 0, tee, sourceEncoding, upload);
+        } catch (InvalidDataException | RuntimeException ex) {
+            keepForResume(logId, tee, upload);
+            throw ex;
+        }
+    }
+
+    /**
+     * Bulk-импорт больших файлов через PostgreSQL COPY. Файл фиксируется в
+     * хранилище сразу, а загрузка идёт отдельной транзакцией, чтобы ошибка COPY
+     * откатила только её, а журнал сохранил исход.
+     */
+    public ImportResult importFromFileBulk(MultipartFile multipartFile,
+                                           boolean idempotent) throws InvalidDataException {
+        byte[] bytes = readBytes(multipartFile);
+        String contentHash = ContentHashes.sha256(bytes);
+        if (idempotent) {
+            Optional<ImportResult> previous = replay(contentHash);
+            if (previous.isPresent()) {
+                return previous.get();
+            }
+        }
+        long parseStarted = System.nanoTime();
+        List<Ticket> tickets = parse(multipartFile, bytes);
+        long parseMillis = millisSince(parseStarted);
+        if (tickets.isEmpty()) {
+            throw new InvalidDataException("Файл не содержит записей ticket");
+        }
+
+        PreparedObject preparedObject = commitUpload(multipartFile, bytes, contentHash);
+        ImportFileLog logEntry = logRepository.save(ImportFileLog.builder()
+                .originalFilename(multipartFile.getOriginalFilename())
+                .storageKey(preparedObject.getFinalKey())
+                .contentType(preparedObject.getContentType())
+                .size(preparedObject.getSize())
+                .contentEncoding(preparedObject.getContentEncoding())
+                .originalSize(preparedObject.getOriginalSize())
+                .contentHash(preparedObject.getContentHash())
+                .status(ImportStatus.RUNNING)
+                .requested(tickets.size())
+                .parseMillis(parseMillis)
+                .owner(importProperties.getInstanceId())
+                .createdAt(LocalDateTime.now())
+                .build());
+
+        try {
+            ImportResult result = ticketCommandService.bulkImportTickets(tickets);
+            logEntry.setImported(result.getImported());
+            logEntry.setTicketIds(new ArrayList<>(result.getTicketIds()));
+            logEntry.setValidateMillis(result.getValidateMillis());
+            logEntry.setWriteMillis(result.getWriteMillis());
+            logEntry.setStatus(ImportStatus.SUCCESS);
+            logEntry.setCompletedAt(LocalDateTime.now());
+            logRepository.save(logEntry);
+
+            result.setLogId(logEntry.getId());
+            result.setStorageKey(logEntry.getStorageKey());
+            result.setFilename(logEntry.getOriginalFilename());
+            return result;
+        } catch (InvalidDataException | RuntimeException ex) {
+            markFailed(logEntry, ex.getMessage());
+            throw ex;
+        }
+    }
+
+    /**
+     * Параллельный импорт: записи разбиваются на партиции по событиям и пишутся
+     * в отдельных транзакциях на нескольких соединениях — не больше, чем позволяет
+     * {@link ImportConnectionBudget}. Результат общий: либо закоммичены все
+     * партиции, либо закоммиченные удаляются компенсацией, а журнал хранит исход.
+     */
+    public ImportResult importFromFileParallel(MultipartFile multipartFile,
+                                               Integer writers,
+                                               boolean idempotent) throws InvalidDataException {
+        int wanted = resolveWriters(writers);
+        byte[] bytes = readBytes(multipartFile);
+        String contentHash = ContentHashes.sha256(bytes);
+        if (idempotent) {
+            Optional<ImportResult> previous = replay(contentHash);
+            if (previous.isPresent()) {
+                return previous.get();
+            }
+        }
+        long parseStarted = System.nanoTime();
+        List<Ticket> tickets = parse(multipartFile, bytes);
+        long parseMillis = millisSince(parseStarted);
+        if (tickets.isEmpty()) {
+            throw new InvalidDataException("Файл не содержит записей ticket");
+        }
+
+        List<int[]> partitions = ImportPartitions.split(tickets, wanted);
+        int permits = acquireConnections(partitions.size());
+        try {
+            if (permits < partitions.size()) {
+                partitions = ImportPartitions.split(tickets, permits);
+            }
+            PreparedObject preparedObject = commitUpload(multipartFile, bytes, contentHash);
+            ImportFileLog logEntry = logRepository.save(ImportFileLog.builder()
+                    .originalFilename(multipartFile.getOriginalFilename())
+                    .storageKey(preparedObject.getFinalKey())
+                    .contentType(preparedObject.getContentType())
+                    .size(preparedObject.getSize())
+                    .contentEncoding(preparedObject.getContentEncoding())
+                    .originalSize(preparedObject.getOriginalSize())
+                    .contentHash(preparedObject.getContentHash())
+                    .status(ImportStatus.RUNNING)
+                    .requested(tickets.size())
+                    .imported(0)
+                    .partitions(partitions.size())
+                    .committedPartitions(0)
+                    .parseMillis(parseMillis)
+                    .owner(importProperties.getInstanceId())
+                    .createdAt(LocalDateTime.now())
+                    .build());
+            return runPartitions(logEntry, tickets, partitions);
+        } finally {
+            connectionBudget.release(permits);
+        }
+    }
+
+    /**
+     * Первая половина фонового импорта: файл фиксируется в хранилище и
+     * заводится запись журнала в статусе PENDING. Сами записи обрабатывает
+     * {@link #runJob(Long)} в пуле импорта. В идемпотентном режиме для уже
+     * успешно импортированного файла возвращается прежняя запись журнала.
+     */
+    public ImportFileLog submitJob(MultipartFile multipartFile,
+                                   Integer chunkSize,
+                                   boolean idempotent) throws InvalidDataException {
+        int size = resolveChunkSize(chunkSize);
+        PreparedObject uploaded = storageService.prepareUpload(
+                multipartFile.getOriginalFilename(),
+                openStream(multipartFile),
+                multipartFile.getSize(),
+                multipartFile.getContentType());
+        String contentHash = uploaded.getContentHash();
+        if (idempotent) {
+            Optional<ImportFileLog> previous = logRepository
+                    .findFirstByContentHashAndStatusOrderByIdDesc(contentHash, ImportStatus.SUCCESS);
+            if (previous.isPresent()) {
+                uploaded.rollback();
+                return previous.get();
+            }
+        }
+        PreparedObject preparedObject = findStored(contentHash).orElse(null);
+        if (preparedObject == null) {
+            uploaded.commit();
+            preparedObject = uploaded;
+        } else {
+            uploaded.rollback();
+        }
+        return logRepository.save(ImportFileLog.builder()
+                .originalFilename(multipartFile.getOriginalFilename())
+                .storageKey(preparedObject.getFinalKey())
+                .contentType(preparedObject.getContentType())
+                .size(preparedObject.getSize())
+                .contentEncoding(preparedObject.getContentEncoding())
+                .originalSize(preparedObject.getOriginalSize())
+                .contentHash(preparedObject.getContentHash())
+                .status(ImportStatus.PENDING)
+                .chunkSize(size)
+                .committedPosition(0)
+                .imported(0)
+                .owner(importProperties.getInstanceId())
+                .createdAt(LocalDateTime.now())
+                .build());
+    }
+
+    /**
+     * Сессия прямой загрузки: клиент кладёт файл в хранилище по выданной ссылке,
+     * минуя сервер, и подтверждает загрузку через {@link #completeUpload(Long)}.
+     * До тех пор запись журнала остаётся в статусе UPLOADING.
+     */
+    public UploadSession openUpload(String filename,
+                                    String contentType,
+                                    Integer chunkSize) throws InvalidDataException {
+        if (filename == null || filename.isBlank()) {
+            throw new InvalidDataException("Не указано имя файла");
+        }
+        int size = resolveChunkSize(chunkSize);
+        PresignedUpload presigned = storageService.presignUpload(filename, contentType);
+        ImportFileLog logEntry = logRepository.save(ImportFileLog.builder()
+                .originalFilename(filename)
+                .storageKey(presigned.getKey())
+                .contentType(presigned.getContentType())
+                .status(ImportStatus.UPLOADING)
+                .chunkSize(size)
+                .committedPosition(0)
+                .imported(0)
+                .owner(importProperties.getInstanceId())
+                .createdAt(LocalDateTime.now())
+                .build());
+        return UploadSession.builder()
+                .logId(logEntry.getId())
+                .uploadUrl(presigned.getUrl())
+                .method("PUT")
+                .expiresAt(presigned.getExpiresAt())
+                .completePath("/tickets/import/uploads/" + logEntry.getId() + "/complete")
+                .maxSize(importProperties.getMaxUploadSize().toBytes())
+                .build();
+    }
+
+    /**
+     * Файл загружен клиентом: объект переносится на постоянный ключ внутри
+     * хранилища, а запись журнала переходит в PENDING для {@link #runJob(Long)}.
+     * Хеш такого файла не считается — для этого его пришлось бы прочитать
+     * целиком, — поэтому ни идемпотентного режима, ни дедупликации здесь нет.
+     * Ссылка не ограничивает размер, так что слишком большой файл удаляется
+     * здесь, а запись журнала завершается ошибкой.
+     */
+    public void completeUpload(Long logId) throws InvalidDataException {
+        ImportFileLog logEntry = logRepository.findById(logId)
+                .orElseThrow(() -> new ResourceNotFoundException("Запись импорта не найдена"));
+        if (logEntry.getStatus() != ImportStatus.UPLOADING) {
+            throw new InvalidDataException("Загрузка #" + logId + " уже подтверждена");
+        }
+        PreparedObject uploaded = storageService.adoptUpload(logEntry.getStorageKey(), logEntry.getContentType())
+                .orElseThrow(() -> new InvalidDataException("Файл ещё не загружен по выданной ссылке"));
+        if (uploaded.getSize() == 0) {
+            throw new InvalidDataException("Файл пуст");
+        }
+        if (uploaded.getSize() > importProperties.getMaxUploadSize().toBytes()) {
+            String message = "Файл больше " + importProperties.getMaxUploadSize().toMegabytes()
+                    + " МБ: загрузка отклонена";
+            uploaded.rollback();
+            // объекта больше нет: запись не должна на него ссылаться
+            logRepository.updateStoredObject(logId, null, null, null, null, null);
+            chunkWriter.fail(logId, message);
+            throw new InvalidDataException(message);
+        }
+        if (!transition(logId, ImportStatus.UPLOADING, ImportStatus.PENDING)) {
+            throw new InvalidDataException("Загрузка #" + logId + " уже подтверждена");
+        }
+        try {
+            uploaded.commit();
+        } catch (RuntimeException e) {
+            // загрузку можно будет подтвердить ещё раз
+            transition(logId, ImportStatus.PENDING, ImportStatus.UPLOADING);
+            throw e;
+        }
+        logRepository.updateStoredObject(logId, uploaded.getFinalKey(), uploaded.getSize(),
+                uploaded.getOriginalSize(), uploaded.getContentEncoding(), null);
+    }
+
+    /**
+     * Повторный импорт файла прежнего импорта прямо из хранилища: новая запись
+     * журнала ссылается на исходную и тот же объект и выполняется в фоне
+     * через {@link #runJob(Long)}, поэтому файл не гоняется через клиента.
+     *
+     * @param onlyFailed пропустить записи, которые исходный импорт успел закоммитить,
+     *                   и импортировать только остальные
+     */
+    public ImportFileLog submitRerun(Long logId,
+                                     Integer chunkSize,
+                                     boolean onlyFailed) throws InvalidDataException {
+        ImportFileLog source = findLive(logId);
+        if (source.getStatus() != ImportStatus.SUCCESS && source.getStatus() != ImportStatus.FAILED) {
+            throw new InvalidDataException("Импорт #" + logId + " ещё не завершён");
+        }
+        int skip = onlyFailed ? committedRecords(source) : 0;
+        if (source.getStorageKey() == null) {
+            throw new ResourceNotFoundException(notStored(logId));
+        }
+        claimStoredFile(source);
+        if (!storageService.exists(source.getStorageKey())) {
+            throw new ResourceNotFoundException(notStored(logId));
+        }
+        return logRepository.save(ImportFileLog.builder()
+                .originalFilename(source.getOriginalFilename())
+                .storageKey(source.getStorageKey())
+                .contentType(source.getContentType())
+                .size(source.getSize())
+                .contentEncoding(source.getContentEncoding())
+                .originalSize(source.getOriginalSize())
+                .contentHash(source.getContentHash())
+                .status(ImportStatus.PENDING)
+                .chunkSize(resolveChunkSize(chunkSize))
+                .committedPosition(skip)
+                .imported(0)
+                .rerunOf(source.getId())
+                .owner(importProperties.getInstanceId())
+                .createdAt(LocalDateTime.now())
+                .build());
+    }
+
+    public ImportResult runJob(Long logId) throws InvalidDataException {
+        ImportFileLog logEntry = findChunked(logId);
+        if (!transition(logId, ImportStatus.PENDING, ImportStatus.RUNNING)) {
+            throw new InvalidDataException("Импорт #" + logId + " уже выполняется или завершён");
+        }
+        return runStored(logEntry, false);
+    }
+
+    /**
+     * Продолжает упавший поэтапный импорт из сохранённого файла, начиная
+     * с первой незакоммиченной записи.
+     */
+    public ImportResult resume(Long logId) throws InvalidDataException {
+        ImportFileLog logEntry = findChunked(logId);
+        if (logEntry.getStorageKey() == null) {
+            throw new InvalidDataException(notStored(logId));
+        }
+        claimStoredFile(logEntry);
+        if (!transition(logId, ImportStatus.FAILED, ImportStatus.RUNNING)) {
+            throw new InvalidDataException("Продолжить можно только импорт, завершившийся ошибкой");
+        }
+        return runStored(logEntry, true);
+    }
+
+    public void abandonJob(Long logId, String message) {
+        chunkWriter.fail(logId, message);
+    }
+
+    /**
+     * Помечает прерванными импорты этого экземпляра, оставшиеся в PENDING/RUNNING
+     * после его остановки: поэтапные можно продолжить через {@link #resume(Long)}.
+     * Импорты других экземпляров не трогаются — они, возможно, ещё идут. Журнал
+     * однотранзакционного импорта в этих статусах не виден — он коммитится
+     * уже с итогом.
+     */
+    public int failInterrupted() {
+        return logRepository.failUnfinished(ImportStatus.FAILED, "Импорт прерван перезапуском сервера",
+                LocalDateTime.now(), importProperties.getInstanceId());
+    }
+
+    /**
+     * Сколько первых записей файла закоммитил упавший импорт. Поэтапный хранит
+     * позицию; однотранзакционный, bulk и компенсированный параллельный не
+     * оставляют ничего, а у некомпенсированного параллельного (в том числе
+     * прерванного перезапуском) закоммичены партиции вразнобой, и по позиции
+     * их не пропустить.
+     */
+    private static int committedRecords(ImportFileLog source) throws InvalidDataException {
+        if (source.getStatus() != ImportStatus.FAILED) {
+            throw new InvalidDataException("Импорт #" + source.getId() + " завершился успешно, повторять нечего");
+        }
+        if (source.getChunkSize() != null) {
+            return source.getCommittedPosition() == null ? 0 : source.getCommittedPosition();
+        }
+        boolean partitionsLeft = source.getCommittedPartitions() != null && source.getCommittedPartitions() > 0;
+        if (partitionsLeft && !Boolean.TRUE.equals(source.getCompensated())) {
+            throw new InvalidDataException("Партиции импорта #" + source.getId()
+                    + " закоммичены частично: повторите файл целиком или удалите оставшиеся билеты");
+        }
+        return 0;
+    }
+
+    /**
+     * Атомарно переводит запись из {@code from} в {@code to}, закрепляя импорт
+     * за этим экземпляром; false — запись уже не в статусе {@code from}.
+     */
+    private boolean transition(Long logId, ImportStatus from, ImportStatus to) {
+        return logRepository.transitionStatus(logId, from, to, importProperties.getInstanceId()) > 0;
+    }
+
+    /**
+     * Запись журнала, которую очистка ещё не пометила удаляемой: помеченную
+     * повторять и продолжать нельзя — её файл вот-вот будет удалён.
+     */
+    private ImportFileLog findLive(Long logId) {
+        return logRepository.findById(logId)
+                .filter(logEntry -> logEntry.getExpiredAt() == null)
+                .orElseThrow(() -> new ResourceNotFoundException("Запись импорта не найдена"));
+    }
+
+    /**
+     * Закрепляет файл записи за новым запуском так же, как {@link #findStored(String)}:
+     * отметка о повторном использовании не даёт очистке удалить объект. 0 обновлённых
+     * записей — очистка успела пометить запись, и она считается ненайденной.
+     */
+    private void claimStoredFile(ImportFileLog source) {
+        if (logRepository.markReused(source.getStorageKey(), LocalDateTime.now()) == 0) {
+            throw new ResourceNotFoundException("Запись импорта не найдена");
+        }
+    }
+
+    private static String notStored(Long logId) {
+        return "Файл импорта #" + logId + " больше не хранится в хранилище: загрузите его заново";
+    }
+
+    private ImportFileLog findChunked(Long logId) throws InvalidDataException {
+        ImportFileLog logEntry = findLive(logId);
+        if (logEntry.getChunkSize() == null) {
+            throw new InvalidDataException(
+                    "Импорт #" + logId + " выполнялся одной транзакцией и не может быть продолжен");
+        }
+        return logEntry;
+    }
+
+    /**
+     * Потоковая загрузка становится объектом только в конце файла, а чанки
+     * коммитятся раньше: если сервер остановился посреди импорта, объекта нет
+     * и продолжать не из чего — об этом прямо говорит ошибка и журнал. Хеш
+     * такой записи заполняется вместе с объектом, поэтому при продолжении
+     * запись без хеша и без объекта — прерванная потоковая загрузка; в остальных
+     * случаях файл просто больше не хранится.
+     *
+     * @param resumed импорт продолжается после ошибки, а не запускается впервые
+     */
+    private ImportResult runStored(ImportFileLog logEntry, boolean resumed) throws InvalidDataException {
+        int committed = logEntry.getCommittedPosition() == null ? 0 : logEntry.getCommittedPosition();
+        StoredObject stored;
+        try {
+            if (!storageService.exists(logEntry.getStorageKey())) {
+                String message = resumed && logEntry.getContentHash() == null
+                        ? "Файл импорта #" + logEntry.getId() + " не сохранился в хранилище: сервер "
+                                + "остановился до окончания его загрузки. Первые " + committed
+                                + " записей уже импортированы, загрузите файл заново без них"
+                        : notStored(logEntry.getId());
+                chunkWriter.fail(logEntry.getId(), message);
+                throw new InvalidDataException(message);
+            }
+            stored = storageService.load(logEntry.getStorageKey());
+        } catch (RuntimeException e) {
+            chunkWriter.fail(logEntry.getId(), e.getMessage());
+            throw e;
+        }
+        // парсер закрывает поток объекта вместе с reader
+        return runChunks(logEntry, committed, stored.stream(), logEntry.getContentEncoding(), null);
+    }
+
+    /**
+     * @param sourceEncoding сжатие {@code source}: он распаковывается на лету
+     * @param upload         загрузка, которую питает {@code source}; фиксируется перед
+     *                       отметкой об успехе, null — файл уже в хранилище
+     */
+    private ImportResult runChunks(ImportFileLog logEntry,
+                                   int committed,
+                                   InputStream source,
+                                   String sourceEncoding,
+                                   StreamingUpload upload) throws InvalidDataException {
+        Long logId = logEntry.getId();
+        int chunkSize = logEntry.getChunkSize();
+        TicketImportFormat format = TicketImportFormat.detect(
+                logEntry.getContentType(), logEntry.getOriginalFilename());
+        try (TicketImportReader reader = parser.open(decode(source, sourceEncoding), format)) {
+            int position = committed;
+            if (reader.skip(committed) < committed) {
+                throw new InvalidDataException("Файл импорта короче сохранённой позиции " + committed);
+            }
+            progress.start(logId, position, reader.getBytesRead(), logEntry.getOriginalSize());
+            List<Ticket> chunk = new ArrayList<>(chunkSize);
+            long parseNanos = 0;
+            while (true) {
+                long parseStarted = System.nanoTime();
+                Ticket next = reader.hasNext() ? reader.next() : null;
+                parseNanos += System.nanoTime() - parseStarted;
+                if (next != null) {
+                    chunk.add(next);
+                }
+                if (chunk.size() == chunkSize || next == null && !chunk.isEmpty()) {
+                    position = chunkWriter.write(logId, chunk, position + 1, parseNanos / 1_000_000);
+                    progress.advance(logId, position, reader.getBytesRead());
+                    chunk.clear();
+                    parseNanos = 0;
+                }
+                if (next == null) {
+                    break;
+                }
+            }
+            if (upload != null) {
+                // закрытие дочитывает хвост файла в хранилище
+                reader.close();
+                storeStreamed(logId, upload);
+            }
+        } catch (InvalidDataException ex) {
+            fail(logId, ex.getMessage());
+            throw ex;
+        } catch (ImportFormatException ex) {
+            fail(logId, ex.getMessage());
+            throw new InvalidDataException(ex.getMessage(), ex);
+        } catch (RuntimeException ex) {
+            fail(logId, ex.getMessage());
+            throw ex;
+        }
+        ImportResult result = chunkWriter.complete(logId);
+        progress.finish(logId, ImportStatus.SUCCESS);
+        return result;
+    }
+
+    private static TicketImportFormat formatOf(MultipartFile multipartFile) {
+        return TicketImportFormat.detect(multipartFile.getContentType(), multipartFile.getOriginalFilename());
+    }
+
+    private static long millisSince(long startedNanos) {
+        return (System.nanoTime() - startedNanos) / 1_000_000;
+    }
+
+    private PreparedObject commitUpload(MultipartFile multipartFile, byte[] bytes, String contentHash) {
+        PreparedObject preparedObject = upload(multipartFile, bytes, contentHash);
+        preparedObject.commit();
+        return preparedObject;
+    }
+
+    /**
+     * Файл с тем же содержимым уже лежит в хранилище — журнал сошлётся на него,
+     * иначе файл загружается на временный ключ.
+     */
+    private PreparedObject upload(MultipartFile multipartFile, byte[] bytes, String contentHash) {
+        return findStored(contentHash).orElseGet(() -> storageService.prepareUpload(
+                multipartFile.getOriginalFilename(),
+                bytes,
+                multipartFile.getContentType()));
+    }
+
+    private Optional<PreparedObject> findStored(String contentHash) {
+        // отметка о повторном использовании не даёт очистке удалить файл, пока
+        // новая запись на тот же ключ не сохранена
+        return logRepository.findFirstByContentHashOrderByIdDesc(contentHash)
+                .filter(previous -> previous.getStorageKey() != null)
+                .filter(previous -> logRepository.markReused(previous.getStorageKey(), LocalDateTime.now()) > 0)
+                .flatMap(previous -> storageService.reuse(
+                        previous.getStorageKey(),
+                        previous.getSize(),
+                        previous.getOriginalSize(),
+                        previous.getContentType(),
+                        previous.getContentEncoding(),
+                        contentHash));
+    }
+
+    /**
+     * Фиксирует потоковую загрузку и записывает в журнал итоговый объект:
+     * если такой файл уже хранится, новая копия удаляется.
+     */
+    private void storeStreamed(Long logId, StreamingUpload upload) {
+        PreparedObject uploaded = upload.await();
+        PreparedObject stored = findStored(uploaded.getContentHash()).orElse(null);
+        if (stored == null) {
+            stored = upload.commit();
+        } else {
+            upload.discard();
+        }
+        logRepository.updateStoredObject(logId, stored.getFinalKey(), stored.getSize(), stored.getOriginalSize(),
+                stored.getContentEncoding(), stored.getContentHash());
+    }
+
+    /**
+     * Результат последнего успешного импорта того же файла.
+     */
+    private Optional<ImportResult> replay(String contentHash) {
+        return logRepository.findFirstByContentHashAndStatusOrderByIdDesc(contentHash, ImportStatus.SUCCESS)
+                .map(previous -> ImportResult.builder()
+                        .requested(previous.getRequested() == null ? previous.getImported() : previous.getRequested())
+                        .imported(previous.getImported())
+                        .ticketIds(previous.getTicketIds())
+                        .logId(previous.getId())
+                        .storageKey(previous.getStorageKey())
+                        .filename(previous.getOriginalFilename())
+                        .validateMillis(previous.getValidateMillis())
+                        .writeMillis(previous.getWriteMillis())
+                        .replayed(true)
+                        .build());
+    }
+
+    private int acquireConnections(int wanted) throws InvalidDataException {
+        try {
+            int permits = connectionBudget.acquire(wanted);
+            if (permits == 0) {
+                throw new InvalidDataException("Все соединения для импорта заняты, повторите позже");
+            }
+            return permits;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InvalidDataException("Импорт прерван", e);
+        }
+    }
+
+    private ImportResult runPartitions(ImportFileLog logEntry,
+                                       List<Ticket> tickets,
+                                       List<int[]> partitions) throws InvalidDataException {
+        long writeStarted = System.nanoTime();
+        AtomicBoolean aborted = new AtomicBoolean();
+        List<CompletableFuture<ImportResult>> futures = new ArrayList<>(partitions.size());
+        for (int[] indices : partitions) {
+            try {
+                futures.add(CompletableFuture.supplyAsync(
+                        () -> writePartition(logEntry.getId(), tickets, indices, aborted), writerExecutor));
+            } catch (RejectedExecutionException e) {
+                aborted.set(true);
+                futures.add(CompletableFuture.failedFuture(e));
+            }
+        }
+
+        List<ImportResult> committed = new ArrayList<>();
+        Throwable failure = null;
+        for (CompletableFuture<ImportResult> future : futures) {
+            try {
+                ImportResult result = future.join();
+                if (result != null) {
+                    committed.add(result);
+                }
+            } catch (CompletionException e) {
+                if (failure == null) {
+                    failure = e.getCause() != null ? e.getCause() : e;
+                }
+            }
+        }
+
+        List<Integer> ticketIds = new ArrayList<>();
+        long validateMillis = 0;
+        for (ImportResult result : committed) {
+            ticketIds.addAll(result.getTicketIds());
+            validateMillis = Math.max(validateMillis, valueOrZero(result.getValidateMillis()));
+        }
+        Collections.sort(ticketIds);
+        logEntry.setCommittedPartitions(committed.size());
+        logEntry.setValidateMillis(validateMillis);
+        logEntry.setWriteMillis(millisSince(writeStarted));
+        logEntry.setCompletedAt(LocalDateTime.now());
+
+        if (failure == null) {
+            logEntry.setImported(ticketIds.size());
+            logEntry.setTicketIds(ticketIds);
+            logEntry.setStatus(ImportStatus.SUCCESS);
+            logRepository.save(logEntry);
+            return ImportResult.builder()
+                    .requested(tickets.size())
+                    .imported(ticketIds.size())
+                    .ticketIds(ticketIds)
+                    .logId(logEntry.getId())
+                    .storageKey(logEntry.getStorageKey())
+                    .filename(logEntry.getOriginalFilename())
+                    .validateMillis(logEntry.getValidateMillis())
+                    .writeMillis(logEntry.getWriteMillis())
+                    .build();
+        }
+
+        String message = failure.getMessage();
+        try {
+            if (!ticketIds.isEmpty()) {
+                partitionWriter.compensate(ticketIds, tickets);
+            }
+            logEntry.setCompensated(true);
+            logEntry.setImported(0);
+            logEntry.setTicketIds(new ArrayList<>());
+        } catch (RuntimeException e) {
+            logEntry.setCompensated(false);
+            logEntry.setImported(ticketIds.size());
+            logEntry.setTicketIds(ticketIds);
+            message = message + "; откатить закоммиченные партиции не удалось: " + e.getMessage();
+        }
+        markFailed(logEntry, message);
+
+        if (failure instanceof InvalidDataException invalid) {
+            throw invalid;
+        }
+        if (failure instanceof RuntimeException runtime) {
+            throw runtime;
+        }
+        throw new InvalidDataException(message, failure);
+    }
+
+    /**
+     * Пишет одну партицию в собственной транзакции и сразу отмечает её в журнале.
+     * Если другая партиция уже упала, ещё не начатые пропускаются — их всё равно
+     * пришлось бы откатывать.
+     */
+    private ImportResult writePartition(Long logId, List<Ticket> tickets, int[] indices, AtomicBoolean aborted) {
+        if (aborted.get()) {
+            return null;
+        }
+        List<Ticket> records = new ArrayList<>(indices.length);
+        int[] positions = new int[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            records.add(tickets.get(indices[i]));
+            positions[i] = indices[i] + 1;
+        }
+        ImportResult result;
+        try {
+            result = partitionWriter.write(records, positions);
+        } catch (InvalidDataException e) {
+            aborted.set(true);
+            throw new CompletionException(e);
+        } catch (RuntimeException e) {
+            aborted.set(true);
+            throw e;
+        }
+        try {
+            logRepository.recordPartition(logId, result.getTicketIds(), result.getImported());
+        } catch (RuntimeException e) {
+            // партиция уже закоммичена: её билеты попадут в журнал с итогом импорта
+        }
+        return result;
+    }
+
+    private int resolveWriters(Integer requested) throws InvalidDataException {
+        if (requested == null) {
+            return Math.max(1, importProperties.getParallelWriters());
+        }
+        if (requested <= 0) {
+            throw new InvalidDataException("writers должно быть > 0");
+        }
+        // сверху число партиций ограничивает бюджет соединений при захвате
+        return requested;
+    }
+
+    private static long valueOrZero(Long value) {
+        return value == null ? 0L : value;
+    }
+
+    private void fail(Long logId, String message) {
+        chunkWriter.fail(logId, message);
+        progress.finish(logId, ImportStatus.FAILED);
+    }
+
+    private int resolveChunkSize(Integer requested) throws InvalidDataException {
+        if (requested == null) {
+            return importProperties.getChunkSize();
+        }
+        if (requested <= 0) {
+            throw new InvalidDataException("chunkSize должно быть > 0");
+        }
+        return Math.min(requested, importProperties.getMaxChunkSize());
+    }
+
     private void markFailed(ImportFileLog logEntry, String message) {
         logEntry.setStatus(ImportStatus.FAILED);
         logEntry.setErrorMessage(message);
@@ -95,7 +905,65 @@ public class TicketImportCoordinator {
         logRepository.save(logEntry);
     }
 
+    private void keepForResume(Long logId, TeeInputStream tee, StreamingUpload upload) {
+        try {
+            tee.close();
+            if (logId == null) {
+                upload.discard();
+            } else {
+                storeStreamed(logId, upload);
+            }
+        } catch (IOException | RuntimeException e) {
+            upload.discard();
+        }
+    }
+
+    private List<Ticket> parse(MultipartFile multipartFile, byte[] bytes) throws InvalidDataException {
+        TicketImportFormat format = formatOf(multipartFile);
+        if (!ContentEncodings.isGzip(bytes)) {
+            return parser.parse(bytes, format);
+        }
+        return parser.parse(decode(new ByteArrayInputStream(bytes), ContentEncodings.GZIP), format);
+    }
+
+    private String detectEncoding(BufferedInputStream source) throws InvalidDataException {
+        try {
+            return ContentEncodings.isGzip(source) ? ContentEncodings.GZIP : null;
+        } catch (IOException e) {
+            throw new InvalidDataException("Не удалось прочитать файл", e);
+        }
+    }
+
+    private InputStream decode(InputStream source, String encoding) throws InvalidDataException {
+        try {
+            return ContentEncodings.decode(source, encoding);
+        } catch (IOException e) {
+            try {
+                source.close();
+            } catch (IOException ignored) {
+                // поток уже не нужен
+            }
+            throw new InvalidDataException("Не удалось распаковать файл (" + encoding + "): " + e.getMessage(), e);
+        }
+    }
+
+    private InputStream openStream(MultipartFile multipartFile) throws InvalidDataException {
+        if (multipartFile.isEmpty()) {
+            throw new InvalidDataException("Файл пуст");
+        }
+        try {
+            return multipartFile.getInputStream();
+        } catch (IOException e) {
+            throw new InvalidDataException("Не удалось прочитать файл", e);
+        }
+    }
+
     private byte[] readBytes(MultipartFile multipartFile) throws InvalidDataException {
+        long limit = importProperties.getMaxBufferedSize().toBytes();
+        if (multipartFile.getSize() > limit) {
+            throw new InvalidDataException("Файл больше " + importProperties.getMaxBufferedSize().toMegabytes()
+                    + " МБ: используйте поэтапный импорт или фоновую очередь, они читают файл потоком");
+        }
         try {
             byte[] bytes = multipartFile.getBytes();
             if (bytes.length == 0) {
@@ -0,0 +1,45 @@
+package systems.project.services.imports;
+
+import java.util.Locale;
+
+/**
+ * Формат файла импорта. Определяется по Content-Type загрузки, а если он
+ * неинформативен (например, application/octet-stream) — по расширению имени;
+ * у сжатых файлов расширение .gz отбрасывается.
+ */
+public enum TicketImportFormat {
+    JSON,
+    NDJSON,
+    CSV;
+
+    public static TicketImportFormat detect(String contentType, String filename) {
+        if (contentType != null) {
+            String type = contentType.split(";", 2)[0].trim().toLowerCase(Locale.ROOT);
+            switch (type) {
+                case "application/x-ndjson", "application/ndjson", "application/jsonl",
+                     "application/x-jsonlines", "application/jsonlines" -> {
+                    return NDJSON;
+                }
+                case "text/csv", "application/csv" -> {
+                    return CSV;
+                }
+                default -> {
+                    // решает расширение
+                }
+            }
+        }
+        if (filename != null) {
+            String name = filename.trim().toLowerCase(Locale.ROOT);
+            if (name.endsWith(".gz")) {
+                name = name.substring(0, name.length() - ".gz".length());
+            }
+            if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+                return NDJSON;
+            }
+            if (name.endsWith(".csv")) {
+                return CSV;
+            }
+        }
+        return JSON;
+    }
+}
@@ -1,57 +1,149 @@
 package systems.project.services.imports;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.ObjectReader;
 import org.springframework.stereotype.Component;
+import systems.project.exceptions.ImportFormatException;
 import systems.project.exceptions.InvalidDataException;
 import systems.project.models.Ticket;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 @Component
 public class TicketImportParser {
 
-    private static final TypeReference<List<Ticket>> TICKET_LIST = new TypeReference<>() { };
+    private static final Set<String> ARRAY_FIELDS = Set.of("ticketList", "tickets", "data");
 
     private final ObjectMapper objectMapper;
+    private final ObjectReader ticketReader;
 
     public TicketImportParser(ObjectMapper objectMapper) {
         this.objectMapper = objectMapper;
+        this.ticketReader = objectMapper.readerFor(Ticket.class);
     }
 
     public List<Ticket> parse(byte[] payload) throws InvalidDataException {
+        return parse(payload, TicketImportFormat.JSON);
+    }
+
+    public List<Ticket> parse(byte[] payload, TicketImportFormat format) throws InvalidDataException {
+        return parse(new ByteArrayInputStream(payload), format);
+    }
+
+    public List<Ticket> parse(InputStream payload, TicketImportFormat format) throws InvalidDataException {
+        try (TicketImportReader reader = open(payload, format)) {
+            List<Ticket> tickets = new ArrayList<>();
+            reader.forEachRemaining(tickets::add);
+            return tickets;
+        } catch (ImportFormatException e) {
+            throw new InvalidDataException(e.getMessage(), e);
+        }
+    }
+
+    public TicketImportReader open(InputStream payload) throws InvalidDataException {
+        return open(payload, TicketImportFormat.JSON);
+    }
+
+    /**
+     * Открывает потоковое чтение файла в заданном формате и проверяет, что в нём
+     * есть хотя бы одна запись. Поток закрывается вместе с возвращённым reader.
+     */
+    public TicketImportReader open(InputStream payload, TicketImportFormat format) throws InvalidDataException {
+        if (format == TicketImportFormat.JSON) {
+            return openJson(payload);
+        }
+        TicketImportReader reader = null;
+        try {
+            reader = format == TicketImportFormat.CSV
+                    ? new CsvTicketImportReader(payload, ticketReader)
+                    : new NdjsonTicketImportReader(payload, ticketReader);
+            if (!reader.hasNext()) {
+                throw new InvalidDataException("Файл не содержит записей ticket");
+            }
+            return reader;
+        } catch (ImportFormatException e) {
+            closeQuietly(reader, payload);
+            throw new InvalidDataException(e.getMessage(), e);
+        } catch (InvalidDataException e) {
+            closeQuietly(reader, payload);
+            throw e;
+        }
+    }
+
+    /**
+     * Находит массив ticket за один проход: сам корень-массив либо первое
+     * непустое поле ticketList/tickets/data (в том числе во вложенном объекте).
+     * Остальные поля пропускаются без построения дерева.
+     */
+    private TicketImportReader openJson(InputStream payload) throws InvalidDataException {
+        JsonParser json = null;
         try {
-            JsonNode node = objectMapper.readTree(payload);
-            ArrayNode arrayNode = extractArray(node);
-            if (arrayNode == null || arrayNode.isEmpty()) {
+            json = objectMapper.getFactory().createParser(payload);
+            if (!locateArray(json, json.nextToken())) {
+                throw new InvalidDataException("JSON не содержит массив ticket");
+            }
+            TicketImportReader reader = new JsonTicketImportReader(json, ticketReader);
+            if (!reader.hasNext()) {
                 throw new InvalidDataException("JSON не содержит массив ticket");
             }
-            byte[] normalized = objectMapper.writeValueAsBytes(arrayNode);
-            return objectMapper.readValue(normalized, TICKET_LIST);
+            return reader;
         } catch (IOException e) {
+            closeQuietly(json);
             throw new InvalidDataException("Файл не является корректным JSON", e);
+        } catch (ImportFormatException e) {
+            closeQuietly(json);
+            throw new InvalidDataException(e.getMessage(), e);
+        } catch (InvalidDataException e) {
+            closeQuietly(json);
+            throw e;
         }
     }
 
-    private ArrayNode extractArray(JsonNode node) {
-        if (node == null) {
-            return null;
+    private boolean locateArray(JsonParser json, JsonToken token) throws IOException {
+        if (token == JsonToken.START_ARRAY) {
+            return true;
         }
-        if (node.isArray()) {
-            return (ArrayNode) node;
+        if (token != JsonToken.START_OBJECT) {
+            return false;
         }
-        if (node.hasNonNull("ticketList")) {
-            return extractArray(node.get("ticketList"));
+        while (json.nextToken() == JsonToken.FIELD_NAME) {
+            String field = json.currentName();
+            JsonToken value = json.nextToken();
+            if (ARRAY_FIELDS.contains(field) && value != JsonToken.VALUE_NULL) {
+                return locateArray(json, value);
+            }
+            json.skipChildren();
         }
-        if (node.hasNonNull("tickets")) {
-            return extractArray(node.get("tickets"));
+        return false;
+    }
+
+    private void closeQuietly(TicketImportReader reader, InputStream payload) {
+        if (reader != null) {
+            reader.close();
+            return;
         }
-        if (node.hasNonNull("data")) {
-            return extractArray(node.get("data"));
+        try {
+            payload.close();
+        } catch (IOException ignored) {
+            // заголовок CSV не прочитан, поток уже не нужен
+        }
+    }
+
+    private void closeQuietly(JsonParser json) {
+        if (json == null) {
+            return;
+        }
+        try {
+            json.close();
+        } catch (IOException ignored) {
+            // парсер уже в ошибочном состоянии
         }
-        return null;
     }
 }
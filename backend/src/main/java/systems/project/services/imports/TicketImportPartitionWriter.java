@@ -0,0 +1,116 @@
+package systems.project.services.imports;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+import systems.project.exceptions.InvalidDataException;
+import systems.project.models.Event;
+import systems.project.models.Location;
+import systems.project.models.Person;
+import systems.project.models.Ticket;
+import systems.project.models.Venue;
+import systems.project.models.api.ImportResult;
+import systems.project.repositories.EventRepository;
+import systems.project.repositories.LocationRepository;
+import systems.project.repositories.PersonRepository;
+import systems.project.repositories.TicketRepository;
+import systems.project.repositories.VenueRepository;
+import systems.project.services.command.TicketCommandService;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Транзакционные шаги параллельного импорта: каждая партиция пишется в своей
+ * транзакции на своём соединении, а если хотя бы одна партиция упала,
+ * уже закоммиченные откатываются компенсацией.
+ */
+@Service
+public class TicketImportPartitionWriter {
+
+    private final TicketCommandService ticketCommandService;
+    private final TicketRepository ticketRepository;
+    private final PersonRepository personRepository;
+    private final LocationRepository locationRepository;
+    private final EventRepository eventRepository;
+    private final VenueRepository venueRepository;
+
+    public TicketImportPartitionWriter(TicketCommandService ticketCommandService,
+                                       TicketRepository ticketRepository,
+                                       PersonRepository personRepository,
+                                       LocationRepository locationRepository,
+                                       EventRepository eventRepository,
+                                       VenueRepository venueRepository) {
+        this.ticketCommandService = ticketCommandService;
+        this.ticketRepository = ticketRepository;
+        this.personRepository = personRepository;
+        this.locationRepository = locationRepository;
+        this.eventRepository = eventRepository;
+        this.venueRepository = venueRepository;
+    }
+
+    @Transactional(isolation = Isolation.REPEATABLE_READ, rollbackFor = InvalidDataException.class)
+    public ImportResult write(List<Ticket> records, int[] positions) throws InvalidDataException {
+        return ticketCommandService.importTickets(records, positions);
+    }
+
+    /**
+     * Удаляет билеты закоммиченных партиций и созданные вместе с ними person,
+     * location, event и venue. Созданными считаются объекты, на которые файл
+     * не ссылался по id: существующие справочники не трогаются.
+     */
+    @Transactional
+    public void compensate(List<Integer> ticketIds, List<Ticket> records) {
+        Set<Long> referencedPersons = new HashSet<>();
+        Set<Integer> referencedEvents = new HashSet<>();
+        Set<Long> referencedVenues = new HashSet<>();
+        for (Ticket record : records) {
+            if (record == null) {
+                continue;
+            }
+            if (record.getPerson() != null && record.getPerson().getId() != null) {
+                referencedPersons.add(record.getPerson().getId());
+            }
+            if (record.getEvent() != null && record.getEvent().getId() != null) {
+                referencedEvents.add(record.getEvent().getId());
+            }
+            if (record.getVenue() != null && record.getVenue().getId() != null) {
+                referencedVenues.add(record.getVenue().getId());
+            }
+        }
+
+        List<Ticket> tickets = ticketRepository.findByIdIn(ticketIds);
+        // по id, а не по equals: сущности сравниваются Lombok-ом вместе с ленивыми коллекциями
+        Map<Long, Person> persons = new LinkedHashMap<>();
+        Map<Long, Location> locations = new LinkedHashMap<>();
+        Map<Integer, Event> events = new LinkedHashMap<>();
+        Map<Long, Venue> venues = new LinkedHashMap<>();
+        for (Ticket ticket : tickets) {
+            Person person = ticket.getPerson();
+            if (person != null && !referencedPersons.contains(person.getId())) {
+                persons.put(person.getId(), person);
+                if (person.getLocation() != null) {
+                    locations.put(person.getLocation().getId(), person.getLocation());
+                }
+            }
+            Event event = ticket.getEvent();
+            if (event != null && !referencedEvents.contains(event.getId())) {
+                events.put(event.getId(), event);
+            }
+            Venue venue = ticket.getVenue();
+            if (venue != null && !referencedVenues.contains(venue.getId())) {
+                venues.put(venue.getId(), venue);
+            }
+        }
+
+        // порядок удаления соблюдает внешние ключи: билеты, затем их владельцы и справочники
+        ticketRepository.deleteAll(tickets);
+        personRepository.deleteAll(persons.values());
+        locationRepository.deleteAll(locations.values());
+        eventRepository.deleteAll(events.values());
+        venueRepository.deleteAll(venues.values());
+    }
+}
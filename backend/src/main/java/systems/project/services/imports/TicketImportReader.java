@@ -0,0 +1,35 @@
+package systems.project.services.imports;
+
+import systems.project.exceptions.ImportFormatException;
+import systems.project.models.Ticket;
+
+import java.util.Iterator;
+
+/**
+ * Потоковое чтение файла импорта: каждая запись разбирается только при
+ * вызове {@link #next()}, так что в памяти держится одна запись, а не весь файл.
+ * Ошибки формата бросаются как {@link ImportFormatException} с номером записи
+ * и позицией в файле. Реализации по форматам создаёт {@link TicketImportParser}.
+ */
+public interface TicketImportReader extends Iterator<Ticket>, AutoCloseable {
+
+    /**
+     * Пропускает до {@code count} записей без десериализации.
+     *
+     * @return сколько записей действительно пропущено
+     */
+    int skip(int count);
+
+    /**
+     * Сколько байт источника уже разобрано; -1, если вход символьный.
+     */
+    long getBytesRead();
+
+    /**
+     * Номер последней выданной записи, начиная с 1.
+     */
+    int getPosition();
+
+    @Override
+    void close();
+}
@@ -0,0 +1,76 @@
+package systems.project.services.storage;
+
+import org.springframework.http.HttpRange;
+import systems.project.models.storage.ObjectStat;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Докачка объекта хранилища по заголовкам Range и If-Range. Поддерживается
+ * один диапазон; всё остальное отдаётся целиком.
+ */
+public final class ByteRanges {
+
+    private ByteRanges() {
+    }
+
+    /**
+     * Запрошенный диапазон байт или null, если отдавать объект целиком:
+     * Range нет, он некорректен, диапазонов несколько или If-Range не совпал.
+     * Начало за концом объекта не отсекается — на него отвечают 416.
+     *
+     * @param etag ETag ответа в кавычках, с которым сравнивается If-Range
+     */
+    public static Slice requested(String range, String ifRange, String etag, ObjectStat stat) {
+        if (range == null || !stillValid(ifRange, etag, stat)) {
+            return null;
+        }
+        List<HttpRange> ranges;
+        try {
+            ranges = HttpRange.parseRanges(range);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (ranges.size() != 1) {
+            return null;
+        }
+        long size = stat.getSize();
+        long start = ranges.get(0).getRangeStart(size);
+        return new Slice(start, Math.max(start, ranges.get(0).getRangeEnd(size)));
+    }
+
+    /** If-Range: диапазон действует, только если объект не менялся; слабый ETag не подходит. */
+    static boolean stillValid(String ifRange, String etag, ObjectStat stat) {
+        if (ifRange == null) {
+            return true;
+        }
+        String condition = ifRange.trim();
+        if (condition.startsWith("\"") || condition.startsWith("W/")) {
+            return condition.equals(etag);
+        }
+        try {
+            Instant date = ZonedDateTime.parse(condition, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+            return date.equals(stat.getLastModified().truncatedTo(ChronoUnit.SECONDS));
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    /** Байты с {@code start} по {@code end} включительно. */
+    public record Slice(long start, long end) {
+
+        public long length() {
+            return end - start + 1;
+        }
+
+        /** Значение Content-Range для ответа 206. */
+        public String contentRange(long size) {
+            return "bytes " + start + "-" + end + "/" + size;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package systems.project.services.storage;
+
+import systems.project.exceptions.StorageException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Сжатие файлов импорта в хранилище. Кодировка объекта хранится в журнале
+ * ({@code contentEncoding}); null — объект лежит как есть.
+ */
+public final class ContentEncodings {
+
+    public static final String GZIP = "gzip";
+
+    private static final int GZIP_MAGIC_FIRST = 0x1f;
+    private static final int GZIP_MAGIC_SECOND = 0x8b;
+    private static final int DECODE_BUFFER = 64 * 1024;
+
+    private ContentEncodings() {
+    }
+
+    /** Распознаёт gzip по сигнатуре, а не по имени или Content-Type загрузки. */
+    public static boolean isGzip(byte[] content) {
+        return content.length >= 2
+                && (content[0] & 0xFF) == GZIP_MAGIC_FIRST
+                && (content[1] & 0xFF) == GZIP_MAGIC_SECOND;
+    }
+
+    /**
+     * То же для потока; поток должен поддерживать mark/reset и остаётся на прежней позиции.
+     */
+    public static boolean isGzip(InputStream stream) throws IOException {
+        stream.mark(2);
+        try {
+            return stream.read() == GZIP_MAGIC_FIRST && stream.read() == GZIP_MAGIC_SECOND;
+        } finally {
+            stream.reset();
+        }
+    }
+
+    /**
+     * Сжимает файл, который и так целиком в памяти.
+     */
+    static byte[] gzip(byte[] content) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, content.length / 8));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed, DECODE_BUFFER)) {
+            gzip.write(content);
+        } catch (IOException e) {
+            throw new StorageException("Не удалось сжать файл импорта", e);
+        }
+        return compressed.toByteArray();
+    }
+
+    /**
+     * Распаковывает поток объекта на лету.
+     */
+    public static InputStream decode(InputStream stream, String encoding) throws IOException {
+        if (encoding == null) {
+            return stream;
+        }
+        if (GZIP.equals(encoding.toLowerCase(Locale.ROOT))) {
+            return new GZIPInputStream(stream, DECODE_BUFFER);
+        }
+        throw new IOException("Неподдерживаемая кодировка файла: " + encoding);
+    }
+
+    /**
+     * Принимает ли клиент кодировку по заголовку Accept-Encoding; {@code q=0} означает отказ.
+     */
+    public static boolean accepts(String acceptEncoding, String encoding) {
+        if (acceptEncoding == null || encoding == null) {
+            return false;
+        }
+        for (String item : acceptEncoding.split(",")) {
+            String[] parts = item.trim().split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            if (!coding.equals(encoding) && !coding.equals("*")) {
+                continue;
+            }
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.startsWith("q=") && isZero(parameter.substring(2))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean isZero(String quality) {
+        try {
+            return Double.parseDouble(quality) == 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
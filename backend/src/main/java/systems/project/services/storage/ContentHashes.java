@@ -0,0 +1,32 @@
+package systems.project.services.storage;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * SHA-256 содержимого файла импорта в том виде, в каком его прислал клиент.
+ * По нему находятся уже сохранённые объекты и уже выполненные импорты.
+ */
+public final class ContentHashes {
+
+    private ContentHashes() {
+    }
+
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 обязателен для любой реализации JDK
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static String sha256(byte[] content) {
+        return HexFormat.of().formatHex(newDigest().digest(content));
+    }
+
+    public static String hex(MessageDigest digest) {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
@@ -0,0 +1,57 @@
+package systems.project.services.storage;
+
+import systems.project.exceptions.StorageException;
+import systems.project.models.storage.PreparedObject;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.logging.Logger;
+
+/**
+ * Файл в staging-каталоге; фиксация — атомарное переименование на постоянный
+ * путь, поэтому читатели никогда не видят недописанный файл.
+ */
+final class LocalPreparedObject extends PreparedObject {
+
+    private final Path stagingFile;
+    private final Path finalFile;
+    private final Logger logger;
+    private boolean promoted;
+
+    LocalPreparedObject(Path stagingFile,
+                        Path finalFile,
+                        String finalKey,
+                        long size,
+                        Long originalSize,
+                        String contentType,
+                        String contentEncoding,
+                        String contentHash,
+                        Logger logger) {
+        super(finalKey, size, originalSize, contentType, contentEncoding, contentHash);
+        this.stagingFile = stagingFile;
+        this.finalFile = finalFile;
+        this.logger = logger;
+    }
+
+    @Override
+    public void commit() {
+        try {
+            Files.createDirectories(finalFile.getParent());
+            Files.move(stagingFile, finalFile, StandardCopyOption.ATOMIC_MOVE);
+            promoted = true;
+        } catch (IOException e) {
+            throw new StorageException("Не удалось зафиксировать файл импорта", e);
+        }
+    }
+
+    @Override
+    public void rollback() {
+        try {
+            Files.deleteIfExists(promoted ? finalFile : stagingFile);
+        } catch (IOException e) {
+            logger.warning("Не удалось удалить временный файл импорта: " + e.getMessage());
+        }
+    }
+}
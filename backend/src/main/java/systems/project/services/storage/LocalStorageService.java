@@ -0,0 +1,299 @@
+package systems.project.services.storage;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+import systems.project.configuratons.AsyncConfiguration;
+import systems.project.configuratons.LocalStorageProperties;
+import systems.project.exceptions.StorageException;
+import systems.project.models.storage.ObjectStat;
+import systems.project.models.storage.PreparedObject;
+import systems.project.models.storage.PresignedUpload;
+import systems.project.models.storage.StoredObject;
+import systems.project.models.storage.StreamingUpload;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Хранилище в локальной файловой системе — для окружений без MinIO. Файл
+ * пишется в staging-каталог и атомарно переименовывается при фиксации, так что
+ * staging и постоянные файлы должны лежать на одном томе (оба внутри {@code root}).
+ */
+@Service
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "local")
+public class LocalStorageService implements StorageService {
+
+    private static final String STAGING_DIR = ".staging";
+    /** Блоков (по размеру чтения парсера, обычно 8 КБ) в очереди между парсером и записью на диск. */
+    private static final int STREAM_QUEUE_BLOCKS = 128;
+    private static final int COPY_BUFFER = 64 * 1024;
+
+    private final LocalStorageProperties properties;
+    private final Logger logger;
+    private final AsyncTaskExecutor uploadExecutor;
+    private final Path root;
+
+    public LocalStorageService(LocalStorageProperties properties,
+                               Logger logger,
+                               @Qualifier(AsyncConfiguration.STORAGE_UPLOAD_EXECUTOR)
+                               AsyncTaskExecutor uploadExecutor) {
+        this.properties = properties;
+        this.logger = logger;
+        this.uploadExecutor = uploadExecutor;
+        this.root = properties.getRoot().toAbsolutePath().normalize();
+    }
+
+    @Override
+    public PreparedObject prepareUpload(String originalFilename, byte[] content, String contentType) {
+        String finalKey = newKey(originalFilename);
+        String mime = StorageKeys.resolveContentType(contentType);
+        boolean gzipped = ContentEncodings.isGzip(content);
+        boolean compress = !gzipped && properties.isCompress();
+        byte[] stored = compress ? ContentEncodings.gzip(content) : content;
+        Path staging = newStagingFile();
+        try {
+            Files.write(staging, stored);
+        } catch (IOException e) {
+            deleteQuietly(staging);
+            throw new StorageException("Не удалось сохранить файл импорта во временном хранилище", e);
+        }
+        return new LocalPreparedObject(staging, resolve(finalKey), finalKey, stored.length,
+                gzipped ? null : (long) content.length, mime, gzipped || compress ? ContentEncodings.GZIP : null,
+                ContentHashes.sha256(content), logger);
+    }
+
+    @Override
+    public PreparedObject prepareUpload(String originalFilename, InputStream content, long size, String contentType) {
+        String finalKey = newKey(originalFilename);
+        String mime = StorageKeys.resolveContentType(contentType);
+        MessageDigest digest = ContentHashes.newDigest();
+        Path staging = newStagingFile();
+        try (InputStream stream = new BufferedInputStream(new DigestInputStream(content, digest))) {
+            boolean gzipped = ContentEncodings.isGzip(stream);
+            boolean compress = !gzipped && properties.isCompress();
+            write(staging, stream, compress);
+            return new LocalPreparedObject(staging, resolve(finalKey), finalKey, Files.size(staging),
+                    gzipped ? null : size, mime, gzipped || compress ? ContentEncodings.GZIP : null,
+                    ContentHashes.hex(digest), logger);
+        } catch (IOException e) {
+            deleteQuietly(staging);
+            throw new StorageException("Не удалось сохранить файл импорта во временном хранилище", e);
+        }
+    }
+
+    @Override
+    public StreamingUpload openUpload(String originalFilename, String contentType, boolean gzipped) {
+        String finalKey = newKey(originalFilename);
+        String mime = StorageKeys.resolveContentType(contentType);
+        boolean compress = !gzipped && properties.isCompress();
+        String encoding = gzipped || compress ? ContentEncodings.GZIP : null;
+        StreamingUpload upload = new StreamingUpload(finalKey, mime, encoding, compress, STREAM_QUEUE_BLOCKS,
+                ContentHashes.newDigest());
+        Path staging = newStagingFile();
+        upload.attach(CompletableFuture.supplyAsync(() -> {
+            try {
+                // сжатие уже сделал StreamingUpload
+                write(staging, upload.content(), false);
+            } catch (IOException e) {
+                deleteQuietly(staging);
+                throw new StorageException("Не удалось сохранить файл импорта во временном хранилище", e);
+            }
+            return new LocalPreparedObject(staging, resolve(finalKey), finalKey, upload.getStored(),
+                    gzipped ? null : upload.getWritten(), mime, encoding, upload.getContentHash(), logger);
+        }, uploadExecutor));
+        return upload;
+    }
+
+    @Override
+    public Optional<PreparedObject> reuse(String storageKey,
+                                          Long size,
+                                          Long originalSize,
+                                          String contentType,
+                                          String contentEncoding,
+                                          String contentHash) {
+        Path file = resolve(storageKey);
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        try {
+            long storedSize = size == null ? Files.size(file) : size;
+            return Optional.of(PreparedObject.reused(storageKey, storedSize, originalSize, contentType,
+                    contentEncoding, contentHash));
+        } catch (IOException e) {
+            logger.warning("Не удалось проверить файл " + storageKey + ", он будет сохранён заново: "
+                    + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public PresignedUpload presignUpload(String originalFilename, String contentType) {
+        throw new StorageException("Локальное хранилище не выдаёт прямых ссылок: загрузите файл через API импорта");
+    }
+
+    @Override
+    public Optional<PreparedObject> adoptUpload(String uploadKey, String contentType) {
+        throw new StorageException("Локальное хранилище не выдаёт прямых ссылок: загрузите файл через API импорта");
+    }
+
+    /** Файлы отдаёт только сервер приложения. */
+    @Override
+    public Optional<URI> presignDownload(String storageKey,
+                                         String filename,
+                                         String contentType,
+                                         String contentEncoding) {
+        return Optional.empty();
+    }
+
+    @Override
+    public StoredObject load(String storageKey, long offset, Long length) {
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(resolve(storageKey), StandardOpenOption.READ);
+            long end = length == null ? channel.size() : Math.min(channel.size(), offset + length);
+            return new LocalStoredObject(channel, properties.getMapWindow().toBytes(), offset, end);
+        } catch (IOException e) {
+            closeQuietly(channel);
+            throw new StorageException("Файл импорта недоступен", e);
+        }
+    }
+
+    /**
+     * ETag в духе nginx: время изменения и размер. Файл по ключу только
+     * появляется переименованием и удаляется, но не переписывается.
+     */
+    @Override
+    public ObjectStat stat(String storageKey) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(resolve(storageKey), BasicFileAttributes.class);
+            Instant modified = attributes.lastModifiedTime().toInstant();
+            String etag = Long.toHexString(modified.toEpochMilli()) + "-" + Long.toHexString(attributes.size());
+            return new ObjectStat(attributes.size(), etag, modified);
+        } catch (IOException e) {
+            throw new StorageException("Файл импорта недоступен", e);
+        }
+    }
+
+    @Override
+    public boolean exists(String storageKey) {
+        return Files.isRegularFile(resolve(storageKey));
+    }
+
+    @Override
+    public List<String> remove(Collection<String> storageKeys) {
+        List<String> failed = new ArrayList<>();
+        for (String key : storageKeys) {
+            try {
+                Files.deleteIfExists(resolve(key));
+            } catch (IOException | StorageException e) {
+                logger.warning("Не удалось удалить файл " + key + ": " + e.getMessage());
+                failed.add(key);
+            }
+        }
+        return failed;
+    }
+
+    @Override
+    public int sweepPending() {
+        return sweepTemporary(properties.getStagingTtl());
+    }
+
+    /** Незафиксированные файлы лежат в staging-каталоге, так что очистка та же, что и в {@link #sweepPending()}. */
+    @Override
+    public int sweepTemporary(Duration olderThan) {
+        Path staging = root.resolve(STAGING_DIR);
+        if (!Files.isDirectory(staging)) {
+            return 0;
+        }
+        FileTime cutoff = FileTime.from(Instant.now().minus(olderThan));
+        int removed = 0;
+        try (Stream<Path> files = Files.list(staging)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (Files.getLastModifiedTime(file).compareTo(cutoff) < 0 && Files.deleteIfExists(file)) {
+                    removed++;
+                }
+            }
+        } catch (IOException e) {
+            throw new StorageException("Не удалось очистить незафиксированные файлы", e);
+        }
+        return removed;
+    }
+
+    private void write(Path target, InputStream stream, boolean compress) throws IOException {
+        OutputStream out = Files.newOutputStream(target);
+        if (compress) {
+            out = new GZIPOutputStream(out, COPY_BUFFER);
+        }
+        try (OutputStream sink = out) {
+            stream.transferTo(sink);
+        }
+    }
+
+    private Path newStagingFile() {
+        Path staging = root.resolve(STAGING_DIR);
+        try {
+            Files.createDirectories(staging);
+        } catch (IOException e) {
+            throw new StorageException("Каталог хранилища недоступен: " + staging, e);
+        }
+        return staging.resolve(UUID.randomUUID() + ".tmp");
+    }
+
+    /**
+     * Путь файла по ключу; ключ не может выйти за пределы {@code root}.
+     */
+    private Path resolve(String storageKey) {
+        Path file = root.resolve(storageKey).normalize();
+        if (!file.startsWith(root) || file.startsWith(root.resolve(STAGING_DIR))) {
+            throw new StorageException("Недопустимый ключ файла импорта: " + storageKey);
+        }
+        return file;
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warning("Не удалось удалить временный файл импорта: " + e.getMessage());
+        }
+    }
+
+    private void closeQuietly(FileChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // файл и так не будет прочитан
+        }
+    }
+
+    private String newKey(String originalFilename) {
+        return StorageKeys.newKey(StorageKeys.resolveFolder(properties.getFolder()), originalFilename);
+    }
+}
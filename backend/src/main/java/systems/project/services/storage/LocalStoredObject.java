@@ -0,0 +1,47 @@
+package systems.project.services.storage;
+
+import systems.project.models.storage.StoredObject;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Локальный файл: поток для парсера читает его через mmap, а отдача идёт
+ * через {@link FileChannel#transferTo} блоками, без отображения файла в память.
+ */
+final class LocalStoredObject extends StoredObject {
+
+    private final FileChannel channel;
+    private final long start;
+    private final long end;
+
+    /**
+     * @param start первый байт отдаваемой части файла
+     * @param end   байт за последним отдаваемым
+     */
+    LocalStoredObject(FileChannel channel, long mapWindow, long start, long end) {
+        super(new MappedFileInputStream(channel, mapWindow, start, end));
+        this.channel = channel;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Ответ сервлета — не файловый и не сокетный канал, поэтому sendfile здесь
+     * не работает: transferTo читает файл блоками во временный буфер, а обёртка
+     * {@link Channels#newChannel(OutputStream)} копирует каждый блок в свой byte[]
+     * перед записью в поток. Память на отдачу — эти два буфера, не размер файла.
+     */
+    @Override
+    public long transferTo(OutputStream target) throws IOException {
+        WritableByteChannel out = Channels.newChannel(target);
+        long position = start;
+        while (position < end) {
+            position += channel.transferTo(position, end - position, out);
+        }
+        return end - start;
+    }
+}
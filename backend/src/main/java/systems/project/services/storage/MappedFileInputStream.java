@@ -0,0 +1,72 @@
+package systems.project.services.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Читает файл через отображение в память окнами по {@code window} байт: данные
+ * берутся прямо из page cache, без read() в промежуточный буфер. Окна
+ * ограничивают адресное пространство, так что файл может быть больше 2 ГБ.
+ */
+final class MappedFileInputStream extends InputStream {
+
+    private final FileChannel channel;
+    private final long end;
+    private final long window;
+    private MappedByteBuffer buffer;
+    private long mappedTo;
+
+    /**
+     * Читает байты файла с {@code start} до {@code end} (не включая).
+     */
+    MappedFileInputStream(FileChannel channel, long window, long start, long end) {
+        this.channel = channel;
+        this.window = window;
+        this.mappedTo = start;
+        this.end = end;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return nextWindow() ? buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] target, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!nextWindow()) {
+            return -1;
+        }
+        int count = Math.min(length, buffer.remaining());
+        buffer.get(target, offset, count);
+        return count;
+    }
+
+    @Override
+    public int available() {
+        long remaining = end - mappedTo + (buffer == null ? 0 : buffer.remaining());
+        return (int) Math.min(Integer.MAX_VALUE, remaining);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private boolean nextWindow() throws IOException {
+        if (buffer != null && buffer.hasRemaining()) {
+            return true;
+        }
+        if (mappedTo >= end) {
+            return false;
+        }
+        long length = Math.min(window, end - mappedTo);
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, mappedTo, length);
+        mappedTo += length;
+        return true;
+    }
+}
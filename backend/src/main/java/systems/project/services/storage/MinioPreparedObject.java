@@ -0,0 +1,81 @@
+package systems.project.services.storage;
+
+import io.minio.CopyObjectArgs;
+import io.minio.CopySource;
+import io.minio.DeleteObjectTagsArgs;
+import io.minio.MinioClient;
+import io.minio.RemoveObjectArgs;
+import systems.project.exceptions.StorageException;
+import systems.project.models.storage.ObjectPromotion;
+import systems.project.models.storage.PreparedObject;
+
+import java.util.logging.Logger;
+
+final class MinioPreparedObject extends PreparedObject {
+
+    private final MinioClient client;
+    private final String bucket;
+    private final String tempKey;
+    private final ObjectPromotion promotion;
+    private final Logger logger;
+    private boolean promoted;
+
+    MinioPreparedObject(MinioClient client,
+                        String bucket,
+                        String tempKey,
+                        String finalKey,
+                        long size,
+                        Long originalSize,
+                        String contentType,
+                        String contentEncoding,
+                        String contentHash,
+                        ObjectPromotion promotion,
+                        Logger logger) {
+        super(finalKey, size, originalSize, contentType, contentEncoding, contentHash);
+        this.client = client;
+        this.bucket = bucket;
+        this.tempKey = tempKey;
+        this.promotion = promotion;
+        this.logger = logger;
+    }
+
+    @Override
+    public void commit() {
+        try {
+            if (promotion == ObjectPromotion.TAG) {
+                // объект уже на постоянном ключе: снимаем отметку pending
+                client.deleteObjectTags(DeleteObjectTagsArgs.builder()
+                        .bucket(bucket)
+                        .object(getFinalKey())
+                        .build());
+                promoted = true;
+                return;
+            }
+            client.copyObject(CopyObjectArgs.builder()
+                    .bucket(bucket)
+                    .object(getFinalKey())
+                    .source(CopySource.builder().bucket(bucket).object(tempKey).build())
+                    .build());
+            client.removeObject(RemoveObjectArgs.builder()
+                    .bucket(bucket)
+                    .object(tempKey)
+                    .build());
+            promoted = true;
+        } catch (Exception e) {
+            throw new StorageException("Не удалось зафиксировать файл импорта", e);
+        }
+    }
+
+    @Override
+    public void rollback() {
+        try {
+            String target = promoted || promotion == ObjectPromotion.TAG ? getFinalKey() : tempKey;
+            client.removeObject(RemoveObjectArgs.builder()
+                    .bucket(bucket)
+                    .object(target)
+                    .build());
+        } catch (Exception e) {
+            logger.warning("Не удалось удалить временный объект MinIO: " + e.getMessage());
+        }
+    }
+}
@@ -1,82 +1,463 @@
 package systems.project.services.storage;
 
 import io.minio.GetObjectArgs;
+import io.minio.GetObjectTagsArgs;
+import io.minio.GetPresignedObjectUrlArgs;
+import io.minio.ListObjectsArgs;
 import io.minio.MinioClient;
 import io.minio.PutObjectArgs;
-import org.springframework.http.MediaType;
+import io.minio.RemoveObjectsArgs;
+import io.minio.Result;
+import io.minio.StatObjectArgs;
+import io.minio.StatObjectResponse;
+import io.minio.errors.ErrorResponseException;
+import io.minio.http.Method;
+import io.minio.messages.DeleteError;
+import io.minio.messages.DeleteObject;
+import io.minio.messages.Item;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Service;
+import systems.project.configuratons.AsyncConfiguration;
 import systems.project.configuratons.StorageProperties;
 import systems.project.exceptions.StorageException;
+import systems.project.models.storage.ObjectPromotion;
+import systems.project.models.storage.ObjectStat;
 import systems.project.models.storage.PreparedObject;
+import systems.project.models.storage.PresignedUpload;
 import systems.project.models.storage.StoredObject;
+import systems.project.models.storage.StreamingUpload;
 
+import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.util.Locale;
-import java.util.UUID;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 @Service
-public class MinioStorageService {
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "minio", matchIfMissing = true)
+public class MinioStorageService implements StorageService {
 
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy/MM/dd");
+    /** Блоков (по размеру чтения парсера, обычно 8 КБ) в очереди между парсером и загрузкой. */
+    private static final int STREAM_QUEUE_BLOCKS = 128;
+    private static final int COPY_BUFFER = 64 * 1024;
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String NO_SUCH_KEY = "NoSuchKey";
 
     private final MinioClient minioClient;
     private final StorageProperties properties;
     private final Logger logger;
+    private final AsyncTaskExecutor uploadExecutor;
 
     public MinioStorageService(MinioClient minioClient,
                                StorageProperties properties,
-                               Logger logger) {
+                               Logger logger,
+                               @Qualifier(AsyncConfiguration.STORAGE_UPLOAD_EXECUTOR)
+                               AsyncTaskExecutor uploadExecutor) {
         this.minioClient = minioClient;
         this.properties = properties;
         this.logger = logger;
+        this.uploadExecutor = uploadExecutor;
     }
 
+    /**
+     * Сохраняет файл во временный объект. Несжатый файл при {@code compress}
+     * сжимается gzip (он и так в памяти, а JSON сжимается в разы); присланный
+     * в gzip сохраняется как есть.
+     */
+    @Override
     public PreparedObject prepareUpload(String originalFilename, byte[] content, String contentType) {
-        String sanitized = sanitizeFilename(originalFilename);
-        String folder = properties.resolveFolder();
-        String date = DATE_FORMATTER.format(LocalDate.now());
-        String baseKey = folder + "/" + date + "/" + UUID.randomUUID();
-        String finalKey = baseKey + "-" + sanitized;
-        String tempKey = finalKey + ".tmp";
-        String mime = contentType == null || contentType.isBlank() ? MediaType.APPLICATION_JSON_VALUE : contentType;
-
-        try (ByteArrayInputStream stream = new ByteArrayInputStream(content)) {
-            minioClient.putObject(PutObjectArgs.builder()
+        String finalKey = newKey(originalFilename);
+        String tempKey = stagingKey(finalKey);
+        String mime = StorageKeys.resolveContentType(contentType);
+        String hash = ContentHashes.sha256(content);
+        if (ContentEncodings.isGzip(content) || !properties.isCompress()) {
+            String encoding = ContentEncodings.isGzip(content) ? ContentEncodings.GZIP : null;
+            put(tempKey, new ByteArrayInputStream(content), content.length, mime, encoding);
+            return new MinioPreparedObject(minioClient, properties.getBucket(), tempKey, finalKey, content.length,
+                    encoding == null ? Long.valueOf(content.length) : null, mime, encoding, hash,
+                    properties.getPromotion(), logger);
+        }
+        byte[] compressed = ContentEncodings.gzip(content);
+        put(tempKey, new ByteArrayInputStream(compressed), compressed.length, mime, ContentEncodings.GZIP);
+        return new MinioPreparedObject(minioClient, properties.getBucket(), tempKey, finalKey, compressed.length,
+                (long) content.length, mime, ContentEncodings.GZIP, hash, properties.getPromotion(), logger);
+    }
+
+    /**
+     * Загружает поток известной длины во временный объект, не читая его в память
+     * целиком. Если файл нужно сжать, итоговая длина неизвестна и загрузка идёт
+     * частями, как в {@link #openUpload(String, String, boolean)}.
+     */
+    @Override
+    public PreparedObject prepareUpload(String originalFilename, InputStream content, long size, String contentType) {
+        MessageDigest digest = ContentHashes.newDigest();
+        try (InputStream stream = new BufferedInputStream(new DigestInputStream(content, digest))) {
+            boolean gzipped = ContentEncodings.isGzip(stream);
+            if (gzipped || !properties.isCompress()) {
+                String finalKey = newKey(originalFilename);
+                String tempKey = stagingKey(finalKey);
+                String mime = StorageKeys.resolveContentType(contentType);
+                String encoding = gzipped ? ContentEncodings.GZIP : null;
+                put(tempKey, stream, size, mime, encoding);
+                return new MinioPreparedObject(minioClient, properties.getBucket(), tempKey, finalKey, size,
+                        gzipped ? null : size, mime, encoding, ContentHashes.hex(digest),
+                        properties.getPromotion(), logger);
+            }
+            StreamingUpload upload = openUpload(originalFilename, contentType, false);
+            try {
+                byte[] buffer = new byte[COPY_BUFFER];
+                int read;
+                while ((read = stream.read(buffer)) >= 0) {
+                    upload.write(buffer, 0, read);
+                }
+                upload.finish();
+                return upload.await();
+            } catch (IOException | RuntimeException e) {
+                upload.discard();
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new StorageException("Не удалось сохранить файл импорта во временном хранилище", e);
+        }
+    }
+
+    /**
+     * Начинает загрузку во временный объект, данные для которой поставщик пишет
+     * по мере чтения — например, парсер, читающий тот же поток. Загрузка идёт
+     * в собственном потоке частями по {@code part-size}: ждать в очереди пула,
+     * пока парсер упирается в полную очередь блоков, ей нельзя.
+     *
+     * @param gzipped поставщик пишет уже сжатый gzip-файл; иначе при {@code compress}
+     *                он сжимается по пути в хранилище
+     */
+    @Override
+    public StreamingUpload openUpload(String originalFilename, String contentType, boolean gzipped) {
+        String finalKey = newKey(originalFilename);
+        String tempKey = stagingKey(finalKey);
+        String mime = StorageKeys.resolveContentType(contentType);
+        boolean compress = !gzipped && properties.isCompress();
+        String encoding = gzipped || compress ? ContentEncodings.GZIP : null;
+        StreamingUpload upload = new StreamingUpload(finalKey, mime, encoding, compress, STREAM_QUEUE_BLOCKS,
+                ContentHashes.newDigest());
+        upload.attach(CompletableFuture.supplyAsync(() -> {
+            put(tempKey, upload.content(), -1, mime, encoding);
+            return new MinioPreparedObject(minioClient, properties.getBucket(), tempKey, finalKey,
+                    upload.getStored(), gzipped ? null : upload.getWritten(), mime, encoding,
+                    upload.getContentHash(), properties.getPromotion(), logger);
+        }, uploadExecutor));
+        return upload;
+    }
+
+    /**
+     * Объект прежнего импорта с тем же содержимым, если он ещё лежит в хранилище.
+     */
+    @Override
+    public Optional<PreparedObject> reuse(String storageKey,
+                                          Long size,
+                                          Long originalSize,
+                                          String contentType,
+                                          String contentEncoding,
+                                          String contentHash) {
+        StatObjectResponse stat;
+        try {
+            stat = minioClient.statObject(StatObjectArgs.builder()
                     .bucket(properties.getBucket())
-                    .object(tempKey)
-                    .contentType(mime)
-                    .stream(stream, content.length, -1)
+                    .object(storageKey)
                     .build());
+            if (isPending(storageKey)) {
+                // чужой импорт ещё не зафиксирован и может откатиться вместе с объектом
+                return Optional.empty();
+            }
+        } catch (ErrorResponseException e) {
+            return Optional.empty();
         } catch (Exception e) {
-            throw new StorageException("Не удалось сохранить файл импорта во временном хранилище", e);
+            logger.warning("Не удалось проверить объект " + storageKey + ", файл будет загружен заново: "
+                    + e.getMessage());
+            return Optional.empty();
+        }
+        long storedSize = size == null ? stat.size() : size;
+        return Optional.of(PreparedObject.reused(storageKey, storedSize, originalSize, contentType,
+                contentEncoding, contentHash));
+    }
+
+    /**
+     * Ссылка на PUT во временный ключ {@code .tmp} при любом способе фиксации:
+     * тег pending на чужую загрузку не повесить, так что файл переносится
+     * на постоянный ключ копированием внутри MinIO.
+     */
+    @Override
+    public PresignedUpload presignUpload(String originalFilename, String contentType) {
+        String uploadKey = newKey(originalFilename) + TEMP_SUFFIX;
+        Instant expiresAt = Instant.now().plus(properties.getPresignTtl());
+        String url = presign(Method.PUT, uploadKey, Map.of());
+        return new PresignedUpload(uploadKey, StorageKeys.resolveContentType(contentType), url, expiresAt);
+    }
+
+    @Override
+    public Optional<PreparedObject> adoptUpload(String uploadKey, String contentType) {
+        if (!uploadKey.endsWith(TEMP_SUFFIX)) {
+            throw new StorageException("Недопустимый ключ прямой загрузки: " + uploadKey);
+        }
+        long size;
+        try {
+            size = stat(uploadKey).getSize();
+        } catch (StorageException e) {
+            if (e.getCause() instanceof ErrorResponseException) {
+                return Optional.empty();
+            }
+            throw e;
         }
+        boolean gzipped = false;
+        if (size >= 2) {
+            // хватает двух байт заголовка: сам файл сервер не читает
+            try (StoredObject header = load(uploadKey, 0, 2L)) {
+                gzipped = ContentEncodings.isGzip(header.stream().readAllBytes());
+            } catch (IOException e) {
+                throw new StorageException("Файл импорта недоступен", e);
+            }
+        }
+        String finalKey = uploadKey.substring(0, uploadKey.length() - TEMP_SUFFIX.length());
+        return Optional.of(new MinioPreparedObject(minioClient, properties.getBucket(), uploadKey, finalKey, size,
+                gzipped ? null : size, contentType, gzipped ? ContentEncodings.GZIP : null, null,
+                ObjectPromotion.COPY, logger));
+    }
 
-        return new PreparedObject(minioClient, properties.getBucket(), tempKey, finalKey, content.length, mime, logger);
+    /**
+     * Заголовки ответа задаются параметрами ссылки: у объекта, загруженного
+     * клиентом напрямую, в метаданных нет ни имени файла, ни Content-Encoding.
+     */
+    @Override
+    public Optional<URI> presignDownload(String storageKey,
+                                         String filename,
+                                         String contentType,
+                                         String contentEncoding) {
+        Map<String, String> response = new HashMap<>();
+        response.put("response-content-disposition", "attachment; filename=\"" + filename + "\"");
+        response.put("response-content-type", contentType);
+        if (contentEncoding != null) {
+            response.put("response-content-encoding", contentEncoding);
+        }
+        return Optional.of(URI.create(presign(Method.GET, storageKey, response)));
     }
 
-    public StoredObject load(String storageKey) {
+    /**
+     * Теги берутся из листинга. Объект без тегов в листинге считается
+     * зафиксированным: запрашивать теги каждого объекта бакета слишком дорого,
+     * поэтому на S3, который тегов в листинге не отдаёт, нужна фиксация COPY.
+     * Объект, который не удалось прочитать, пропускается до следующей очистки.
+     */
+    @Override
+    public int sweepPending() {
+        if (properties.getPromotion() != ObjectPromotion.TAG) {
+            // при COPY незафиксированные файлы лежат на ключах .tmp
+            return 0;
+        }
+        ZonedDateTime cutoff = ZonedDateTime.now().minus(properties.getPendingTtl());
+        List<String> pending = new ArrayList<>();
+        for (Result<Item> result : listAll(true)) {
+            Item item = listed(result);
+            if (item == null || item.isDir() || item.lastModified().isAfter(cutoff)) {
+                continue;
+            }
+            if (item.userTags() != null && hasPendingTag(item.userTags())) {
+                pending.add(item.objectName());
+            }
+        }
+        return pending.size() - remove(pending).size();
+    }
+
+    /**
+     * При COPY ключи {@code .tmp} остаются от загрузок, упавших до фиксации или
+     * отката, при любом способе — от неподтверждённых прямых загрузок.
+     */
+    @Override
+    public int sweepTemporary(Duration olderThan) {
+        ZonedDateTime cutoff = ZonedDateTime.now().minus(olderThan);
+        List<String> temporary = new ArrayList<>();
+        for (Result<Item> result : listAll(false)) {
+            Item item = listed(result);
+            if (item != null && !item.isDir() && item.objectName().endsWith(TEMP_SUFFIX)
+                    && item.lastModified().isBefore(cutoff)) {
+                temporary.add(item.objectName());
+            }
+        }
+        return temporary.size() - remove(temporary).size();
+    }
+
+    /**
+     * Один запрос DeleteObjects на каждую тысячу ключей. Удаление выполняется по
+     * мере чтения результата, поэтому он дочитывается до конца.
+     */
+    @Override
+    public List<String> remove(Collection<String> storageKeys) {
+        if (storageKeys.isEmpty()) {
+            return List.of();
+        }
+        List<DeleteObject> objects = storageKeys.stream().map(DeleteObject::new).toList();
+        List<String> failed = new ArrayList<>();
+        Iterable<Result<DeleteError>> errors = minioClient.removeObjects(RemoveObjectsArgs.builder()
+                .bucket(properties.getBucket())
+                .objects(objects)
+                .build());
+        for (Result<DeleteError> result : errors) {
+            try {
+                DeleteError error = result.get();
+                logger.warning("Не удалось удалить объект " + error.objectName() + ": " + error.message());
+                failed.add(error.objectName());
+            } catch (Exception e) {
+                throw new StorageException("Не удалось удалить файлы импорта", e);
+            }
+        }
+        return failed;
+    }
+
+    @Override
+    public StoredObject load(String storageKey, long offset, Long length) {
         try {
             return new StoredObject(minioClient.getObject(GetObjectArgs.builder()
                     .bucket(properties.getBucket())
                     .object(storageKey)
+                    .offset(offset)
+                    .length(length)
                     .build()));
         } catch (Exception e) {
             throw new StorageException("Файл импорта недоступен", e);
         }
     }
 
-    private String sanitizeFilename(String filename) {
-        if (filename == null || filename.isBlank()) {
-            return "import.json";
+    @Override
+    public ObjectStat stat(String storageKey) {
+        try {
+            StatObjectResponse stat = minioClient.statObject(StatObjectArgs.builder()
+                    .bucket(properties.getBucket())
+                    .object(storageKey)
+                    .build());
+            return new ObjectStat(stat.size(), stat.etag(), stat.lastModified().toInstant());
+        } catch (Exception e) {
+            throw new StorageException("Файл импорта недоступен", e);
+        }
+    }
+
+    /** Объект с тегом pending ещё не зафиксирован и может быть удалён очисткой. */
+    @Override
+    public boolean exists(String storageKey) {
+        try {
+            minioClient.statObject(StatObjectArgs.builder()
+                    .bucket(properties.getBucket())
+                    .object(storageKey)
+                    .build());
+            return !isPending(storageKey);
+        } catch (ErrorResponseException e) {
+            if (NO_SUCH_KEY.equals(e.errorResponse().code())) {
+                return false;
+            }
+            throw new StorageException("Файл импорта недоступен", e);
+        } catch (Exception e) {
+            throw new StorageException("Файл импорта недоступен", e);
+        }
+    }
+
+    private Iterable<Result<Item>> listAll(boolean withTags) {
+        return minioClient.listObjects(ListObjectsArgs.builder()
+                .bucket(properties.getBucket())
+                .prefix(StorageKeys.resolveFolder(properties.getFolder()) + "/")
+                .recursive(true)
+                .includeUserMetadata(withTags)
+                .build());
+    }
+
+    /** Элемент листинга или null, если его не удалось прочитать: очистка идёт дальше. */
+    private Item listed(Result<Item> result) {
+        try {
+            return result.get();
+        } catch (Exception e) {
+            logger.warning("Не удалось прочитать объект хранилища при очистке: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private String presign(Method method, String key, Map<String, String> queryParams) {
+        try {
+            return minioClient.getPresignedObjectUrl(GetPresignedObjectUrlArgs.builder()
+                    .method(method)
+                    .bucket(properties.getBucket())
+                    .object(key)
+                    .expiry((int) properties.getPresignTtl().toSeconds(), TimeUnit.SECONDS)
+                    .extraQueryParams(queryParams)
+                    .build());
+        } catch (Exception e) {
+            throw new StorageException("Не удалось выдать ссылку на файл импорта", e);
+        }
+    }
+
+    /**
+     * Кодировка пишется и в метаданные объекта, чтобы прямые ссылки на него
+     * отдавали корректный Content-Encoding.
+     */
+    private void put(String key, InputStream stream, long size, String mime, String encoding) {
+        long partSize = size < 0 ? properties.getPartSize().toBytes() : -1;
+        try {
+            minioClient.putObject(PutObjectArgs.builder()
+                    .bucket(properties.getBucket())
+                    .object(key)
+                    .contentType(mime)
+                    .headers(encoding == null ? Map.of() : Map.of(HttpHeaders.CONTENT_ENCODING, encoding))
+                    .tags(properties.getPromotion() == ObjectPromotion.TAG
+                            ? Map.of(ObjectPromotion.STATE_TAG, ObjectPromotion.PENDING)
+                            : Map.of())
+                    .stream(stream, size, partSize)
+                    .build());
+        } catch (Exception e) {
+            throw new StorageException("Не удалось сохранить файл импорта во временном хранилище", e);
+        }
+    }
+
+    /**
+     * Ключ, на который загружается ещё не зафиксированный файл.
+     */
+    private String stagingKey(String finalKey) {
+        return properties.getPromotion() == ObjectPromotion.TAG ? finalKey : finalKey + TEMP_SUFFIX;
+    }
+
+    private boolean isPending(String key) throws Exception {
+        if (properties.getPromotion() != ObjectPromotion.TAG) {
+            return false;
         }
-        String normalized = filename.trim()
-                .replaceAll("\\s+", "_")
-                .replaceAll("[^A-Za-z0-9_\\.-]", "")
-                .toLowerCase(Locale.ROOT);
-        return normalized.isBlank() ? "import.json" : normalized;
+        Map<String, String> tags = minioClient.getObjectTags(GetObjectTagsArgs.builder()
+                .bucket(properties.getBucket())
+                .object(key)
+                .build()).get();
+        return ObjectPromotion.PENDING.equals(tags.get(ObjectPromotion.STATE_TAG));
     }
 
+    /** Теги в листинге MinIO приходят строкой вида {@code k1=v1&k2=v2}. */
+    private static boolean hasPendingTag(String userTags) {
+        for (String tag : userTags.split("&")) {
+            if (tag.equals(ObjectPromotion.STATE_TAG + "=" + ObjectPromotion.PENDING)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String newKey(String originalFilename) {
+        return StorageKeys.newKey(StorageKeys.resolveFolder(properties.getFolder()), originalFilename);
+    }
 }
@@ -0,0 +1,37 @@
+package systems.project.services.storage;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import systems.project.exceptions.StorageException;
+
+import java.util.logging.Logger;
+
+/**
+ * Периодически удаляет файлы импорта, которые так и не были ни зафиксированы,
+ * ни откачены: в MinIO — объекты с тегом pending, в локальном хранилище —
+ * временные файлы.
+ */
+@Component
+public class PendingObjectSweeper {
+
+    private final StorageService storageService;
+    private final Logger logger;
+
+    public PendingObjectSweeper(StorageService storageService, Logger logger) {
+        this.storageService = storageService;
+        this.logger = logger;
+    }
+
+    @Scheduled(initialDelayString = "${app.storage.pending-sweep-interval:PT15M}",
+            fixedDelayString = "${app.storage.pending-sweep-interval:PT15M}")
+    public void sweep() {
+        try {
+            int removed = storageService.sweepPending();
+            if (removed > 0) {
+                logger.info("Removed abandoned pending import objects: " + removed);
+            }
+        } catch (StorageException e) {
+            logger.warning("Pending import objects sweep failed: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package systems.project.services.storage;
+
+import org.springframework.http.MediaType;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Ключи объектов одинаковы для всех хранилищ: {@code folder/yyyy/MM/dd/uuid-имя}.
+ */
+final class StorageKeys {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy/MM/dd");
+
+    private StorageKeys() {
+    }
+
+    static String newKey(String folder, String originalFilename) {
+        String date = DATE_FORMATTER.format(LocalDate.now());
+        return folder + "/" + date + "/" + UUID.randomUUID() + "-" + sanitizeFilename(originalFilename);
+    }
+
+    static String resolveFolder(String folder) {
+        if (folder == null || folder.isBlank()) {
+            return "imports";
+        }
+        return folder.replaceAll("^/+", "").replaceAll("/+", "/");
+    }
+
+    static String resolveContentType(String contentType) {
+        return contentType == null || contentType.isBlank() ? MediaType.APPLICATION_JSON_VALUE : contentType;
+    }
+
+    private static String sanitizeFilename(String filename) {
+        if (filename == null || filename.isBlank()) {
+            return "import.json";
+        }
+        String normalized = filename.trim()
+                .replaceAll("\\s+", "_")
+                .replaceAll("[^A-Za-z0-9_\\.-]", "")
+                .toLowerCase(Locale.ROOT);
+        return normalized.isBlank() ? "import.json" : normalized;
+    }
+}
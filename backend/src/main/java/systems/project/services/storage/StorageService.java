@@ -0,0 +1,120 @@
+package systems.project.services.storage;
+
+import systems.project.models.storage.ObjectStat;
+import systems.project.models.storage.PreparedObject;
+import systems.project.models.storage.PresignedUpload;
+import systems.project.models.storage.StoredObject;
+import systems.project.models.storage.StreamingUpload;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Хранилище файлов импорта. Реализация выбирается свойством
+ * {@code app.storage.type}: {@code minio} (по умолчанию) или {@code local}.
+ * Загрузка всегда двухфазная: файл сначала становится {@link PreparedObject},
+ * и только его фиксация делает файл видимым по постоянному ключу.
+ */
+public interface StorageService {
+
+    /**
+     * Сохраняет файл из памяти во временный объект. Несжатый файл при
+     * {@code compress} сжимается gzip; присланный в gzip сохраняется как есть.
+     */
+    PreparedObject prepareUpload(String originalFilename, byte[] content, String contentType);
+
+    /**
+     * Сохраняет поток известной длины во временный объект, не читая его в память целиком.
+     */
+    PreparedObject prepareUpload(String originalFilename, InputStream content, long size, String contentType);
+
+    /**
+     * Начинает загрузку во временный объект, данные для которой поставщик пишет
+     * по мере чтения — например, парсер, читающий тот же поток.
+     *
+     * @param gzipped поставщик пишет уже сжатый gzip-файл; иначе при {@code compress}
+     *                он сжимается по пути в хранилище
+     */
+    StreamingUpload openUpload(String originalFilename, String contentType, boolean gzipped);
+
+    /**
+     * Объект прежнего импорта с тем же содержимым, если он ещё лежит в хранилище
+     * и уже зафиксирован.
+     */
+    Optional<PreparedObject> reuse(String storageKey,
+                                   Long size,
+                                   Long originalSize,
+                                   String contentType,
+                                   String contentEncoding,
+                                   String contentHash);
+
+    /**
+     * Выдаёт ссылку, по которой клиент сам загрузит файл на временный ключ.
+     *
+     * @throws systems.project.exceptions.StorageException хранилище не умеет
+     *                                                     выдавать прямые ссылки
+     */
+    PresignedUpload presignUpload(String originalFilename, String contentType);
+
+    /**
+     * Файл, загруженный клиентом по ссылке {@link #presignUpload(String, String)},
+     * как подготовленный объект: размер и сжатие берутся из хранилища, хеш
+     * содержимого не считается. Пусто, если файл ещё не загружен.
+     */
+    Optional<PreparedObject> adoptUpload(String uploadKey, String contentType);
+
+    /**
+     * Короткоживущая ссылка на скачивание объекта напрямую из хранилища;
+     * пусто, если хранилище таких ссылок не выдаёт.
+     */
+    Optional<URI> presignDownload(String storageKey, String filename, String contentType, String contentEncoding);
+
+    default StoredObject load(String storageKey) {
+        return load(storageKey, 0, null);
+    }
+
+    /**
+     * Открывает часть объекта: {@code length} байт начиная с {@code offset};
+     * null — до конца объекта.
+     */
+    StoredObject load(String storageKey, long offset, Long length);
+
+    ObjectStat stat(String storageKey);
+
+    /**
+     * Лежит ли по ключу зафиксированный объект. В отличие от {@link #stat(String)}
+     * отличает отсутствие объекта от недоступности хранилища.
+     *
+     * @throws systems.project.exceptions.StorageException хранилище недоступно
+     */
+    boolean exists(String storageKey);
+
+    /**
+     * Удаляет объекты пакетом. Ключи, которых уже нет, удалёнными и считаются.
+     *
+     * @return ключи, которые удалить не удалось
+     */
+    List<String> remove(Collection<String> storageKeys);
+
+    /**
+     * Удаляет временные объекты старше {@code olderThan}: {@code .tmp} в MinIO,
+     * staging-файлы в локальном хранилище. Их оставляют упавшие загрузки и
+     * неподтверждённые прямые загрузки.
+     *
+     * @return сколько объектов удалено
+     */
+    int sweepTemporary(Duration olderThan);
+
+    /**
+     * Удаляет объекты импортов, которые так и не были ни зафиксированы, ни
+     * откачены (например, сервер остановился посреди запроса), если они старше
+     * срока, заданного в настройках хранилища.
+     *
+     * @return сколько объектов удалено
+     */
+    int sweepPending();
+}
@@ -1,10 +1,12 @@
 package systems.project;
 
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import systems.project.configuratons.ImportProperties;
 import systems.project.models.Coordinates;
 import systems.project.models.Event;
 import systems.project.models.EventType;
@@ -13,6 +15,7 @@ import systems.project.models.Person;
 import systems.project.models.Ticket;
 import systems.project.models.TicketType;
 import systems.project.models.Venue;
+import systems.project.models.views.TicketView;
 import systems.project.repositories.EventRepository;
 import systems.project.repositories.LocationRepository;
 import systems.project.repositories.PersonRepository;
@@ -21,6 +24,8 @@ import systems.project.repositories.VenueRepository;
 import systems.project.services.command.EventCommandService;
 import systems.project.services.command.PersonCommandService;
 import systems.project.services.command.TicketCommandService;
+import systems.project.services.command.TicketCopyLoader;
+import systems.project.services.command.TicketImportValidator;
 import systems.project.services.command.VenueCommandService;
 import systems.project.services.core.EventService;
 import systems.project.services.core.PersonService;
@@ -33,6 +38,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -60,6 +66,12 @@ class GetAndSaveTests {
     @Mock
     LocationRepository locationRepository;
 
+    @Mock
+    EntityManager entityManager;
+
+    @Mock
+    TicketCopyLoader copyLoader;
+
     @Mock
     ValidateTypes validateTypes;
 
@@ -84,7 +96,10 @@ class GetAndSaveTests {
                 validateTypes,
                 eventRepository,
                 venueRepository,
-                locationRepository
+                locationRepository,
+                entityManager,
+                new TicketImportValidator(validateTypes, new ImportProperties(), ForkJoinPool.commonPool()),
+                copyLoader
         );
         personCommandService = new PersonCommandService(personRepository, locationRepository);
         eventCommandService = new EventCommandService(eventRepository);
@@ -98,13 +113,14 @@ class GetAndSaveTests {
 
     @Test
     void testGetAllTickets() throws ExecutionException, InterruptedException {
-        List<Ticket> tickets = List.of(new Ticket());
-        when(ticketRepository.findAllBy()).thenReturn(tickets);
+        List<TicketView> tickets = List.of(new TicketView(1, "A", null, null, null, null,
+                1f, TicketType.USUAL, null, 1, null, null));
+        when(ticketRepository.findAllViews()).thenReturn(tickets);
 
         var res = ticketService.getTickets().get();
 
         assertNotNull(res.get("tickets"));
-        verify(ticketRepository).findAllBy();
+        verify(ticketRepository).findAllViews();
     }
 
     @Test
@@ -0,0 +1,166 @@
+package systems.project;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import systems.project.controllers.ImportLogController;
+import systems.project.models.ImportStatus;
+import systems.project.models.api.ImportLogEntry;
+import systems.project.models.storage.ObjectStat;
+import systems.project.models.storage.StoredObject;
+import systems.project.services.core.TicketEventService;
+import systems.project.services.core.TicketService;
+import systems.project.services.imports.ImportJobService;
+import systems.project.services.imports.ImportLogService;
+import systems.project.services.imports.ImportProgressService;
+import systems.project.services.storage.StorageService;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ImportLogControllerTest {
+
+    private static final String KEY = "imports/tickets.json";
+    private static final byte[] CONTENT = "0123456789".getBytes(StandardCharsets.UTF_8);
+    private static final Instant MODIFIED = Instant.parse("2026-03-01T10:15:30.250Z");
+    private static final String ETAG = "\"abc\"";
+
+    @Mock
+    private ImportLogService logService;
+    @Mock
+    private StorageService storageService;
+    @Mock
+    private TicketService ticketService;
+    @Mock
+    private TicketEventService events;
+    @Mock
+    private ImportProgressService progressService;
+    @Mock
+    private ImportJobService importJobs;
+
+    private ImportLogController controller;
+    private MockHttpServletRequest request;
+
+    @BeforeEach
+    void setUp() {
+        controller = new ImportLogController(logService, storageService, ticketService, events,
+                progressService, importJobs);
+        request = new MockHttpServletRequest("GET", "/import/logs/1/file");
+        when(logService.get(1L)).thenReturn(ImportLogEntry.builder()
+                .id(1L)
+                .filename("tickets.json")
+                .storageKey(KEY)
+                .contentType("application/json")
+                .size((long) CONTENT.length)
+                .status(ImportStatus.SUCCESS)
+                .build());
+        when(storageService.stat(KEY)).thenReturn(new ObjectStat(CONTENT.length, "abc", MODIFIED));
+    }
+
+    @Test
+    void singleRangeReturnsPartialContent() throws IOException {
+        when(storageService.load(KEY, 2, 4L)).thenReturn(new StoredObject(new ByteArrayInputStream(CONTENT, 2, 4)));
+
+        ResponseEntity<StreamingResponseBody> response = download("bytes=2-5", null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 2-5/10");
+        assertThat(response.getHeaders().getContentLength()).isEqualTo(4);
+        assertThat(body(response)).isEqualTo("2345");
+    }
+
+    @Test
+    void rangeStartingPastEndIsNotSatisfiable() {
+        ResponseEntity<StreamingResponseBody> response = download("bytes=10-", null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */10");
+        verify(storageService, never()).load(anyString(), anyLong(), any());
+    }
+
+    @Test
+    void ifRangeMatchingEtagKeepsRange() {
+        assertThat(download("bytes=0-3", ETAG).getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+    }
+
+    @Test
+    void ifRangeWithChangedEtagReturnsWholeFile() {
+        assertWholeFile(download("bytes=0-3", "\"other\""));
+    }
+
+    @Test
+    void ifRangeMatchingLastModifiedKeepsRange() {
+        String date = DateTimeFormatter.RFC_1123_DATE_TIME.format(MODIFIED.atOffset(ZoneOffset.UTC));
+
+        assertThat(download("bytes=0-3", date).getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+    }
+
+    @Test
+    void ifRangeWithOlderDateReturnsWholeFile() {
+        String date = DateTimeFormatter.RFC_1123_DATE_TIME.format(MODIFIED.minusSeconds(60).atOffset(ZoneOffset.UTC));
+
+        assertWholeFile(download("bytes=0-3", date));
+    }
+
+    @Test
+    void weakIfRangeReturnsWholeFile() {
+        assertWholeFile(download("bytes=0-3", "W/" + ETAG));
+    }
+
+    @Test
+    void multipleRangesReturnWholeFile() {
+        assertWholeFile(download("bytes=0-1,4-5", null));
+    }
+
+    @Test
+    void matchingIfNoneMatchReturnsNotModified() {
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, ETAG);
+        MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+
+        ResponseEntity<StreamingResponseBody> response = controller.download(1L, false, null, "bytes=0-3", null,
+                new ServletWebRequest(request, servletResponse));
+
+        assertThat(response).isNull();
+        assertThat(servletResponse.getStatus()).isEqualTo(HttpStatus.NOT_MODIFIED.value());
+    }
+
+    private ResponseEntity<StreamingResponseBody> download(String range, String ifRange) {
+        return controller.download(1L, false, null, range, ifRange,
+                new ServletWebRequest(request, new MockHttpServletResponse()));
+    }
+
+    private static void assertWholeFile(ResponseEntity<StreamingResponseBody> response) {
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().containsKey(HttpHeaders.CONTENT_RANGE)).isFalse();
+        assertThat(response.getHeaders().getContentLength()).isEqualTo(CONTENT.length);
+    }
+
+    private static String body(ResponseEntity<StreamingResponseBody> response) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
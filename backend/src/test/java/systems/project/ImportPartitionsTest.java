@@ -0,0 +1,57 @@
+package systems.project;
+
+import org.junit.jupiter.api.Test;
+import systems.project.models.Event;
+import systems.project.models.Person;
+import systems.project.models.Ticket;
+import systems.project.services.imports.ImportPartitions;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImportPartitionsTest {
+
+    @Test
+    void keepsRecordsOfOneEventInOnePartition() {
+        List<Ticket> tickets = List.of(ticket(1, null), ticket(2, null), ticket(1, null), ticket(3, null));
+
+        List<int[]> partitions = ImportPartitions.split(tickets, 4);
+
+        assertThat(partitions).hasSize(3);
+        assertThat(partitions).anySatisfy(indices -> assertThat(indices).containsExactly(0, 2));
+    }
+
+    @Test
+    void joinsEventsSharingNewPerson() {
+        List<Ticket> tickets = List.of(ticket(1, "AB-1"), ticket(2, "AB-1"), ticket(3, null));
+
+        List<int[]> partitions = ImportPartitions.split(tickets, 4);
+
+        assertThat(partitions).hasSize(2);
+        assertThat(partitions).anySatisfy(indices -> assertThat(indices).containsExactly(0, 1));
+    }
+
+    @Test
+    void neverExceedsRequestedPartitions() {
+        List<Ticket> tickets = List.of(ticket(1, null), ticket(2, null), ticket(3, null), ticket(4, null));
+
+        List<int[]> partitions = ImportPartitions.split(tickets, 2);
+
+        assertThat(partitions).hasSize(2);
+        assertThat(partitions).allSatisfy(indices -> assertThat(indices).hasSize(2));
+    }
+
+    private Ticket ticket(int eventId, String newPassport) {
+        Event event = new Event();
+        event.setId(eventId);
+        Ticket ticket = new Ticket();
+        ticket.setEvent(event);
+        if (newPassport != null) {
+            Person person = new Person();
+            person.setPassportID(newPassport);
+            ticket.setPerson(person);
+        }
+        return ticket;
+    }
+}
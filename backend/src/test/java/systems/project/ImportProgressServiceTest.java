@@ -0,0 +1,38 @@
+package systems.project;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import systems.project.models.ImportStatus;
+import systems.project.models.api.ImportProgress;
+import systems.project.services.imports.ImportProgressService;
+
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ImportProgressServiceTest {
+
+    private final ImportProgressService service =
+            new ImportProgressService(new SimpleAsyncTaskExecutor(), Logger.getLogger("test"));
+
+    @Test
+    void snapshotReportsPositionAndShareOfFile() {
+        service.start(1L, 0, 0, 1000L);
+        service.advance(1L, 10, 250);
+
+        ImportProgress progress = service.snapshot(1L);
+
+        assertEquals(ImportStatus.RUNNING, progress.getStatus());
+        assertEquals(10, progress.getProcessed());
+        assertEquals(25.0, progress.getPercent());
+    }
+
+    @Test
+    void finishedImportHasNoLiveProgress() {
+        service.start(2L, 0, 0, null);
+        service.finish(2L, ImportStatus.SUCCESS);
+
+        assertNull(service.snapshot(2L));
+    }
+}
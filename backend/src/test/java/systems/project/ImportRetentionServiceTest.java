@@ -0,0 +1,152 @@
+package systems.project;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import systems.project.configuratons.ImportRetentionProperties;
+import systems.project.exceptions.StorageException;
+import systems.project.models.ImportStatus;
+import systems.project.models.api.RetentionReport;
+import systems.project.models.views.ImportLogSummary;
+import systems.project.repositories.ImportFileLogRepository;
+import systems.project.services.imports.ImportRetentionService;
+import systems.project.services.storage.StorageService;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ImportRetentionServiceTest {
+
+    @Mock
+    private ImportFileLogRepository logRepository;
+    @Mock
+    private StorageService storageService;
+
+    private ImportRetentionProperties properties;
+    private ImportRetentionService service;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ImportRetentionProperties();
+        properties.setBatchSize(10);
+        service = new ImportRetentionService(logRepository, storageService, properties, Logger.getAnonymousLogger());
+    }
+
+    @Test
+    void removesOnlyUnreferencedObjectsAndCountsReclaimedBytes() {
+        when(logRepository.findIdBeyondNewest(properties.getKeepLast())).thenReturn(Optional.of(3L));
+        when(logRepository.findExpiredIds(any(), any(), eq(3L), any(), any(), any())).thenReturn(List.of(1L, 2L, 3L));
+        when(logRepository.findExpiredSummaries(eq(0L), any())).thenReturn(List.of(
+                summary(1L, "a.json", 100L), summary(2L, "a.json", 100L), summary(3L, "b.json", 40L)));
+        // b.json загружен повторно и принадлежит ещё и новой записи
+        when(logRepository.findReferencedKeys(anyCollection())).thenReturn(List.of("b.json"));
+        when(storageService.remove(anyCollection())).thenReturn(List.of());
+        when(logRepository.deleteByIdIn(List.of(1L, 2L, 3L))).thenReturn(3);
+        when(storageService.sweepTemporary(Duration.ofHours(24))).thenReturn(2);
+
+        RetentionReport report = service.run().orElseThrow();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<String>> removed = ArgumentCaptor.forClass(Collection.class);
+        InOrder order = inOrder(logRepository, storageService);
+        order.verify(logRepository).markExpired(eq(List.of(1L, 2L, 3L)), any(), any());
+        order.verify(storageService).remove(removed.capture());
+        order.verify(logRepository).deleteByIdIn(List.of(1L, 2L, 3L));
+        assertThat(removed.getValue()).containsExactly("a.json");
+        assertThat(report.getDeletedLogs()).isEqualTo(3);
+        assertThat(report.getRemovedObjects()).isEqualTo(1);
+        assertThat(report.getReclaimedBytes()).isEqualTo(100L);
+        assertThat(report.getSweptTemporary()).isEqualTo(2);
+        assertThat(service.getLastReport()).isSameAs(report);
+    }
+
+    @Test
+    void recentlyReusedLogsAreNotMarked() {
+        properties.setKeepLast(0);
+        when(logRepository.findExpiredIds(any(), any(), anyLong(), any(), any(), any())).thenReturn(List.of());
+        when(logRepository.findExpiredSummaries(eq(0L), any())).thenReturn(List.of());
+
+        service.run();
+
+        ArgumentCaptor<LocalDateTime> reuseCutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(logRepository).findExpiredIds(any(), any(), anyLong(), any(), reuseCutoff.capture(), any());
+        assertThat(reuseCutoff.getValue())
+                .isCloseTo(LocalDateTime.now().minus(properties.getReuseGrace()), within(1, ChronoUnit.MINUTES));
+    }
+
+    @Test
+    void logWithUnremovedObjectStaysMarkedForNextPass() {
+        properties.setKeepLast(0);
+        when(logRepository.findExpiredIds(any(), any(), anyLong(), any(), any(), any())).thenReturn(List.of());
+        when(logRepository.findExpiredSummaries(eq(0L), any()))
+                .thenReturn(List.of(summary(7L, "c.json", 55L), summary(8L, null, null)));
+        when(logRepository.findReferencedKeys(anyCollection())).thenReturn(List.of());
+        when(storageService.remove(anyCollection())).thenReturn(List.of("c.json"));
+        when(logRepository.deleteByIdIn(List.of(8L))).thenReturn(1);
+
+        RetentionReport report = service.run().orElseThrow();
+
+        assertThat(report.getFailedObjects()).isEqualTo(1);
+        assertThat(report.getRemovedObjects()).isZero();
+        assertThat(report.getReclaimedBytes()).isZero();
+        assertThat(report.getDeletedLogs()).isEqualTo(1);
+    }
+
+    @Test
+    void storageOutageDeletesNoLogs() {
+        properties.setKeepLast(0);
+        when(logRepository.findExpiredIds(any(), any(), anyLong(), any(), any(), any())).thenReturn(List.of());
+        when(logRepository.findExpiredSummaries(eq(0L), any())).thenReturn(List.of(summary(7L, "c.json", 55L)));
+        when(logRepository.findReferencedKeys(anyCollection())).thenReturn(List.of());
+        when(storageService.remove(anyCollection())).thenThrow(new StorageException("хранилище недоступно"));
+
+        assertThatThrownBy(() -> service.run()).isInstanceOf(StorageException.class);
+
+        verify(logRepository, never()).deleteByIdIn(anyCollection());
+    }
+
+    @Test
+    void secondRunDuringPassReturnsImmediately() {
+        properties.setKeepLast(0);
+        AtomicReference<Optional<RetentionReport>> concurrent = new AtomicReference<>();
+        when(logRepository.findExpiredIds(any(), any(), anyLong(), any(), any(), any())).thenAnswer(invocation -> {
+            concurrent.set(service.run());
+            return List.of();
+        });
+        when(logRepository.findExpiredSummaries(eq(0L), any())).thenReturn(List.of());
+
+        assertThat(service.run()).isPresent();
+        assertThat(concurrent.get()).isEmpty();
+        // проход завершён, и следующий запуск снова выполняется
+        assertThat(service.run()).isPresent();
+    }
+
+    private static ImportLogSummary summary(Long id, String storageKey, Long size) {
+        return new ImportLogSummary(id, "tickets.json", storageKey, "application/json", size, null, size, null,
+                ImportStatus.SUCCESS, null, 1, 1, null, null, null, null, null, null, null, null, null,
+                LocalDateTime.now(), LocalDateTime.now());
+    }
+}
@@ -0,0 +1,161 @@
+package systems.project;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.util.unit.DataSize;
+import systems.project.configuratons.LocalStorageProperties;
+import systems.project.exceptions.StorageException;
+import systems.project.models.storage.PreparedObject;
+import systems.project.models.storage.StoredObject;
+import systems.project.models.storage.StreamingUpload;
+import systems.project.services.storage.ContentEncodings;
+import systems.project.services.storage.ContentHashes;
+import systems.project.services.storage.LocalStorageService;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LocalStorageServiceTest {
+
+    private static final byte[] CONTENT = "[{\"name\":\"A\"},{\"name\":\"B\"}]".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    private Path root;
+
+    private LocalStorageService storage;
+
+    @BeforeEach
+    void setUp() {
+        LocalStorageProperties properties = new LocalStorageProperties();
+        properties.setRoot(root);
+        properties.setCompress(false);
+        // крошечное окно, чтобы чтение пересекало границы отображений
+        properties.setMapWindow(DataSize.ofBytes(7));
+        storage = new LocalStorageService(properties, Logger.getAnonymousLogger(), new SimpleAsyncTaskExecutor());
+    }
+
+    @Test
+    void commitRenamesStagingFileIntoPlace() throws Exception {
+        PreparedObject prepared = storage.prepareUpload("tickets.json", CONTENT, "application/json");
+
+        assertThat(root.resolve(prepared.getFinalKey())).doesNotExist();
+        assertThat(stagingFiles()).hasSize(1);
+
+        prepared.commit();
+
+        assertThat(root.resolve(prepared.getFinalKey())).hasBinaryContent(CONTENT);
+        assertThat(stagingFiles()).isEmpty();
+        assertThat(prepared.getContentHash()).isEqualTo(ContentHashes.sha256(CONTENT));
+    }
+
+    @Test
+    void rollbackRemovesCommittedFile() throws Exception {
+        PreparedObject prepared = storage.prepareUpload("tickets.json", new ByteArrayInputStream(CONTENT),
+                CONTENT.length, "application/json");
+        prepared.commit();
+
+        prepared.rollback();
+
+        assertThat(root.resolve(prepared.getFinalKey())).doesNotExist();
+    }
+
+    @Test
+    void loadReadsThroughMappedWindowsAndTransfersWholeFile() throws Exception {
+        PreparedObject prepared = storage.prepareUpload("tickets.json", CONTENT, "application/json");
+        prepared.commit();
+
+        try (StoredObject stored = storage.load(prepared.getFinalKey())) {
+            assertThat(stored.stream().readAllBytes()).isEqualTo(CONTENT);
+        }
+        ByteArrayOutputStream transferred = new ByteArrayOutputStream();
+        try (StoredObject stored = storage.load(prepared.getFinalKey())) {
+            assertThat(stored.transferTo(transferred)).isEqualTo(CONTENT.length);
+        }
+        assertThat(transferred.toByteArray()).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void rangedLoadReturnsOnlyRequestedBytes() throws Exception {
+        PreparedObject prepared = storage.prepareUpload("tickets.json", CONTENT, "application/json");
+        prepared.commit();
+        byte[] expected = Arrays.copyOfRange(CONTENT, 5, 17);
+
+        try (StoredObject stored = storage.load(prepared.getFinalKey(), 5, 12L)) {
+            assertThat(stored.stream().readAllBytes()).isEqualTo(expected);
+        }
+        ByteArrayOutputStream transferred = new ByteArrayOutputStream();
+        try (StoredObject stored = storage.load(prepared.getFinalKey(), 5, 12L)) {
+            stored.transferTo(transferred);
+        }
+        assertThat(transferred.toByteArray()).isEqualTo(expected);
+        assertThat(storage.stat(prepared.getFinalKey()).getSize()).isEqualTo(CONTENT.length);
+    }
+
+    @Test
+    void streamingUploadWritesStagingFileAndCommits() throws Exception {
+        StreamingUpload upload = storage.openUpload("tickets.json", "application/json", false);
+        upload.write(CONTENT, 0, CONTENT.length);
+        upload.finish();
+
+        PreparedObject committed = upload.commit();
+
+        assertThat(committed.getContentEncoding()).isNull();
+        assertThat(committed.getOriginalSize()).isEqualTo(CONTENT.length);
+        try (StoredObject stored = storage.load(committed.getFinalKey());
+             InputStream decoded = ContentEncodings.decode(stored.stream(), committed.getContentEncoding())) {
+            assertThat(decoded.readAllBytes()).isEqualTo(CONTENT);
+        }
+    }
+
+    @Test
+    void reuseFindsOnlyCommittedFiles() {
+        PreparedObject prepared = storage.prepareUpload("tickets.json", CONTENT, "application/json");
+        String hash = prepared.getContentHash();
+
+        assertThat(storage.reuse(prepared.getFinalKey(), null, null, "application/json", null, hash)).isEmpty();
+
+        prepared.commit();
+
+        assertThat(storage.reuse(prepared.getFinalKey(), null, null, "application/json", null, hash))
+                .get()
+                .satisfies(reused -> {
+                    assertThat(reused.isReused()).isTrue();
+                    assertThat(reused.getSize()).isEqualTo(CONTENT.length);
+                });
+    }
+
+    @Test
+    void removeDeletesFilesAndReportsInvalidKeys() {
+        PreparedObject prepared = storage.prepareUpload("tickets.json", CONTENT, "application/json");
+        prepared.commit();
+
+        List<String> failed = storage.remove(List.of(prepared.getFinalKey(), "missing.json", "../outside.json"));
+
+        assertThat(root.resolve(prepared.getFinalKey())).doesNotExist();
+        assertThat(failed).containsExactly("../outside.json");
+    }
+
+    @Test
+    void rejectsKeysOutsideRoot() {
+        assertThrows(StorageException.class, () -> storage.load("../outside.json"));
+    }
+
+    private List<Path> stagingFiles() throws Exception {
+        try (Stream<Path> files = Files.list(root.resolve(".staging"))) {
+            return files.toList();
+        }
+    }
+}
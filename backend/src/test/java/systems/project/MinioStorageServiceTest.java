@@ -0,0 +1,155 @@
+package systems.project;
+
+import io.minio.DeleteObjectTagsArgs;
+import io.minio.MinioClient;
+import io.minio.PutObjectArgs;
+import io.minio.RemoveObjectArgs;
+import io.minio.RemoveObjectsArgs;
+import io.minio.Result;
+import io.minio.StatObjectResponse;
+import io.minio.messages.Item;
+import io.minio.messages.Tags;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.quality.Strictness;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import systems.project.configuratons.StorageProperties;
+import systems.project.models.storage.ObjectPromotion;
+import systems.project.models.storage.PreparedObject;
+import systems.project.services.storage.MinioStorageService;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+@ExtendWith(MockitoExtension.class)
+class MinioStorageServiceTest {
+
+    private static final byte[] CONTENT = "[{\"name\":\"A\"}]".getBytes(StandardCharsets.UTF_8);
+    private static final String PENDING_TAG = ObjectPromotion.STATE_TAG + "=" + ObjectPromotion.PENDING;
+
+    @Mock
+    private MinioClient minioClient;
+
+    private StorageProperties properties;
+    private MinioStorageService storage;
+
+    @BeforeEach
+    void setUp() {
+        properties = new StorageProperties();
+        properties.setBucket("ticket-imports");
+        properties.setCompress(false);
+        storage = new MinioStorageService(minioClient, properties, Logger.getAnonymousLogger(),
+                new SimpleAsyncTaskExecutor());
+    }
+
+    @Test
+    void tagCommitDropsPendingTagFromFinalKey() throws Exception {
+        PreparedObject prepared = storage.prepareUpload("tickets.json", CONTENT, "application/json");
+
+        ArgumentCaptor<PutObjectArgs> put = ArgumentCaptor.forClass(PutObjectArgs.class);
+        verify(minioClient).putObject(put.capture());
+        assertThat(put.getValue().object()).isEqualTo(prepared.getFinalKey());
+        assertThat(put.getValue().tags().get()).containsEntry(ObjectPromotion.STATE_TAG, ObjectPromotion.PENDING);
+
+        prepared.commit();
+
+        ArgumentCaptor<DeleteObjectTagsArgs> untag = ArgumentCaptor.forClass(DeleteObjectTagsArgs.class);
+        verify(minioClient).deleteObjectTags(untag.capture());
+        assertThat(untag.getValue().object()).isEqualTo(prepared.getFinalKey());
+        verify(minioClient, never()).copyObject(any());
+    }
+
+    @Test
+    void tagRollbackRemovesFinalKey() throws Exception {
+        PreparedObject prepared = storage.prepareUpload("tickets.json", CONTENT, "application/json");
+
+        prepared.rollback();
+
+        ArgumentCaptor<RemoveObjectArgs> removed = ArgumentCaptor.forClass(RemoveObjectArgs.class);
+        verify(minioClient).removeObject(removed.capture());
+        assertThat(removed.getValue().object()).isEqualTo(prepared.getFinalKey());
+    }
+
+    @Test
+    void copyRollbackAfterCommitRemovesFinalKey() throws Exception {
+        properties.setPromotion(ObjectPromotion.COPY);
+        PreparedObject prepared = storage.prepareUpload("tickets.json", CONTENT, "application/json");
+
+        prepared.commit();
+        prepared.rollback();
+
+        ArgumentCaptor<RemoveObjectArgs> removed = ArgumentCaptor.forClass(RemoveObjectArgs.class);
+        verify(minioClient, times(2)).removeObject(removed.capture());
+        assertThat(removed.getAllValues()).extracting(RemoveObjectArgs::object)
+                .containsExactly(prepared.getFinalKey() + ".tmp", prepared.getFinalKey());
+    }
+
+    @Test
+    void sweepRemovesOnlyExpiredObjectsTaggedPendingInListing() throws Exception {
+        ZonedDateTime old = ZonedDateTime.now().minusHours(2);
+        List<Result<Item>> listing = List.of(
+                new Result<>(item("imports/a.json", old, "owner=ops&" + PENDING_TAG)),
+                new Result<>(item("imports/b.json", old, null)),
+                new Result<>(item("imports/c.json", old, ObjectPromotion.STATE_TAG + "=pending-review")),
+                new Result<>(item("imports/d.json", ZonedDateTime.now(), PENDING_TAG)));
+        when(minioClient.listObjects(any())).thenReturn(listing);
+        when(minioClient.removeObjects(any())).thenReturn(List.of());
+
+        assertThat(storage.sweepPending()).isEqualTo(1);
+
+        ArgumentCaptor<RemoveObjectsArgs> removed = ArgumentCaptor.forClass(RemoveObjectsArgs.class);
+        verify(minioClient).removeObjects(removed.capture());
+        assertThat(removed.getValue().objects()).hasSize(1);
+        // объекты без тегов в листинге поштучно не проверяются
+        verify(minioClient, never()).getObjectTags(any());
+    }
+
+    @Test
+    void sweepSkipsUnreadableListingEntries() throws Exception {
+        List<Result<Item>> listing = List.of(
+                new Result<>(new IOException("обрыв соединения")),
+                new Result<>(item("imports/a.json", ZonedDateTime.now().minusHours(2), PENDING_TAG)));
+        when(minioClient.listObjects(any())).thenReturn(listing);
+        when(minioClient.removeObjects(any())).thenReturn(List.of());
+
+        assertThat(storage.sweepPending()).isEqualTo(1);
+    }
+
+    @Test
+    void reuseSkipsObjectStillTaggedPending() throws Exception {
+        when(minioClient.statObject(any())).thenReturn(mock(StatObjectResponse.class));
+        when(minioClient.getObjectTags(any()))
+                .thenReturn(Tags.newObjectTags(Map.of(ObjectPromotion.STATE_TAG, ObjectPromotion.PENDING)))
+                .thenReturn(Tags.newObjectTags(Map.of()));
+
+        assertThat(storage.reuse("imports/a.json", 10L, 10L, "application/json", null, "hash")).isEmpty();
+        assertThat(storage.reuse("imports/a.json", 10L, 10L, "application/json", null, "hash"))
+                .get()
+                .satisfies(reused -> assertThat(reused.isReused()).isTrue());
+    }
+
+    private static Item item(String name, ZonedDateTime lastModified, String userTags) {
+        Item item = mock(Item.class, withSettings().strictness(Strictness.LENIENT));
+        when(item.objectName()).thenReturn(name);
+        when(item.lastModified()).thenReturn(lastModified);
+        when(item.userTags()).thenReturn(userTags);
+        return item;
+    }
+}
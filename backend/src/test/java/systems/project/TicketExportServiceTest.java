@@ -0,0 +1,93 @@
+package systems.project;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import systems.project.exceptions.InvalidDataException;
+import systems.project.models.Coordinates;
+import systems.project.models.Ticket;
+import systems.project.models.TicketType;
+import systems.project.repositories.TicketRepository;
+import systems.project.services.exports.TicketExportFormat;
+import systems.project.services.exports.TicketExportService;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TicketExportServiceTest {
+
+    @Mock
+    private TicketRepository ticketRepository;
+    @Mock
+    private EntityManager entityManager;
+
+    private TicketExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        exportService = new TicketExportService(ticketRepository, entityManager,
+                new ObjectMapper().findAndRegisterModules());
+    }
+
+    @Test
+    void exportWritesOneJsonObjectPerLine() throws Exception {
+        Ticket first = ticket(1, "A", null);
+        Ticket second = ticket(2, "B", null);
+        when(ticketRepository.streamAllForExport()).thenReturn(Stream.of(first, second));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long written = exportService.export(TicketExportFormat.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(written).isEqualTo(2);
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).startsWith("{").contains("\"name\":\"A\"");
+        assertThat(lines[1]).contains("\"name\":\"B\"");
+        verify(entityManager).detach(first);
+        verify(entityManager).detach(second);
+    }
+
+    @Test
+    void exportEscapesCsvValues() throws Exception {
+        when(ticketRepository.streamAllForExport())
+                .thenReturn(Stream.of(ticket(7, "Row, \"quoted\"", "note")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.export(TicketExportFormat.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines[0]).startsWith("id,name,creationDate");
+        assertThat(lines[1]).startsWith("7,\"Row, \"\"quoted\"\"\",,10.0,VIP,,3,note,1,2.0,,,");
+    }
+
+    @Test
+    void parseRejectsUnknownFormat() {
+        assertThrows(InvalidDataException.class, () -> TicketExportFormat.parse("xml"));
+    }
+
+    private Ticket ticket(int id, String name, String comment) {
+        Ticket ticket = new Ticket();
+        ticket.setId(id);
+        ticket.setName(name);
+        ticket.setPrice(10f);
+        ticket.setType(TicketType.VIP);
+        ticket.setNumber(3);
+        ticket.setComment(comment);
+        Coordinates coordinates = new Coordinates();
+        coordinates.setX(1);
+        coordinates.setY(2f);
+        ticket.setCoordinates(coordinates);
+        return ticket;
+    }
+}
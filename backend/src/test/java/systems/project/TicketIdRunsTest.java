@@ -0,0 +1,38 @@
+package systems.project;
+
+import org.junit.jupiter.api.Test;
+import systems.project.models.TicketIdRuns;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TicketIdRunsTest {
+
+    @Test
+    void encodesConsecutiveIdsAsRuns() {
+        int[] runs = TicketIdRuns.encode(List.of(10, 11, 12, 20, 21, 5));
+
+        assertThat(runs).containsExactly(10, 3, 20, 2, 5, 1);
+        assertThat(TicketIdRuns.count(runs)).isEqualTo(6);
+        assertThat(TicketIdRuns.decode(runs)).containsExactly(10, 11, 12, 20, 21, 5);
+    }
+
+    @Test
+    void appendExtendsLastRun() {
+        int[] runs = TicketIdRuns.encode(List.of(1, 2));
+
+        runs = TicketIdRuns.append(runs, List.of(3, 4, 7));
+
+        assertThat(runs).containsExactly(1, 4, 7, 1);
+    }
+
+    @Test
+    void sliceSkipsWholeRunsAndStopsAtLimit() {
+        int[] runs = TicketIdRuns.encode(List.of(1, 2, 3, 100, 101, 102, 103));
+
+        assertThat(TicketIdRuns.slice(runs, 4, 2)).containsExactly(101, 102);
+        assertThat(TicketIdRuns.slice(runs, 6, 10)).containsExactly(103);
+        assertThat(TicketIdRuns.slice(runs, 7, 10)).isEmpty();
+    }
+}
@@ -1,38 +1,70 @@
 package systems.project;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
 import org.springframework.transaction.support.TransactionSynchronization;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
+import systems.project.configuratons.ImportProperties;
 import systems.project.exceptions.InvalidDataException;
+import systems.project.exceptions.ResourceNotFoundException;
+import systems.project.models.Event;
 import systems.project.models.ImportFileLog;
 import systems.project.models.ImportStatus;
 import systems.project.models.Ticket;
 import systems.project.models.api.ImportResult;
 import systems.project.models.storage.PreparedObject;
+import systems.project.models.storage.StoredObject;
+import systems.project.models.storage.StreamingUpload;
 import systems.project.repositories.ImportFileLogRepository;
 import systems.project.services.command.TicketCommandService;
+import systems.project.services.imports.ImportConnectionBudget;
+import systems.project.services.imports.ImportProgressService;
+import systems.project.services.imports.TicketImportChunkWriter;
 import systems.project.services.imports.TicketImportCoordinator;
+import systems.project.services.imports.TicketImportFormat;
 import systems.project.services.imports.TicketImportParser;
-import systems.project.services.storage.MinioStorageService;
+import systems.project.services.imports.TicketImportPartitionWriter;
+import systems.project.services.storage.ContentEncodings;
+import systems.project.services.storage.ContentHashes;
+import systems.project.services.storage.StorageService;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.GZIPOutputStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -45,13 +77,27 @@ class TicketImportCoordinatorTest {
     @Mock
     private TicketImportParser parser;
     @Mock
-    private MinioStorageService storageService;
+    private StorageService storageService;
     @Mock
     private ImportFileLogRepository logRepository;
     @Mock
     private MultipartFile multipartFile;
     @Mock
     private PreparedObject preparedObject;
+    @Mock
+    private TicketImportChunkWriter chunkWriter;
+    @Mock
+    private StoredObject storedObject;
+    @Mock
+    private ImportProgressService progress;
+    @Mock
+    private TicketImportPartitionWriter partitionWriter;
+    @Mock
+    private ImportConnectionBudget connectionBudget;
+    @Spy
+    private ImportProperties importProperties = new ImportProperties();
+    @Spy
+    private AsyncTaskExecutor writerExecutor = new TaskExecutorAdapter(Runnable::run);
 
     @Captor
     private ArgumentCaptor<ImportFileLog> logCaptor;
@@ -80,7 +126,7 @@ class TicketImportCoordinatorTest {
         when(multipartFile.getOriginalFilename()).thenReturn("tickets.json");
         when(multipartFile.getContentType()).thenReturn("application/json");
         List<Ticket> parsed = List.of(new Ticket());
-        when(parser.parse(bytes)).thenReturn(parsed);
+        when(parser.parse(bytes, TicketImportFormat.JSON)).thenReturn(parsed);
         when(storageService.prepareUpload(eq("tickets.json"), eq(bytes), eq("application/json")))
                 .thenReturn(preparedObject);
         when(preparedObject.getFinalKey()).thenReturn("imports/2025/01/tickets.json");
@@ -100,7 +146,7 @@ class TicketImportCoordinatorTest {
                 .build();
         when(commandService.importTickets(parsed)).thenReturn(commandResult);
 
-        ImportResult result = coordinator.importFromFile(multipartFile);
+        ImportResult result = coordinator.importFromFile(multipartFile, false);
 
         TransactionSynchronization sync = TransactionSynchronizationManager.getSynchronizations().get(0);
         sync.beforeCommit(false);
@@ -123,7 +169,7 @@ class TicketImportCoordinatorTest {
         when(multipartFile.getBytes()).thenReturn(bytes);
         when(multipartFile.getOriginalFilename()).thenReturn("broken.json");
         when(multipartFile.getContentType()).thenReturn("application/json");
-        when(parser.parse(bytes)).thenReturn(Collections.singletonList(new Ticket()));
+        when(parser.parse(bytes, TicketImportFormat.JSON)).thenReturn(Collections.singletonList(new Ticket()));
         when(storageService.prepareUpload(eq("broken.json"), eq(bytes), eq("application/json")))
                 .thenReturn(preparedObject);
         when(preparedObject.getFinalKey()).thenReturn("imports/tmp/broken.json");
@@ -132,7 +178,7 @@ class TicketImportCoordinatorTest {
         when(logRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
         when(commandService.importTickets(any())).thenThrow(new InvalidDataException("boom"));
 
-        assertThrows(InvalidDataException.class, () -> coordinator.importFromFile(multipartFile));
+        assertThrows(InvalidDataException.class, () -> coordinator.importFromFile(multipartFile, false));
 
         TransactionSynchronization sync = TransactionSynchronizationManager.getSynchronizations().get(0);
         sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
@@ -151,7 +197,7 @@ class TicketImportCoordinatorTest {
         when(multipartFile.getBytes()).thenReturn(bytes);
         when(multipartFile.getOriginalFilename()).thenReturn("runtime.json");
         when(multipartFile.getContentType()).thenReturn("application/json");
-        when(parser.parse(bytes)).thenReturn(Collections.singletonList(new Ticket()));
+        when(parser.parse(bytes, TicketImportFormat.JSON)).thenReturn(Collections.singletonList(new Ticket()));
         when(storageService.prepareUpload(eq("runtime.json"), eq(bytes), eq("application/json")))
                 .thenReturn(preparedObject);
         when(preparedObject.getFinalKey()).thenReturn("imports/tmp/runtime.json");
@@ -160,7 +206,7 @@ class TicketImportCoordinatorTest {
         when(logRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
         when(commandService.importTickets(any())).thenThrow(new RuntimeException("unexpected"));
 
-        assertThrows(RuntimeException.class, () -> coordinator.importFromFile(multipartFile));
+        assertThrows(RuntimeException.class, () -> coordinator.importFromFile(multipartFile, false));
 
         TransactionSynchronization sync = TransactionSynchronizationManager.getSynchronizations().get(0);
         sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
@@ -172,4 +218,601 @@ class TicketImportCoordinatorTest {
         assertThat(failedLog.getStatus()).isEqualTo(ImportStatus.FAILED);
         assertThat(failedLog.getErrorMessage()).contains("unexpected");
     }
+
+    @Test
+    void idempotentImportReturnsPreviousResultWithoutParsing() throws Exception {
+        byte[] bytes = tickets("A").getBytes();
+        when(multipartFile.getBytes()).thenReturn(bytes);
+        ImportFileLog previous = ImportFileLog.builder()
+                .id(5L)
+                .originalFilename("tickets.json")
+                .storageKey("imports/2025/01/tickets.json")
+                .status(ImportStatus.SUCCESS)
+                .requested(1)
+                .imported(1)
+                .ticketIds(new ArrayList<>(List.of(42)))
+                .build();
+        when(logRepository.findFirstByContentHashAndStatusOrderByIdDesc(ContentHashes.sha256(bytes),
+                ImportStatus.SUCCESS)).thenReturn(Optional.of(previous));
+
+        ImportResult result = coordinator.importFromFile(multipartFile, true);
+
+        assertThat(result.getReplayed()).isTrue();
+        assertThat(result.getLogId()).isEqualTo(5L);
+        assertThat(result.getTicketIds()).containsExactly(42);
+        verify(parser, never()).parse(any(byte[].class), any());
+        verify(storageService, never()).prepareUpload(any(), any(byte[].class), any());
+        verify(commandService, never()).importTickets(any());
+        verify(logRepository, never()).save(any());
+    }
+
+    @Test
+    void importFromFileReusesStoredObjectWithSameContent() throws Exception {
+        byte[] bytes = tickets("A").getBytes();
+        String hash = ContentHashes.sha256(bytes);
+        when(multipartFile.getBytes()).thenReturn(bytes);
+        when(multipartFile.getOriginalFilename()).thenReturn("copy.json");
+        when(multipartFile.getContentType()).thenReturn("application/json");
+        List<Ticket> parsed = List.of(new Ticket());
+        when(parser.parse(bytes, TicketImportFormat.JSON)).thenReturn(parsed);
+        ImportFileLog previous = ImportFileLog.builder()
+                .id(5L)
+                .storageKey("imports/2025/01/tickets.json")
+                .contentType("application/json")
+                .size((long) bytes.length)
+                .originalSize((long) bytes.length)
+                .contentHash(hash)
+                .build();
+        when(logRepository.findFirstByContentHashOrderByIdDesc(hash)).thenReturn(Optional.of(previous));
+        when(logRepository.markReused(eq("imports/2025/01/tickets.json"), any())).thenReturn(1);
+        when(storageService.reuse("imports/2025/01/tickets.json", (long) bytes.length, (long) bytes.length,
+                "application/json", null, hash))
+                .thenReturn(Optional.of(PreparedObject.reused("imports/2025/01/tickets.json", bytes.length,
+                        (long) bytes.length, "application/json", null, hash)));
+        when(logRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(commandService.importTickets(parsed))
+                .thenReturn(ImportResult.builder().requested(1).imported(1).ticketIds(List.of(43)).build());
+
+        ImportResult result = coordinator.importFromFile(multipartFile, false);
+
+        TransactionSynchronization sync = TransactionSynchronizationManager.getSynchronizations().get(0);
+        sync.beforeCommit(false);
+        sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertThat(result.getStorageKey()).isEqualTo("imports/2025/01/tickets.json");
+        assertThat(result.getReplayed()).isNull();
+        verify(storageService, never()).prepareUpload(any(), any(byte[].class), any());
+        verify(logRepository, atLeast(2)).save(logCaptor.capture());
+        assertThat(logCaptor.getValue().getContentHash()).isEqualTo(hash);
+        assertThat(logCaptor.getValue().getOriginalFilename()).isEqualTo("copy.json");
+    }
+
+    @Test
+    void importFromFileUploadsAgainWhenRetentionAlreadyClaimedStoredObject() throws Exception {
+        byte[] bytes = tickets("A").getBytes();
+        String hash = ContentHashes.sha256(bytes);
+        when(multipartFile.getBytes()).thenReturn(bytes);
+        when(multipartFile.getOriginalFilename()).thenReturn("tickets.json");
+        when(multipartFile.getContentType()).thenReturn("application/json");
+        List<Ticket> parsed = List.of(new Ticket());
+        when(parser.parse(bytes, TicketImportFormat.JSON)).thenReturn(parsed);
+        when(logRepository.findFirstByContentHashOrderByIdDesc(hash)).thenReturn(Optional.of(ImportFileLog.builder()
+                .id(5L)
+                .storageKey("imports/2025/01/old.json")
+                .contentHash(hash)
+                .build()));
+        // запись уже помечена очисткой: её файл вот-вот удалят
+        when(logRepository.markReused(eq("imports/2025/01/old.json"), any())).thenReturn(0);
+        when(storageService.prepareUpload(eq("tickets.json"), eq(bytes), eq("application/json")))
+                .thenReturn(preparedObject);
+        when(preparedObject.getFinalKey()).thenReturn("imports/2025/02/tickets.json");
+        when(logRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(commandService.importTickets(parsed))
+                .thenReturn(ImportResult.builder().requested(1).imported(1).ticketIds(List.of(43)).build());
+
+        ImportResult result = coordinator.importFromFile(multipartFile, false);
+
+        assertThat(result.getStorageKey()).isEqualTo("imports/2025/02/tickets.json");
+        verify(storageService, never()).reuse(any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void importFromFileChunkedCommitsEveryChunk() throws Exception {
+        byte[] bytes = tickets("A", "B", "C").getBytes();
+        ByteArrayOutputStream uploaded = stubChunkedUpload(bytes);
+        streamThroughRealParser();
+        List<String> chunks = recordChunks();
+        ImportResult completed = ImportResult.builder().requested(3).imported(3).logId(7L).build();
+        when(chunkWriter.complete(7L)).thenReturn(completed);
+
+        ImportResult result = coordinator.importFromFileChunked(multipartFile, 2);
+
+        InOrder order = inOrder(preparedObject, chunkWriter);
+        order.verify(preparedObject).commit();
+        order.verify(chunkWriter).complete(7L);
+        assertThat(chunks).containsExactly("1:[A, B]", "3:[C]");
+        assertThat(uploaded.toByteArray()).isEqualTo(bytes);
+        assertThat(result).isSameAs(completed);
+        verify(multipartFile, never()).getBytes();
+    }
+
+    @Test
+    void importFromFileChunkedKeepsGzipUploadCompressedAndParsesItOnTheFly() throws Exception {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(tickets("A", "B", "C").getBytes());
+        }
+        byte[] bytes = compressed.toByteArray();
+        ByteArrayOutputStream uploaded = stubChunkedUpload(bytes);
+        when(multipartFile.getSize()).thenReturn((long) bytes.length);
+        streamThroughRealParser();
+        List<String> chunks = recordChunks();
+
+        coordinator.importFromFileChunked(multipartFile, 2);
+
+        assertThat(chunks).containsExactly("1:[A, B]", "3:[C]");
+        assertThat(uploaded.toByteArray()).isEqualTo(bytes);
+        verify(logRepository).save(logCaptor.capture());
+        assertThat(logCaptor.getValue().getContentEncoding()).isEqualTo(ContentEncodings.GZIP);
+        assertThat(logCaptor.getValue().getOriginalSize()).isNull();
+        verify(logRepository).updateStoredObject(eq(7L), any(), anyLong(), any(), any(), any());
+    }
+
+    @Test
+    void importFromFileChunkedStoresWholeFileWhenParsingFails() throws Exception {
+        byte[] bytes = (tickets("A", "B").replace("]", ",{\"price\":\"oops\"},") + tickets("C").substring(1))
+                .getBytes();
+        ByteArrayOutputStream uploaded = stubChunkedUpload(bytes);
+        streamThroughRealParser();
+        List<String> chunks = recordChunks();
+
+        InvalidDataException ex = assertThrows(InvalidDataException.class,
+                () -> coordinator.importFromFileChunked(multipartFile, 2));
+
+        assertThat(ex.getMessage()).startsWith("Запись #3");
+        assertThat(chunks).containsExactly("1:[A, B]");
+        assertThat(uploaded.toByteArray()).isEqualTo(bytes);
+        verify(preparedObject).commit();
+        verify(preparedObject, never()).rollback();
+        verify(chunkWriter).fail(7L, ex.getMessage());
+        verify(chunkWriter, never()).complete(any());
+    }
+
+    @Test
+    void runJobRequiresPendingStatus() {
+        ImportFileLog running = ImportFileLog.builder().id(9L).status(ImportStatus.RUNNING).chunkSize(2).build();
+        when(logRepository.findById(9L)).thenReturn(Optional.of(running));
+        when(logRepository.transitionStatus(9L, ImportStatus.PENDING, ImportStatus.RUNNING, "local")).thenReturn(0);
+
+        assertThrows(InvalidDataException.class, () -> coordinator.runJob(9L));
+
+        verify(storageService, never()).load(any());
+    }
+
+    @Test
+    void resumeSkipsCommittedRecords() throws Exception {
+        ImportFileLog failed = ImportFileLog.builder()
+                .id(7L)
+                .storageKey("imports/chunked.json")
+                .status(ImportStatus.FAILED)
+                .chunkSize(2)
+                .committedPosition(2)
+                .build();
+        when(logRepository.findById(7L)).thenReturn(Optional.of(failed));
+        when(logRepository.markReused(eq("imports/chunked.json"), any())).thenReturn(1);
+        when(logRepository.transitionStatus(7L, ImportStatus.FAILED, ImportStatus.RUNNING, "local")).thenReturn(1);
+        when(storageService.exists("imports/chunked.json")).thenReturn(true);
+        when(storageService.load("imports/chunked.json")).thenReturn(storedObject);
+        when(storedObject.stream()).thenReturn(new ByteArrayInputStream(tickets("A", "B", "C").getBytes()));
+        streamThroughRealParser();
+        List<String> chunks = recordChunks();
+
+        coordinator.resume(7L);
+
+        assertThat(chunks).containsExactly("3:[C]");
+        verify(chunkWriter).complete(7L);
+        verify(progress).advance(eq(7L), eq(3), anyLong());
+        verify(progress).finish(7L, ImportStatus.SUCCESS);
+    }
+
+    @Test
+    void resumeAfterCrashMidImportReportsFileThatNeverReachedStorage() throws Exception {
+        stubChunkedUpload(tickets("A", "B", "C").getBytes());
+        streamThroughRealParser();
+        List<String> chunks = new ArrayList<>();
+        when(chunkWriter.write(eq(7L), anyList(), anyInt(), anyLong())).thenAnswer(invocation -> {
+            List<Ticket> chunk = invocation.getArgument(1);
+            int first = invocation.getArgument(2);
+            if (first > 1) {
+                // процесс умирает: ни обработка ошибки, ни фиксация загрузки уже не выполняются
+                throw new OutOfMemoryError("процесс остановлен");
+            }
+            chunks.add(first + ":" + chunk.stream().map(Ticket::getName).toList());
+            return first + chunk.size() - 1;
+        });
+
+        assertThrows(OutOfMemoryError.class, () -> coordinator.importFromFileChunked(multipartFile, 2));
+
+        verify(preparedObject, never()).commit();
+        // после перезапуска failInterrupted оставил запись в таком виде
+        ImportFileLog interrupted = ImportFileLog.builder()
+                .id(7L)
+                .storageKey("imports/chunked.json")
+                .status(ImportStatus.FAILED)
+                .chunkSize(2)
+                .committedPosition(2)
+                .build();
+        when(logRepository.findById(7L)).thenReturn(Optional.of(interrupted));
+        when(logRepository.markReused(eq("imports/chunked.json"), any())).thenReturn(1);
+        when(logRepository.transitionStatus(7L, ImportStatus.FAILED, ImportStatus.RUNNING, "local")).thenReturn(1);
+        when(storageService.exists("imports/chunked.json")).thenReturn(false);
+
+        InvalidDataException ex = assertThrows(InvalidDataException.class, () -> coordinator.resume(7L));
+
+        assertThat(ex.getMessage()).contains("не сохранился в хранилище").contains("Первые 2 записей");
+        assertThat(chunks).containsExactly("1:[A, B]");
+        verify(chunkWriter).fail(7L, ex.getMessage());
+        verify(storageService, never()).load(any());
+    }
+
+    @Test
+    void failInterruptedTouchesOnlyImportsOfThisInstance() {
+        importProperties.setInstanceId("node-a");
+
+        coordinator.failInterrupted();
+
+        verify(logRepository).failUnfinished(eq(ImportStatus.FAILED), any(), any(), eq("node-a"));
+    }
+
+    @Test
+    void resumeRejectsImportWhoseFileRetentionIsRemoving() {
+        ImportFileLog failed = ImportFileLog.builder()
+                .id(19L)
+                .storageKey("imports/chunked.json")
+                .status(ImportStatus.FAILED)
+                .chunkSize(2)
+                .committedPosition(2)
+                .build();
+        when(logRepository.findById(19L)).thenReturn(Optional.of(failed));
+        when(logRepository.markReused(eq("imports/chunked.json"), any())).thenReturn(0);
+
+        assertThrows(ResourceNotFoundException.class, () -> coordinator.resume(19L));
+
+        verify(logRepository, never()).transitionStatus(any(), any(), any(), any());
+        verify(storageService, never()).load(any());
+    }
+
+    @Test
+    void runJobReportsMissingRerunFileWithoutBlamingInterruptedUpload() {
+        ImportFileLog rerun = ImportFileLog.builder()
+                .id(21L)
+                .storageKey("imports/tickets.json")
+                .contentHash("abc")
+                .status(ImportStatus.PENDING)
+                .chunkSize(2)
+                .committedPosition(4)
+                .rerunOf(13L)
+                .build();
+        when(logRepository.findById(21L)).thenReturn(Optional.of(rerun));
+        when(logRepository.transitionStatus(21L, ImportStatus.PENDING, ImportStatus.RUNNING, "local")).thenReturn(1);
+        when(storageService.exists("imports/tickets.json")).thenReturn(false);
+
+        InvalidDataException ex = assertThrows(InvalidDataException.class, () -> coordinator.runJob(21L));
+
+        assertThat(ex.getMessage()).contains("больше не хранится").doesNotContain("Первые");
+        verify(chunkWriter).fail(21L, ex.getMessage());
+    }
+
+    @Test
+    void resumeRejectsUploadWhoseFileWasNeverStored() {
+        // прямая загрузка, отклонённая при подтверждении: объект удалён, ключ сброшен
+        ImportFileLog rejected = ImportFileLog.builder().id(22L).status(ImportStatus.FAILED).chunkSize(2).build();
+        when(logRepository.findById(22L)).thenReturn(Optional.of(rejected));
+
+        InvalidDataException ex = assertThrows(InvalidDataException.class, () -> coordinator.resume(22L));
+
+        assertThat(ex.getMessage()).contains("больше не хранится");
+        verify(logRepository, never()).markReused(any(), any());
+        verify(logRepository, never()).transitionStatus(any(), any(), any(), any());
+    }
+
+    @Test
+    void resumeRejectsSingleTransactionImport() {
+        ImportFileLog log = ImportFileLog.builder().id(8L).status(ImportStatus.FAILED).build();
+        when(logRepository.findById(8L)).thenReturn(Optional.of(log));
+
+        assertThrows(InvalidDataException.class, () -> coordinator.resume(8L));
+
+        verify(logRepository, never()).transitionStatus(any(), any(), any(), any());
+    }
+
+    @Test
+    void completeUploadPromotesDirectUploadAndQueuesLog() throws Exception {
+        ImportFileLog uploading = ImportFileLog.builder()
+                .id(11L)
+                .storageKey("imports/direct.json.tmp")
+                .contentType("application/json")
+                .status(ImportStatus.UPLOADING)
+                .chunkSize(2)
+                .build();
+        when(logRepository.findById(11L)).thenReturn(Optional.of(uploading));
+        when(storageService.adoptUpload("imports/direct.json.tmp", "application/json"))
+                .thenReturn(Optional.of(preparedObject));
+        when(preparedObject.getSize()).thenReturn(42L);
+        when(preparedObject.getOriginalSize()).thenReturn(42L);
+        when(preparedObject.getFinalKey()).thenReturn("imports/direct.json");
+        when(logRepository.transitionStatus(11L, ImportStatus.UPLOADING, ImportStatus.PENDING, "local")).thenReturn(1);
+
+        coordinator.completeUpload(11L);
+
+        InOrder order = inOrder(logRepository, preparedObject);
+        order.verify(logRepository).transitionStatus(11L, ImportStatus.UPLOADING, ImportStatus.PENDING, "local");
+        order.verify(preparedObject).commit();
+        order.verify(logRepository).updateStoredObject(11L, "imports/direct.json", 42L, 42L, null, null);
+    }
+
+    @Test
+    void completeUploadRejectsMissingObject() {
+        ImportFileLog uploading = ImportFileLog.builder()
+                .id(12L)
+                .storageKey("imports/direct.json.tmp")
+                .status(ImportStatus.UPLOADING)
+                .chunkSize(2)
+                .build();
+        when(logRepository.findById(12L)).thenReturn(Optional.of(uploading));
+        when(storageService.adoptUpload("imports/direct.json.tmp", null)).thenReturn(Optional.empty());
+
+        assertThrows(InvalidDataException.class, () -> coordinator.completeUpload(12L));
+
+        verify(logRepository, never()).transitionStatus(any(), any(), any(), any());
+    }
+
+    @Test
+    void completeUploadDeletesObjectOverSizeLimit() {
+        importProperties.setMaxUploadSize(DataSize.ofBytes(10));
+        ImportFileLog uploading = ImportFileLog.builder()
+                .id(16L)
+                .storageKey("imports/huge.json.tmp")
+                .status(ImportStatus.UPLOADING)
+                .chunkSize(2)
+                .build();
+        when(logRepository.findById(16L)).thenReturn(Optional.of(uploading));
+        when(storageService.adoptUpload("imports/huge.json.tmp", null)).thenReturn(Optional.of(preparedObject));
+        when(preparedObject.getSize()).thenReturn(42L);
+
+        InvalidDataException ex = assertThrows(InvalidDataException.class, () -> coordinator.completeUpload(16L));
+
+        verify(preparedObject).rollback();
+        verify(preparedObject, never()).commit();
+        verify(logRepository).updateStoredObject(16L, null, null, null, null, null);
+        verify(chunkWriter).fail(16L, ex.getMessage());
+        verify(logRepository, never()).transitionStatus(any(), any(), any(), any());
+    }
+
+    @Test
+    void rerunOnlyFailedSkipsCommittedRecordsAndLinksOriginal() throws Exception {
+        ImportFileLog failed = ImportFileLog.builder()
+                .id(13L)
+                .originalFilename("tickets.json")
+                .storageKey("imports/tickets.json")
+                .contentHash("abc")
+                .status(ImportStatus.FAILED)
+                .chunkSize(2)
+                .committedPosition(4)
+                .build();
+        when(logRepository.findById(13L)).thenReturn(Optional.of(failed));
+        when(logRepository.markReused(eq("imports/tickets.json"), any())).thenReturn(1);
+        when(storageService.exists("imports/tickets.json")).thenReturn(true);
+        when(logRepository.save(any(ImportFileLog.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        ImportFileLog rerun = coordinator.submitRerun(13L, null, true);
+
+        assertThat(rerun.getRerunOf()).isEqualTo(13L);
+        assertThat(rerun.getStorageKey()).isEqualTo("imports/tickets.json");
+        assertThat(rerun.getCommittedPosition()).isEqualTo(4);
+        assertThat(rerun.getStatus()).isEqualTo(ImportStatus.PENDING);
+        verify(storageService, never()).load(any());
+    }
+
+    @Test
+    void rerunRejectsLogAlreadyMarkedByRetention() {
+        ImportFileLog expired = ImportFileLog.builder()
+                .id(17L)
+                .storageKey("imports/tickets.json")
+                .status(ImportStatus.SUCCESS)
+                .expiredAt(LocalDateTime.now())
+                .build();
+        when(logRepository.findById(17L)).thenReturn(Optional.of(expired));
+
+        assertThrows(ResourceNotFoundException.class, () -> coordinator.submitRerun(17L, null, false));
+
+        verify(logRepository, never()).markReused(any(), any());
+        verify(logRepository, never()).save(any());
+    }
+
+    @Test
+    void rerunRejectsLogMarkedByRetentionWhileReading() {
+        ImportFileLog done = ImportFileLog.builder()
+                .id(18L)
+                .storageKey("imports/tickets.json")
+                .status(ImportStatus.SUCCESS)
+                .build();
+        when(logRepository.findById(18L)).thenReturn(Optional.of(done));
+        // очистка пометила запись между чтением и отметкой о повторном использовании
+        when(logRepository.markReused(eq("imports/tickets.json"), any())).thenReturn(0);
+
+        assertThrows(ResourceNotFoundException.class, () -> coordinator.submitRerun(18L, null, false));
+
+        verify(logRepository, never()).save(any());
+    }
+
+    @Test
+    void rerunReportsSourceFileNoLongerStored() {
+        ImportFileLog done = ImportFileLog.builder()
+                .id(20L)
+                .storageKey("imports/tickets.json")
+                .status(ImportStatus.SUCCESS)
+                .build();
+        when(logRepository.findById(20L)).thenReturn(Optional.of(done));
+        when(logRepository.markReused(eq("imports/tickets.json"), any())).thenReturn(1);
+        when(storageService.exists("imports/tickets.json")).thenReturn(false);
+
+        ResourceNotFoundException ex = assertThrows(ResourceNotFoundException.class,
+                () -> coordinator.submitRerun(20L, null, false));
+
+        assertThat(ex.getMessage()).contains("больше не хранится");
+        verify(logRepository, never()).save(any());
+    }
+
+    @Test
+    void rerunOnlyFailedRejectsSuccessfulImport() {
+        ImportFileLog done = ImportFileLog.builder().id(14L).storageKey("k").status(ImportStatus.SUCCESS).build();
+        when(logRepository.findById(14L)).thenReturn(Optional.of(done));
+
+        assertThrows(InvalidDataException.class, () -> coordinator.submitRerun(14L, null, true));
+
+        verify(logRepository, never()).save(any());
+    }
+
+    @Test
+    void rerunOnlyFailedRejectsParallelImportInterruptedAfterPartitionCommits() {
+        ImportFileLog interrupted = ImportFileLog.builder()
+                .id(15L)
+                .storageKey("k")
+                .status(ImportStatus.FAILED)
+                .partitions(3)
+                .committedPartitions(1)
+                .ticketIds(List.of(10, 11))
+                .build();
+        when(logRepository.findById(15L)).thenReturn(Optional.of(interrupted));
+
+        assertThrows(InvalidDataException.class, () -> coordinator.submitRerun(15L, null, true));
+
+        verify(logRepository, never()).save(any());
+    }
+
+    @Test
+    void parallelImportCompensatesCommittedPartitionsWhenOnePartitionFails() throws Exception {
+        List<Ticket> parsed = List.of(withEvent("A", 1), withEvent("B", 1), withEvent("C", 2));
+        stubParallelUpload(parsed);
+        when(partitionWriter.write(anyList(), any(int[].class))).thenAnswer(invocation -> {
+            List<Ticket> records = invocation.getArgument(0);
+            if (records.get(0).getEvent().getId() == 2) {
+                throw new InvalidDataException("Запись #3: координаты заняты для события");
+            }
+            return ImportResult.builder().imported(2).ticketIds(List.of(11, 10)).build();
+        });
+
+        InvalidDataException ex = assertThrows(InvalidDataException.class,
+                () -> coordinator.importFromFileParallel(multipartFile, null, false));
+
+        assertThat(ex.getMessage()).isEqualTo("Запись #3: координаты заняты для события");
+        verify(partitionWriter).compensate(List.of(10, 11), parsed);
+        verify(logRepository).recordPartition(9L, List.of(11, 10), 2);
+        verify(connectionBudget).release(2);
+        verify(logRepository, atLeast(2)).save(logCaptor.capture());
+        ImportFileLog finalLog = logCaptor.getValue();
+        assertThat(finalLog.getStatus()).isEqualTo(ImportStatus.FAILED);
+        assertThat(finalLog.getPartitions()).isEqualTo(2);
+        assertThat(finalLog.getCommittedPartitions()).isEqualTo(1);
+        assertThat(finalLog.getCompensated()).isTrue();
+        assertThat(finalLog.getTicketIds()).isEmpty();
+    }
+
+    @Test
+    void parallelImportSucceedsWhenAllPartitionsCommit() throws Exception {
+        List<Ticket> parsed = List.of(withEvent("A", 1), withEvent("B", 2));
+        stubParallelUpload(parsed);
+        when(partitionWriter.write(anyList(), any(int[].class))).thenAnswer(invocation -> {
+            int[] positions = invocation.getArgument(1);
+            return ImportResult.builder().imported(1).ticketIds(List.of(100 + positions[0])).build();
+        });
+
+        ImportResult result = coordinator.importFromFileParallel(multipartFile, 8, false);
+
+        assertThat(result.getImported()).isEqualTo(2);
+        assertThat(result.getTicketIds()).containsExactly(101, 102);
+        verify(partitionWriter, never()).compensate(anyList(), anyList());
+        verify(logRepository, atLeast(2)).save(logCaptor.capture());
+        assertThat(logCaptor.getValue().getStatus()).isEqualTo(ImportStatus.SUCCESS);
+        assertThat(logCaptor.getValue().getCommittedPartitions()).isEqualTo(2);
+    }
+
+    /**
+     * Загрузка в хранилище подменена потоком, который в отдельном потоке
+     * вычитывает всё, что парсер отдал в tee.
+     */
+    private ByteArrayOutputStream stubChunkedUpload(byte[] bytes) throws Exception {
+        when(multipartFile.getInputStream()).thenReturn(new ByteArrayInputStream(bytes));
+        when(multipartFile.getOriginalFilename()).thenReturn("chunked.json");
+        when(multipartFile.getContentType()).thenReturn("application/json");
+        boolean gzipped = ContentEncodings.isGzip(bytes);
+        StreamingUpload upload = new StreamingUpload("imports/chunked.json", "application/json",
+                gzipped ? ContentEncodings.GZIP : null, false, 2, ContentHashes.newDigest());
+        ByteArrayOutputStream uploaded = new ByteArrayOutputStream();
+        upload.attach(CompletableFuture.supplyAsync(() -> {
+            try {
+                upload.content().transferTo(uploaded);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return preparedObject;
+        }));
+        when(storageService.openUpload("chunked.json", "application/json", gzipped)).thenReturn(upload);
+        when(logRepository.save(any())).thenAnswer(invocation -> {
+            ImportFileLog log = invocation.getArgument(0);
+            log.setId(7L);
+            return log;
+        });
+        return uploaded;
+    }
+
+    private void streamThroughRealParser() throws Exception {
+        TicketImportParser realParser = new TicketImportParser(new ObjectMapper());
+        when(parser.open(any(), any())).thenAnswer(invocation -> realParser.open(
+                invocation.<InputStream>getArgument(0), invocation.<TicketImportFormat>getArgument(1)));
+    }
+
+    private List<String> recordChunks() throws Exception {
+        List<String> chunks = new ArrayList<>();
+        when(chunkWriter.write(eq(7L), anyList(), anyInt(), anyLong())).thenAnswer(invocation -> {
+            List<Ticket> chunk = invocation.getArgument(1);
+            int first = invocation.getArgument(2);
+            chunks.add(first + ":" + chunk.stream().map(Ticket::getName).toList());
+            return first + chunk.size() - 1;
+        });
+        return chunks;
+    }
+
+    private void stubParallelUpload(List<Ticket> parsed) throws Exception {
+        byte[] bytes = "[]".getBytes();
+        when(multipartFile.getBytes()).thenReturn(bytes);
+        when(multipartFile.getOriginalFilename()).thenReturn("tickets.json");
+        when(parser.parse(bytes, TicketImportFormat.JSON)).thenReturn(parsed);
+        when(storageService.prepareUpload(eq("tickets.json"), eq(bytes), any())).thenReturn(preparedObject);
+        when(connectionBudget.acquire(2)).thenReturn(2);
+        when(logRepository.save(any())).thenAnswer(invocation -> {
+            ImportFileLog log = invocation.getArgument(0);
+            log.setId(9L);
+            return log;
+        });
+    }
+
+    private Ticket withEvent(String name, int eventId) {
+        Event event = new Event();
+        event.setId(eventId);
+        Ticket ticket = new Ticket();
+        ticket.setName(name);
+        ticket.setEvent(event);
+        return ticket;
+    }
+
+    private String tickets(String... names) {
+        List<String> items = new ArrayList<>();
+        for (String name : names) {
+            items.add("{\"name\":\"" + name + "\",\"price\":1,\"number\":1,\"type\":\"VIP\","
+                    + "\"coordinates\":{\"x\":1,\"y\":1.0}}");
+        }
+        return "[" + String.join(",", items) + "]";
+    }
 }
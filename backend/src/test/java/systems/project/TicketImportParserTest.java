@@ -0,0 +1,123 @@
+package systems.project;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import systems.project.exceptions.ImportFormatException;
+import systems.project.exceptions.InvalidDataException;
+import systems.project.models.Ticket;
+import systems.project.services.imports.TicketImportFormat;
+import systems.project.services.imports.TicketImportParser;
+import systems.project.services.imports.TicketImportReader;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TicketImportParserTest {
+
+    private static final String TICKET = "{\"name\":\"%s\",\"price\":1,\"number\":1,\"type\":\"VIP\","
+            + "\"coordinates\":{\"x\":1,\"y\":1.0}}";
+
+    private final TicketImportParser parser = new TicketImportParser(new ObjectMapper().findAndRegisterModules());
+
+    @Test
+    void parseFindsWrappedArrayAfterOtherFields() throws Exception {
+        String json = "{\"meta\":{\"tickets\":[1,2]},\"data\":null,\"tickets\":["
+                + TICKET.formatted("A") + "," + TICKET.formatted("B") + "]}";
+
+        List<Ticket> tickets = parser.parse(bytes(json));
+
+        assertEquals(2, tickets.size());
+        assertEquals("B", tickets.get(1).getName());
+    }
+
+    @Test
+    void readerYieldsTicketsOneByOne() throws Exception {
+        String json = "[" + TICKET.formatted("A") + ",{\"price\":\"oops\"}]";
+
+        try (TicketImportReader reader = parser.open(new ByteArrayInputStream(bytes(json)))) {
+            assertEquals("A", reader.next().getName());
+            ImportFormatException ex = assertThrows(ImportFormatException.class, reader::next);
+            assertTrue(ex.getMessage().startsWith("Запись #2 (строка 1"), ex.getMessage());
+        }
+    }
+
+    @Test
+    void parseRejectsEmptyArray() {
+        InvalidDataException ex = assertThrows(InvalidDataException.class,
+                () -> parser.parse(bytes("{\"ticketList\":[]}")));
+
+        assertEquals("JSON не содержит массив ticket", ex.getMessage());
+    }
+
+    @Test
+    void ndjsonReaderSkipsBlankLinesAndReportsFileLine() throws Exception {
+        String ndjson = TICKET.formatted("A") + "\n\n" + TICKET.formatted("B") + "\r\n{\"price\":\"oops\"}\n";
+
+        try (TicketImportReader reader = parser.open(new ByteArrayInputStream(bytes(ndjson)),
+                TicketImportFormat.NDJSON)) {
+            assertEquals("A", reader.next().getName());
+            assertEquals("B", reader.next().getName());
+            ImportFormatException ex = assertThrows(ImportFormatException.class, reader::next);
+            assertTrue(ex.getMessage().startsWith("Запись #3 (строка 4, столбец"), ex.getMessage());
+        }
+    }
+
+    @Test
+    void csvParsesNestedReferencesAndQuotedFields() throws Exception {
+        String csv = "name,price,type,number,comment,coordinatesX,coordinatesY,eventId,"
+                + "personPassportID,personWeight,personHairColor,personNationality,"
+                + "personLocationX,personLocationY,personLocationZ\n"
+                + "A,10.5,VIP,3,\"first, \"\"best\"\"\nrow\",1,2.5,7,P-1,70,RED,JAPAN,1,2,3\n"
+                + "\n"
+                + "B,1,USUAL,1,,1,1,,,,,,,,\n";
+
+        List<Ticket> tickets = parser.parse(bytes(csv), TicketImportFormat.CSV);
+
+        assertEquals(2, tickets.size());
+        Ticket first = tickets.get(0);
+        assertEquals("first, \"best\"\nrow", first.getComment());
+        assertEquals(2.5f, first.getCoordinates().getY());
+        assertEquals(7, first.getEvent().getId());
+        assertEquals("P-1", first.getPerson().getPassportID());
+        assertEquals(3f, first.getPerson().getLocation().getZ());
+        assertNull(tickets.get(1).getComment());
+        assertNull(tickets.get(1).getPerson());
+    }
+
+    @Test
+    void csvReportsLineAndColumnOfMalformedValue() throws Exception {
+        String csv = "id,name,price\n1,A,1\n2,\"B\nC\",1\n3,D,cheap\n";
+
+        try (TicketImportReader reader = parser.open(new ByteArrayInputStream(bytes(csv)), TicketImportFormat.CSV)) {
+            assertEquals(2, reader.skip(2));
+            ImportFormatException ex = assertThrows(ImportFormatException.class, reader::next);
+            assertTrue(ex.getMessage().startsWith("Запись #3 (строка 5, колонка price)"), ex.getMessage());
+        }
+    }
+
+    @Test
+    void csvRejectsUnknownHeaderColumn() {
+        InvalidDataException ex = assertThrows(InvalidDataException.class,
+                () -> parser.parse(bytes("name,cost\nA,1\n"), TicketImportFormat.CSV));
+
+        assertTrue(ex.getMessage().startsWith("Заголовок CSV: неизвестная колонка \"cost\""), ex.getMessage());
+    }
+
+    @Test
+    void formatDetectedByContentTypeThenExtension() {
+        assertEquals(TicketImportFormat.NDJSON, TicketImportFormat.detect("application/x-ndjson", "tickets.json"));
+        assertEquals(TicketImportFormat.CSV, TicketImportFormat.detect("application/octet-stream", "Tickets.CSV"));
+        assertEquals(TicketImportFormat.NDJSON, TicketImportFormat.detect(null, "tickets.jsonl"));
+        assertEquals(TicketImportFormat.JSON, TicketImportFormat.detect("application/json", "tickets.csv.json"));
+    }
+
+    private byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+}
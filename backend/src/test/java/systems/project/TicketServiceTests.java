@@ -1,35 +1,56 @@
 package systems.project;
 
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.hibernate.Session;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import systems.project.configuratons.ImportProperties;
+import systems.project.exceptions.InvalidDataException;
+import systems.project.models.Color;
 import systems.project.models.Coordinates;
+import systems.project.models.Event;
+import systems.project.models.Country;
+import systems.project.models.Location;
 import systems.project.models.Person;
 import systems.project.models.Ticket;
 import systems.project.models.TicketType;
+import systems.project.models.views.TicketView;
 import systems.project.repositories.EventRepository;
 import systems.project.repositories.LocationRepository;
 import systems.project.repositories.PersonRepository;
 import systems.project.repositories.TicketRepository;
 import systems.project.repositories.VenueRepository;
 import systems.project.services.command.TicketCommandService;
+import systems.project.services.command.TicketCopyLoader;
+import systems.project.services.command.TicketImportValidator;
 import systems.project.services.core.TicketService;
 import systems.project.services.core.ValidateTypes;
 import systems.project.services.imports.TicketImportCoordinator;
 
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -54,6 +75,12 @@ class TicketServiceTests {
     @Mock
     LocationRepository locationRepository;
 
+    @Mock
+    EntityManager entityManager;
+
+    @Mock
+    TicketCopyLoader copyLoader;
+
     private TicketCommandService ticketCommandService;
     private TicketImportCoordinator ticketImportCoordinator;
 
@@ -66,7 +93,10 @@ class TicketServiceTests {
                 validateTypes,
                 eventRepository,
                 venueRepository,
-                locationRepository
+                locationRepository,
+                entityManager,
+                new TicketImportValidator(validateTypes, new ImportProperties(), ForkJoinPool.commonPool()),
+                copyLoader
         );
         ticketImportCoordinator = org.mockito.Mockito.mock(TicketImportCoordinator.class);
         ticketService = new TicketService(ticketCommandService, ticketImportCoordinator);
@@ -74,8 +104,8 @@ class TicketServiceTests {
 
     @Test
     void testGetTicket() throws ExecutionException, InterruptedException {
-        Ticket ticket = new Ticket();
-        when(ticketRepository.findById(5)).thenReturn(Optional.of(ticket));
+        TicketView ticket = view(5);
+        when(ticketRepository.findViewById(5)).thenReturn(Optional.of(ticket));
 
         var result = ticketService.getTicket(5).get();
 
@@ -84,7 +114,7 @@ class TicketServiceTests {
 
     @Test
     void testGetTicketEmpty() throws ExecutionException, InterruptedException {
-        when(ticketRepository.findById(5)).thenReturn(Optional.empty());
+        when(ticketRepository.findViewById(5)).thenReturn(Optional.empty());
 
         var result = ticketService.getTicket(5).get();
 
@@ -93,7 +123,7 @@ class TicketServiceTests {
 
     @Test
     void testGetTicketException() throws ExecutionException, InterruptedException {
-        when(ticketRepository.findById(5)).thenThrow(new RuntimeException("fail"));
+        when(ticketRepository.findViewById(5)).thenThrow(new RuntimeException("fail"));
 
         var result = ticketService.getTicket(5).get();
 
@@ -188,9 +218,9 @@ class TicketServiceTests {
 
     @Test
     void testGetWithMinEvent() throws ExecutionException, InterruptedException {
-        Ticket ticket = new Ticket();
-        when(ticketRepository.findFirstByEventIsNotNullOrderByEventIdAsc())
-                .thenReturn(Optional.of(ticket));
+        TicketView ticket = view(3);
+        when(ticketRepository.findViewsWithMinEvent(Limit.of(1)))
+                .thenReturn(List.of(ticket));
 
         var result = ticketService.getWithMinEvent().get();
 
@@ -199,8 +229,8 @@ class TicketServiceTests {
 
     @Test
     void testGetWithMinEventEmpty() throws ExecutionException, InterruptedException {
-        when(ticketRepository.findFirstByEventIsNotNullOrderByEventIdAsc())
-                .thenReturn(Optional.empty());
+        when(ticketRepository.findViewsWithMinEvent(Limit.of(1)))
+                .thenReturn(List.of());
 
         var result = ticketService.getWithMinEvent().get();
 
@@ -302,4 +332,158 @@ class TicketServiceTests {
 
         assertNull(copy);
     }
+
+    @Test
+    void testGetTicketsPageReturnsCursorWhenMoreRowsExist() throws Exception {
+        List<TicketView> rows = List.of(view(1), view(2), view(3));
+        when(ticketRepository.findViewsAfter(0, Limit.of(3))).thenReturn(rows);
+
+        var page = ticketService.getTicketsPage(null, 2).get();
+
+        assertEquals(2, page.getTicketList().size());
+        assertTrue(page.isHasMore());
+        assertNotNull(page.getNextCursor());
+
+        when(ticketRepository.findViewsAfter(eq(2), any(Limit.class)))
+                .thenReturn(List.of(view(3)));
+
+        var next = ticketService.getTicketsPage(page.getNextCursor(), 2).get();
+
+        assertEquals(1, next.getTicketList().size());
+        assertFalse(next.isHasMore());
+        assertNull(next.getNextCursor());
+    }
+
+    @Test
+    void testGetTicketsPageRejectsBrokenCursor() {
+        ExecutionException ex = assertThrows(ExecutionException.class,
+                () -> ticketService.getTicketsPage("not-a-cursor", 10).get());
+
+        assertTrue(ex.getCause() instanceof InvalidDataException);
+    }
+
+    @Test
+    void testImportTicketsReusesPersonRepeatedInFile() throws Exception {
+        stubImportWrites();
+
+        var result = ticketCommandService.importTickets(List.of(importable("AB-1"), importable("AB-1")));
+
+        assertEquals(2, result.getImported());
+        verify(personRepository, times(1)).save(any(Person.class));
+        verify(personRepository, never()).existsPersonByPassportID(any());
+    }
+
+    @Test
+    void testImportTicketsRejectsConflictingPersonInFile() {
+        when(validateTypes.compatibility(any(Ticket.class))).thenReturn(true);
+        Ticket conflicting = importable("AB-1");
+        conflicting.getPerson().setWeight(99.0);
+
+        InvalidDataException ex = assertThrows(InvalidDataException.class,
+                () -> ticketCommandService.importTickets(List.of(importable("AB-1"), conflicting)));
+
+        assertTrue(ex.getMessage().startsWith("Запись #2"));
+        verify(personRepository, never()).save(any(Person.class));
+    }
+
+    @Test
+    void testImportTicketsReportsEarliestErrorWhenValidatedInParallel() {
+        ImportProperties properties = new ImportProperties();
+        properties.setParallelValidationThreshold(1);
+        ticketCommandService = new TicketCommandService(ticketRepository, personRepository, validateTypes,
+                eventRepository, venueRepository, locationRepository, entityManager,
+                new TicketImportValidator(validateTypes, properties, ForkJoinPool.commonPool()), copyLoader);
+        when(validateTypes.compatibility(any(Ticket.class))).thenReturn(true);
+        List<Ticket> tickets = new ArrayList<>();
+        for (int i = 1; i <= 1000; i++) {
+            Ticket ticket = importable("P-" + i);
+            if (i == 300 || i == 900) {
+                ticket.setName(" ");
+            }
+            tickets.add(ticket);
+        }
+
+        InvalidDataException ex = assertThrows(InvalidDataException.class,
+                () -> ticketCommandService.importTickets(tickets));
+
+        assertEquals("Запись #300: ticket.name обязательно", ex.getMessage());
+        verify(ticketRepository, never()).save(any(Ticket.class));
+    }
+
+    @Test
+    void testImportTicketsReportsMissingReferenceAfterPreflight() {
+        when(eventRepository.findByIdIn(List.of(5))).thenReturn(List.of());
+        Ticket ticket = importable("AB-1");
+        Event event = new Event();
+        event.setId(5);
+        ticket.setEvent(event);
+        ticket.setPerson(null);
+
+        InvalidDataException ex = assertThrows(InvalidDataException.class,
+                () -> ticketCommandService.importTickets(List.of(ticket)));
+
+        assertEquals("Запись #1: event с id=5 не найден", ex.getMessage());
+    }
+
+    @Test
+    void testBulkImportStoresReferencesAndCopiesTickets() throws Exception {
+        when(validateTypes.compatibility(any(Ticket.class))).thenReturn(true);
+        when(locationRepository.save(any(Location.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(personRepository.save(any(Person.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(copyLoader.load(anyList())).thenReturn(List.of(500, 501));
+
+        var result = ticketCommandService.bulkImportTickets(List.of(importable("AB-1"), importable("AB-1")));
+
+        assertEquals(List.of(500, 501), result.getTicketIds());
+        verify(personRepository, times(1)).save(any(Person.class));
+        verify(ticketRepository, never()).save(any(Ticket.class));
+    }
+
+    @Test
+    void testBulkImportReportsCopyFailure() throws Exception {
+        when(validateTypes.compatibility(any(Ticket.class))).thenReturn(true);
+        when(locationRepository.save(any(Location.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(personRepository.save(any(Person.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(copyLoader.load(anyList())).thenThrow(new SQLException("duplicate key"));
+
+        InvalidDataException ex = assertThrows(InvalidDataException.class,
+                () -> ticketCommandService.bulkImportTickets(List.of(importable("AB-1"))));
+
+        assertEquals("Bulk-загрузка не удалась: duplicate key", ex.getMessage());
+    }
+
+    private void stubImportWrites() {
+        when(entityManager.unwrap(Session.class)).thenReturn(org.mockito.Mockito.mock(Session.class));
+        when(locationRepository.save(any(Location.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(personRepository.save(any(Person.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(validateTypes.compatibility(any(Ticket.class))).thenReturn(true);
+        when(ticketRepository.save(any(Ticket.class))).thenAnswer(inv -> inv.getArgument(0));
+    }
+
+    private Ticket importable(String passport) {
+        Person person = new Person();
+        person.setPassportID(passport);
+        person.setWeight(70.0);
+        person.setNationality(Country.JAPAN);
+        person.setHairColor(Color.RED);
+        person.setLocation(Location.builder().x(1).y(2f).z(3f).build());
+
+        Coordinates coordinates = new Coordinates();
+        coordinates.setX(1);
+        coordinates.setY(2f);
+
+        Ticket ticket = new Ticket();
+        ticket.setName("Imported");
+        ticket.setPrice(10f);
+        ticket.setType(TicketType.USUAL);
+        ticket.setNumber(1);
+        ticket.setCoordinates(coordinates);
+        ticket.setPerson(person);
+        return ticket;
+    }
+
+    private TicketView view(int id) {
+        return new TicketView(id, "Ticket " + id, null, null, null, null,
+                10f, TicketType.USUAL, null, 1, null, null);
+    }
 }
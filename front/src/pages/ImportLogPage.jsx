@@ -18,6 +18,7 @@ const statusClass = (status) => {
 
 export default function ImportLogPage() {
   const [entries, setEntries] = useState([]);
+  const [nextCursor, setNextCursor] = useState(null);
   const [busy, setBusy] = useState(false);
   const [message, setMessage] = useState(null);
   const [cacheLogging, setCacheLogging] = useState(false);
@@ -32,17 +33,22 @@ export default function ImportLogPage() {
     return null;
   };
 
-  const fetchLogs = async () => {
+  const fetchLogs = async (after = null) => {
     setBusy(true);
     try {
-      const res = await fetch(`${base}/import/logs`);
+      const query = after ? `?after=${encodeURIComponent(after)}` : '';
+      const res = await fetch(`${base}/import/logs${query}`);
       if (!res.ok) {
         throw new Error(`Ошибка загрузки журнала (${res.status})`);
       }
       const body = await res.json();
-      const list = extractData(body);
-      setEntries(Array.isArray(list) ? list : []);
-      setMessage({ ok: true, text: `Обновлено (${list?.length ?? 0})` });
+      const data = extractData(body);
+      const list = Array.isArray(data) ? data : data?.entries;
+      const page = Array.isArray(list) ? list : [];
+      const loaded = after ? entries.length + page.length : page.length;
+      setEntries((current) => (after ? [...current, ...page] : page));
+      setNextCursor(data?.hasMore ? data.nextCursor : null);
+      setMessage({ ok: true, text: `Обновлено (${loaded})` });
     } catch (error) {
       setMessage({ ok: false, text: error.message || 'Ошибка загрузки журнала' });
     } finally {
@@ -68,7 +74,7 @@ export default function ImportLogPage() {
   useEffect(() => {
     fetchLogs();
     fetchCacheLogging();
-  });
+  }, []);
 
   const updateCacheLogging = async (enabled) => {
     try {
@@ -102,7 +108,7 @@ export default function ImportLogPage() {
         <button className="btn" onClick={() => navigate('/')} disabled={busy}>
           Назад
         </button>
-        <button className="btn" onClick={fetchLogs} disabled={busy}>
+        <button className="btn" onClick={() => fetchLogs()} disabled={busy}>
           Обновить журнал
         </button>
         <label className="toggle">
@@ -154,6 +160,13 @@ export default function ImportLogPage() {
             ))}
           </tbody>
         </table>
+        {nextCursor && (
+          <div className="toolbar">
+            <button className="btn" onClick={() => fetchLogs(nextCursor)} disabled={busy}>
+              Показать ещё
+            </button>
+          </div>
+        )}
       </div>
     </div>
   );